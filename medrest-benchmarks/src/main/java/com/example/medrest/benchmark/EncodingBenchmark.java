@@ -0,0 +1,90 @@
+package com.example.medrest.benchmark;
+
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.dto.PrescriptionDto;
+import com.example.medrest.protobuf.ProtobufList;
+import com.example.medrest.protobuf.ProtobufLists;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding and decoding of the patient and prescription lists in each representation the listings negotiate. The
+ * payload size of every combination, raw and gzipped as the server compresses it, is printed once per fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodingBenchmark {
+    @Param({"json", "smile", "cbor", "protobuf"})
+    public String format;
+
+    @Param({"patients", "prescriptions"})
+    public String payload;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Object value;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        Class<?> elementType = payload.equals("patients") ? PatientDto.class : PrescriptionDto.class;
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(payload.equals("patients")
+                    ? new PatientDto("First" + i, "Last" + i, "07" + (10000000 + i), "patient" + i + "@gmail.com")
+                    : new PrescriptionDto("Medicament " + i, 1 + i % 500, 1 + i % 3));
+        }
+        if (format.equals("protobuf")) {
+            value = new ProtobufList<>(list);
+            writer = ProtobufLists.writer(elementType);
+            reader = ProtobufLists.reader(elementType);
+        } else {
+            ObjectMapper mapper = format.equals("smile") ? new ObjectMapper(new SmileFactory())
+                    : format.equals("cbor") ? new ObjectMapper(new CBORFactory())
+                    : new ObjectMapper();
+            JavaType listType = mapper.getTypeFactory().constructCollectionType(List.class, elementType);
+            value = list;
+            writer = mapper.writerFor(listType);
+            reader = mapper.readerFor(listType);
+        }
+        encoded = writer.writeValueAsBytes(value);
+        System.out.printf("%n%s %d %s: %d bytes, %d bytes gzipped%n", format, size, payload, encoded.length, gzippedSize(encoded));
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+
+    private static int gzippedSize(byte[] bytes) throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(bytes);
+        }
+        return gzipped.size();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.medrest.benchmark;
+
+import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.dto.PrescriptionDto;
+import com.example.medrest.mapper.DoctorMapper;
+import com.example.medrest.mapper.PatientMapper;
+import com.example.medrest.mapper.PrescriptionMapper;
+import com.example.medrest.model.Doctor;
+import com.example.medrest.model.Patient;
+import com.example.medrest.model.Prescription;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions between the entities and the DTOs which every endpoint goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private Patient patient;
+    private PatientDto patientDto;
+    private List<String> csvRow;
+    private Doctor doctor;
+    private Prescription prescription;
+
+    @Setup
+    public void setup() {
+        patient = new Patient("Val", "Andrei", "0730000000", "val@gmail.com");
+        patientDto = new PatientDto("Val", "Andrei", "0730000000", "val@gmail.com");
+        csvRow = List.of("Val", "Andrei", "0730000000", "");
+        doctor = new Doctor("Gelu Andrei", 10000);
+        prescription = new Prescription("Augmentin", 35, 1);
+    }
+
+    @Benchmark
+    public PatientDto patientToPatientDto() {
+        return PatientMapper.patientToPatientDto(patient);
+    }
+
+    @Benchmark
+    public Patient patientDtoToPatient() {
+        return PatientMapper.patientDtoToPatient(patientDto);
+    }
+
+    @Benchmark
+    public PatientDto csvRowToPatientDto() {
+        return PatientMapper.csvRowToPatientDto(csvRow);
+    }
+
+    @Benchmark
+    public DoctorDto doctorToDoctorDto() {
+        return DoctorMapper.doctorToDoctorDto(doctor);
+    }
+
+    @Benchmark
+    public PrescriptionDto prescriptionToPrescriptionDto() {
+        return PrescriptionMapper.prescriptionToPrescriptionDto(prescription);
+    }
+}
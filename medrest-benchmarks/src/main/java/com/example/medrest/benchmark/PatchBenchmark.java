@@ -0,0 +1,61 @@
+package com.example.medrest.benchmark;
+
+import com.example.medrest.model.Doctor;
+import com.example.medrest.model.Patient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The field by field merge of a PATCH body into the managed entity, with every field given and with a single one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatchBenchmark {
+    private Patient patient;
+    private Patient fullPatientPatch;
+    private Patient phonePatch;
+    private Doctor doctor;
+    private Doctor fullDoctorPatch;
+    private Doctor salaryPatch;
+
+    @Setup
+    public void setup() {
+        patient = new Patient("Val", "Andrei", "0730000000", "val@gmail.com");
+        fullPatientPatch = new Patient("Ion", "Popa", "0750000000", "ion@gmail.com");
+        phonePatch = new Patient();
+        phonePatch.setPhoneNumber("0760000000");
+        doctor = new Doctor("Gelu Andrei", 10000);
+        fullDoctorPatch = new Doctor("Ana Pop", 12000);
+        salaryPatch = new Doctor();
+        salaryPatch.setSalary(11000);
+    }
+
+    @Benchmark
+    public Patient patchPatient() {
+        patient.patch(fullPatientPatch);
+        return patient;
+    }
+
+    @Benchmark
+    public Patient patchPatientPhone() {
+        patient.patch(phonePatch);
+        return patient;
+    }
+
+    @Benchmark
+    public Doctor patchDoctor() {
+        doctor.patch(fullDoctorPatch);
+        return doctor;
+    }
+
+    @Benchmark
+    public Doctor patchDoctorSalary() {
+        doctor.patch(salaryPatch);
+        return doctor;
+    }
+}
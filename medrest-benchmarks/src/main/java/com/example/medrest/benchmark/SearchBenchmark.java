@@ -0,0 +1,61 @@
+package com.example.medrest.benchmark;
+
+import com.example.medrest.dto.PatientSearchDto;
+import com.example.medrest.search.PatientSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Patient search against the in-memory index filled with up to a million patients: a name query whose words many
+ * patients share, a name query where the longest word selects many postings of which few match the other word, and
+ * a phone number prefix.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+    private static final String[] FIRST_NAMES = {"Ana", "Andrei", "Maria", "Ion", "Elena", "Mihai", "Ioana", "Alexandru",
+            "Cristina", "Gabriel", "Andreea", "Stefan", "Diana", "Florin", "Raluca", "Vlad", "Oana", "Bogdan", "Irina", "Radu"};
+    private static final String[] LAST_NAMES = {"Popescu", "Popa", "Ionescu", "Dumitru", "Stan", "Stoica", "Gheorghe",
+            "Rusu", "Munteanu", "Matei", "Constantin", "Serban", "Moldovan", "Lazar", "Ciobanu", "Florea", "Dinu", "Tudor",
+            "Andrei", "Ene", "Barbu", "Nistor", "Marin", "Toma", "Dobre", "Zaharia"};
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private PatientSearchIndex index;
+
+    @Setup
+    public void setup() {
+        // never rebuilt from the database, filled through the same index() the services call outside a transaction
+        index = new PatientSearchIndex(null, null);
+        Random random = new Random(42);
+        for (long id = 1; id <= size; id++) {
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            index.index(new PatientSearchDto(id, firstName, lastName, String.format("07%08d", random.nextInt(100_000_000)),
+                    firstName.toLowerCase() + "." + lastName.toLowerCase() + id + "@gmail.com"));
+        }
+    }
+
+    @Benchmark
+    public List<PatientSearchDto> commonName() {
+        return index.search("ana pop", 50);
+    }
+
+    @Benchmark
+    public List<PatientSearchDto> rareCombination() {
+        return index.search("zaharia vlad", 50);
+    }
+
+    @Benchmark
+    public List<PatientSearchDto> phoneNumber() {
+        return index.search("0730 12", 50);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.medrest.benchmark;
+
+import com.example.medrest.dto.PatientDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the patient lists returned by the listing endpoints, into a byte array as a response body
+ * is buffered and into a stream as the exports write it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private List<PatientDto> patients;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setup() {
+        patients = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            patients.add(new PatientDto("First" + i, "Last" + i, "07" + (10000000 + i), "patient" + i + "@gmail.com"));
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, PatientDto.class));
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws IOException {
+        return writer.writeValueAsBytes(patients);
+    }
+
+    @Benchmark
+    public void writeToStream() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), patients);
+    }
+}
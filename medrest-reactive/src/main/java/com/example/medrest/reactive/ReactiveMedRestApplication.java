@@ -0,0 +1,17 @@
+package com.example.medrest.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Read-only API over the MedREST database on WebFlux and R2DBC. It serves the GET endpoints of patients, doctors and
+ * prescriptions with the DTOs and the exception handling of the servlet application, which owns the schema.
+ */
+@SpringBootApplication(scanBasePackages = {"com.example.medrest.reactive", "com.example.medrest.exception"})
+public class ReactiveMedRestApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveMedRestApplication.class, args);
+    }
+
+}
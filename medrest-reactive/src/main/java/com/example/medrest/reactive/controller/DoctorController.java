@@ -0,0 +1,41 @@
+package com.example.medrest.reactive.controller;
+
+import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.etag.VersionTags;
+import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.reactive.repository.DoctorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("api/doctors")
+public class DoctorController {
+    private final DoctorRepository doctorRepository;
+
+    public DoctorController(@Autowired DoctorRepository doctorRepository) {
+        this.doctorRepository = doctorRepository;
+    }
+
+    @GetMapping(value = "/infos", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<DoctorDto> getDoctors(@RequestParam(value = "page", defaultValue = "0") int page,
+                                      @RequestParam(value = "size", defaultValue = Paging.DEFAULT_PAGE_SIZE) int size) {
+        return doctorRepository.findPage(Paging.offset(page, size), size)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("No doctors were found!")));
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<DoctorDto>> getDoctor(@PathVariable("id") Long id) {
+        return doctorRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("No doctor with the given id was found!")))
+                .map(doctorDto -> ResponseEntity.ok().eTag(VersionTags.eTag(doctorDto.getVersion())).body(doctorDto));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DoctorDto> exportDoctors() {
+        return doctorRepository.findAll();
+    }
+}
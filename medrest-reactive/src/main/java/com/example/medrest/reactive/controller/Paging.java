@@ -0,0 +1,24 @@
+package com.example.medrest.reactive.controller;
+
+import com.example.medrest.exception.BadRequestException;
+
+/**
+ * Offset paging of the /infos endpoints, with the page size limits of the servlet application.
+ */
+final class Paging {
+    static final String DEFAULT_PAGE_SIZE = "50";
+    static final int MAX_PAGE_SIZE = 500;
+
+    private Paging() {
+    }
+
+    static long offset(int page, int size) {
+        if (page < 0) {
+            throw new BadRequestException("The page index must not be negative!");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("The page size must be between 1 and " + MAX_PAGE_SIZE + "!");
+        }
+        return (long) page * size;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.medrest.reactive.controller;
+
+import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.dto.PrescriptionDto;
+import com.example.medrest.etag.VersionTags;
+import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.reactive.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("api/patients")
+public class PatientController {
+    private final PatientRepository patientRepository;
+
+    public PatientController(@Autowired PatientRepository patientRepository) {
+        this.patientRepository = patientRepository;
+    }
+
+    @GetMapping(value = "/infos", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<PatientDto> getPatients(@RequestParam(value = "page", defaultValue = "0") int page,
+                                        @RequestParam(value = "size", defaultValue = Paging.DEFAULT_PAGE_SIZE) int size) {
+        return patientRepository.findPage(Paging.offset(page, size), size)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("No patients found!")));
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<PatientDto>> getPatient(@PathVariable("id") Long id) {
+        return patientRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("No patient with the given id was found!")))
+                .map(patientDto -> ResponseEntity.ok().eTag(VersionTags.eTag(patientDto.getVersion())).body(patientDto));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PatientDto> exportPatients() {
+        return patientRepository.findAll();
+    }
+
+    @GetMapping(path = "/{id}/prescriptions", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<PrescriptionDto>>> getPatientPrescriptions(@PathVariable("id") Long patientId) {
+        return associated(patientId, patientRepository.findPrescriptionsByPatientId(patientId));
+    }
+
+    @GetMapping(path = "/{id}/appointments", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<DoctorDto>>> getPatientAppointmentsWithDoctors(@PathVariable("id") Long patientId) {
+        return associated(patientId, patientRepository.findDoctorsByPatientId(patientId));
+    }
+
+    // the rows of a patient's association, 204 when there are none and 404 when the patient itself does not exist
+    private <T> Mono<ResponseEntity<List<T>>> associated(Long patientId, Flux<T> rows) {
+        return rows.collectList()
+                .filter(list -> !list.isEmpty())
+                .map(ResponseEntity::ok)
+                .switchIfEmpty(Mono.defer(() -> patientRepository.existsById(patientId))
+                        .flatMap(exists -> exists
+                                ? Mono.just(ResponseEntity.noContent().<List<T>>build())
+                                : Mono.error(new NotFoundException("The patient with the given id does not exist!\n"))));
+    }
+}
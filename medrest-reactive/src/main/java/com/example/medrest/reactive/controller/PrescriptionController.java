@@ -0,0 +1,41 @@
+package com.example.medrest.reactive.controller;
+
+import com.example.medrest.dto.PrescriptionDto;
+import com.example.medrest.etag.VersionTags;
+import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.reactive.repository.PrescriptionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("api/prescriptions")
+public class PrescriptionController {
+    private final PrescriptionRepository prescriptionRepository;
+
+    public PrescriptionController(@Autowired PrescriptionRepository prescriptionRepository) {
+        this.prescriptionRepository = prescriptionRepository;
+    }
+
+    @GetMapping(value = "/infos", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<PrescriptionDto> getPrescriptions(@RequestParam(value = "page", defaultValue = "0") int page,
+                                                  @RequestParam(value = "size", defaultValue = Paging.DEFAULT_PAGE_SIZE) int size) {
+        return prescriptionRepository.findPage(Paging.offset(page, size), size)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("No prescription was found in the database")));
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<PrescriptionDto>> getPrescription(@PathVariable("id") Long id) {
+        return prescriptionRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Prescription not found")))
+                .map(prescriptionDto -> ResponseEntity.ok().eTag(VersionTags.eTag(prescriptionDto.getVersion())).body(prescriptionDto));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PrescriptionDto> exportPrescriptions() {
+        return prescriptionRepository.findAll();
+    }
+}
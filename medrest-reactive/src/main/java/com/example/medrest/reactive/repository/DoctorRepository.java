@@ -0,0 +1,47 @@
+package com.example.medrest.reactive.repository;
+
+import com.example.medrest.dto.DoctorDto;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class DoctorRepository {
+    private static final String SELECT_DOCTORS = "select name, salary, version from doctors";
+
+    private final DatabaseClient databaseClient;
+
+    public DoctorRepository(@Autowired DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<DoctorDto> findPage(long offset, int size) {
+        return databaseClient.sql(SELECT_DOCTORS + " order by id limit :size offset :offset")
+                .bind("size", size)
+                .bind("offset", offset)
+                .map(DoctorRepository::toDoctorDto)
+                .all();
+    }
+
+    public Flux<DoctorDto> findAll() {
+        return databaseClient.sql(SELECT_DOCTORS + " order by id")
+                .map(DoctorRepository::toDoctorDto)
+                .all();
+    }
+
+    public Mono<DoctorDto> findById(Long id) {
+        return databaseClient.sql(SELECT_DOCTORS + " where id = :id")
+                .bind("id", id)
+                .map(DoctorRepository::toDoctorDto)
+                .one();
+    }
+
+    private static DoctorDto toDoctorDto(Row row) {
+        return new DoctorDto(row.get("name", String.class),
+                row.get("salary", Integer.class),
+                row.get("version", Long.class));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.medrest.reactive.repository;
+
+import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.dto.PrescriptionDto;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class PatientRepository {
+    private static final String SELECT_PATIENTS = "select first_name, last_name, phone_number, email_address, version from patients";
+
+    private final DatabaseClient databaseClient;
+
+    public PatientRepository(@Autowired DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<PatientDto> findPage(long offset, int size) {
+        return databaseClient.sql(SELECT_PATIENTS + " order by patient_id limit :size offset :offset")
+                .bind("size", size)
+                .bind("offset", offset)
+                .map(PatientRepository::toPatientDto)
+                .all();
+    }
+
+    public Flux<PatientDto> findAll() {
+        return databaseClient.sql(SELECT_PATIENTS + " order by patient_id")
+                .map(PatientRepository::toPatientDto)
+                .all();
+    }
+
+    public Mono<PatientDto> findById(Long id) {
+        return databaseClient.sql(SELECT_PATIENTS + " where patient_id = :id")
+                .bind("id", id)
+                .map(PatientRepository::toPatientDto)
+                .one();
+    }
+
+    public Mono<Boolean> existsById(Long id) {
+        return databaseClient.sql("select 1 from patients where patient_id = :id")
+                .bind("id", id)
+                .map(row -> true)
+                .first()
+                .defaultIfEmpty(false);
+    }
+
+    public Flux<DoctorDto> findDoctorsByPatientId(Long id) {
+        return databaseClient.sql("select d.name, d.salary from patients_doctors pd " +
+                        "join doctors d on d.id = pd.doctor_id where pd.patient_id = :id")
+                .bind("id", id)
+                .map(row -> new DoctorDto(row.get("name", String.class), row.get("salary", Integer.class)))
+                .all();
+    }
+
+    public Flux<PrescriptionDto> findPrescriptionsByPatientId(Long id) {
+        return databaseClient.sql("select pr.medicament_name, pr.price, pr.amount_to_take from patients_prescriptions pp " +
+                        "join prescriptions pr on pr.prescription_id = pp.prescription_id where pp.patient_id = :id")
+                .bind("id", id)
+                .map(row -> new PrescriptionDto(row.get("medicament_name", String.class),
+                        row.get("price", Integer.class),
+                        row.get("amount_to_take", Integer.class)))
+                .all();
+    }
+
+    private static PatientDto toPatientDto(Row row) {
+        return new PatientDto(row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                row.get("phone_number", String.class),
+                row.get("email_address", String.class),
+                row.get("version", Long.class));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.medrest.reactive.repository;
+
+import com.example.medrest.dto.PrescriptionDto;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class PrescriptionRepository {
+    private static final String SELECT_PRESCRIPTIONS = "select medicament_name, price, amount_to_take, version from prescriptions";
+
+    private final DatabaseClient databaseClient;
+
+    public PrescriptionRepository(@Autowired DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<PrescriptionDto> findPage(long offset, int size) {
+        return databaseClient.sql(SELECT_PRESCRIPTIONS + " order by prescription_id limit :size offset :offset")
+                .bind("size", size)
+                .bind("offset", offset)
+                .map(PrescriptionRepository::toPrescriptionDto)
+                .all();
+    }
+
+    public Flux<PrescriptionDto> findAll() {
+        return databaseClient.sql(SELECT_PRESCRIPTIONS + " order by prescription_id")
+                .map(PrescriptionRepository::toPrescriptionDto)
+                .all();
+    }
+
+    public Mono<PrescriptionDto> findById(Long id) {
+        return databaseClient.sql(SELECT_PRESCRIPTIONS + " where prescription_id = :id")
+                .bind("id", id)
+                .map(PrescriptionRepository::toPrescriptionDto)
+                .one();
+    }
+
+    private static PrescriptionDto toPrescriptionDto(Row row) {
+        return new PrescriptionDto(row.get("medicament_name", String.class),
+                row.get("price", Integer.class),
+                row.get("amount_to_take", Integer.class),
+                row.get("version", Long.class));
+    }
+}
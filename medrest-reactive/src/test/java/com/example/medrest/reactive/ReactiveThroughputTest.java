@@ -0,0 +1,124 @@
+package com.example.medrest.reactive;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Statement;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test of the reactive stack at a concurrency far above its connection pool, against a database which takes
+ * {@link #LATENCY_MILLIS} to answer every statement: a handful of event loop threads keep every connection busy, so
+ * the throughput should get close to the bound of the pool. Tagged {@code performance}, so it only runs with
+ * {@code mvn -Pperformance test}.
+ */
+@Tag("performance")
+class ReactiveThroughputTest {
+    private static final long LATENCY_MILLIS = 50;
+    private static final int CONNECTIONS = 8;
+    private static final int REQUESTS = 256;
+
+    @Test
+    @DisplayName("With a slow database hundreds of concurrent requests are served at the pool's throughput")
+    void throughputIsBoundedByThePool() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ReactiveMedRestApplication.class, SlowDatabase.class)
+                .profiles("test")
+                .properties("server.port=0",
+                        "spring.r2dbc.pool.initial-size=" + CONNECTIONS,
+                        "spring.r2dbc.pool.max-size=" + CONNECTIONS)
+                .run()) {
+            context.getBean(DatabaseClient.class)
+                    .sql("insert into patients (first_name, last_name, phone_number, email_address) " +
+                            "values ('Val', 'Andrei', '0730000000', 'val@gmail.com')")
+                    .then()
+                    .block();
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/api/patients/infos?page=0");
+            HttpClient client = HttpClient.newHttpClient();
+            // one round to warm up the server, the connection pool and the JIT
+            send(client, uri, CONNECTIONS);
+
+            long start = System.nanoTime();
+            List<Integer> statuses = send(client, uri, REQUESTS);
+            double requestsPerSecond = REQUESTS / ((System.nanoTime() - start) / 1e9);
+
+            statuses.forEach(status -> assertEquals(200, status));
+            double poolBound = CONNECTIONS * 1000.0 / LATENCY_MILLIS;
+            assertTrue(requestsPerSecond > poolBound / 2,
+                    requestsPerSecond + " requests/s, the pool can serve at most " + poolBound + " requests/s");
+        }
+    }
+
+    private static List<Integer> send(HttpClient client, URI uri, int requests) {
+        List<CompletableFuture<Integer>> responses = IntStream.range(0, requests)
+                .mapToObj(i -> client.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding())
+                        .thenApply(HttpResponse::statusCode))
+                .collect(Collectors.toList());
+        return responses.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    @TestConfiguration
+    static class SlowDatabase {
+        @Bean
+        static BeanPostProcessor slowConnectionFactory() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof ConnectionFactory ? proxy(ConnectionFactory.class, bean) : bean;
+                }
+            };
+        }
+
+        // the connection factory hands out connections whose statements emit their results only after the latency,
+        // without holding a thread while they wait
+        @SuppressWarnings("unchecked")
+        private static Object proxy(Class<?> type, Object target) {
+            return Proxy.newProxyInstance(ReactiveThroughputTest.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException exception) {
+                    throw exception.getCause();
+                }
+                if (result == target) {
+                    return proxy;
+                }
+                if (type == ConnectionFactory.class && method.getName().equals("create")) {
+                    return Mono.from((Publisher<Connection>) result).map(connection -> proxy(Connection.class, connection));
+                }
+                if (result instanceof Statement) {
+                    return proxy(Statement.class, result);
+                }
+                if (type == Statement.class && method.getName().equals("execute")) {
+                    return Flux.from((Publisher<?>) result).delaySubscription(Duration.ofMillis(LATENCY_MILLIS));
+                }
+                return result;
+            });
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.medrest.reactive.controller;
+
+import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.reactive.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(controllers = PatientController.class)
+class PatientControllerTest {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private PatientRepository patientRepository;
+
+    private final PatientDto patientDto = new PatientDto("Val", "Andrei", "0730000000", "val@gmail.com", 2L);
+
+    @Test
+    void testGetPatients() {
+        String endpoint = "/api/patients/infos";
+        when(patientRepository.findPage(0, 50)).thenReturn(Flux.just(patientDto));
+        webTestClient.get().uri(endpoint)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].firstName").isEqualTo("Val");
+
+        when(patientRepository.findPage(100, 50)).thenReturn(Flux.empty());
+        webTestClient.get().uri(endpoint + "?page=2")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        webTestClient.get().uri(endpoint + "?size=501")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testGetPatientsAsNdjson() {
+        when(patientRepository.findPage(0, 50)).thenReturn(Flux.just(patientDto, patientDto));
+        Flux<PatientDto> patients = webTestClient.get().uri("/api/patients/infos")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(PatientDto.class)
+                .getResponseBody();
+        StepVerifier.create(patients)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetPatient() {
+        String endpoint = "/api/patients/{id}";
+        when(patientRepository.findById(1L)).thenReturn(Mono.just(patientDto));
+        webTestClient.get().uri(endpoint, 1L)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"");
+        webTestClient.get().uri(endpoint, 1L)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2\"")
+                .exchange()
+                .expectStatus().isNotModified();
+
+        when(patientRepository.findById(2L)).thenReturn(Mono.empty());
+        webTestClient.get().uri(endpoint, 2L)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testExportPatients() {
+        when(patientRepository.findAll()).thenReturn(Flux.just(patientDto, patientDto, patientDto));
+        webTestClient.get().uri("/api/patients/export")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .value(body -> assertEquals(3, body.lines().count()));
+    }
+
+    @Test
+    void testGetPatientAppointmentsWithDoctors() {
+        String endpoint = "/api/patients/{id}/appointments";
+        when(patientRepository.findDoctorsByPatientId(1L)).thenReturn(Flux.just(new DoctorDto("Gelu Andrei", 10000)));
+        webTestClient.get().uri(endpoint, 1L)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].name").isEqualTo("Gelu Andrei");
+
+        when(patientRepository.findDoctorsByPatientId(2L)).thenReturn(Flux.empty());
+        when(patientRepository.existsById(2L)).thenReturn(Mono.just(true));
+        webTestClient.get().uri(endpoint, 2L)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        when(patientRepository.findDoctorsByPatientId(3L)).thenReturn(Flux.empty());
+        when(patientRepository.existsById(3L)).thenReturn(Mono.just(false));
+        webTestClient.get().uri(endpoint, 3L)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.medrest.reactive.repository;
+
+import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.dto.PrescriptionDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataR2dbcTest
+@Import(PatientRepository.class)
+@ActiveProfiles("test")
+class PatientRepositoryTest {
+    @Autowired
+    private DatabaseClient databaseClient;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @BeforeEach
+    public void setup() {
+        List.of("delete from patients_doctors",
+                "delete from patients_prescriptions",
+                "delete from patients",
+                "delete from doctors",
+                "delete from prescriptions",
+                "insert into patients (patient_id, first_name, last_name, phone_number, email_address, version) " +
+                        "values (1, 'Val', 'Andrei', '0730000000', 'val@gmail.com', 3)",
+                "insert into patients (patient_id, first_name, last_name, phone_number, email_address) " +
+                        "values (2, 'Ion', 'Popa', '0750000000', 'ion@gmail.com')",
+                "insert into patients (patient_id, first_name, last_name, phone_number, email_address) " +
+                        "values (3, 'Dan', 'Dinu', '0760000000', 'dan@gmail.com')",
+                "insert into doctors (id, name, salary) values (1, 'Gelu Andrei', 10000)",
+                "insert into prescriptions (prescription_id, medicament_name, price, amount_to_take) values (1, 'Augmentin', 35, 1)",
+                "insert into patients_doctors (patient_id, doctor_id) values (1, 1)",
+                "insert into patients_prescriptions (patient_id, prescription_id) values (1, 1)")
+                .forEach(sql -> databaseClient.sql(sql).then().block());
+    }
+
+    @Test
+    @DisplayName("A page holds the patients after the offset in id order")
+    void findPage() {
+        StepVerifier.create(patientRepository.findPage(1, 2).map(PatientDto::getFirstName))
+                .expectNext("Ion", "Dan")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("A patient is read with its version and a missing one is empty")
+    void findById() {
+        StepVerifier.create(patientRepository.findById(1L))
+                .assertNext(patientDto -> {
+                    assertEquals("Andrei", patientDto.getLastName());
+                    assertEquals("val@gmail.com", patientDto.getEmailAddress());
+                    assertEquals(3L, patientDto.getVersion());
+                })
+                .verifyComplete();
+        StepVerifier.create(patientRepository.findById(-1L))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("The doctors and prescriptions of a patient are read through the link tables")
+    void findAssociations() {
+        StepVerifier.create(patientRepository.findDoctorsByPatientId(1L).map(DoctorDto::getName))
+                .expectNext("Gelu Andrei")
+                .verifyComplete();
+        StepVerifier.create(patientRepository.findPrescriptionsByPatientId(1L).map(PrescriptionDto::getMedicamentName))
+                .expectNext("Augmentin")
+                .verifyComplete();
+        StepVerifier.create(patientRepository.findPrescriptionsByPatientId(2L))
+                .verifyComplete();
+        StepVerifier.create(patientRepository.existsById(2L))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(patientRepository.existsById(-1L))
+                .expectNext(false)
+                .verifyComplete();
+    }
+}
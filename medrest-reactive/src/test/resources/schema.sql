@@ -0,0 +1,39 @@
+-- the tables read by this module, as the servlet application's migrations leave them
+CREATE TABLE patients (
+    patient_id BIGINT NOT NULL AUTO_INCREMENT,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    phone_number VARCHAR(255) NOT NULL,
+    email_address VARCHAR(255),
+    version BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (patient_id)
+);
+
+CREATE TABLE doctors (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    salary INT,
+    version BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE prescriptions (
+    prescription_id BIGINT NOT NULL AUTO_INCREMENT,
+    medicament_name VARCHAR(255) NOT NULL,
+    price INT,
+    amount_to_take INT NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (prescription_id)
+);
+
+CREATE TABLE patients_doctors (
+    patient_id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    PRIMARY KEY (patient_id, doctor_id)
+);
+
+CREATE TABLE patients_prescriptions (
+    patient_id BIGINT NOT NULL,
+    prescription_id BIGINT NOT NULL,
+    PRIMARY KEY (patient_id, prescription_id)
+);
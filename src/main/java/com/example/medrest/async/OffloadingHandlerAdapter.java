@@ -0,0 +1,137 @@
+package com.example.medrest.async;
+
+import com.example.medrest.MedRestApplication;
+import com.example.medrest.exception.ServerBusyException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the controller methods of the application on a pool with one thread per database connection instead of on
+ * the container thread, which is released while the method waits on the database. The arguments are still resolved
+ * on the container thread; the method is then submitted as a {@link WebAsyncTask} and its return value, stored as the
+ * concurrent result, goes through the usual return value handlers on the async dispatch, so the controllers keep
+ * their signatures. At most as many calls as there are threads plus queue slots are running or waiting, a request
+ * beyond that is refused with a {@link ServerBusyException} before anything is submitted. The exports are left alone:
+ * they return their own {@link WebAsyncTask} and stream on the MVC async executor.
+ */
+public class OffloadingHandlerAdapter extends RequestMappingHandlerAdapter implements DisposableBean {
+    private static final String RESULT_ATTRIBUTE = OffloadingHandlerAdapter.class.getName() + ".RESULT";
+
+    private final ThreadPoolTaskExecutor executor;
+    private final Semaphore permits;
+    private final long timeout;
+
+    public OffloadingHandlerAdapter(int threads, int queueCapacity, Duration timeout, TaskDecorator taskDecorator) {
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(threads);
+        this.executor.setMaxPoolSize(threads);
+        // the permits already bound the calls waiting, a queue as large as all of them never rejects one
+        this.executor.setQueueCapacity(threads + queueCapacity);
+        this.executor.setThreadNamePrefix("jdbc-");
+        this.executor.setWaitForTasksToCompleteOnShutdown(true);
+        this.executor.setAwaitTerminationSeconds((int) timeout.toSeconds());
+        // carries what the request thread had bound, such as the request's StatementLog, over to the pool thread
+        if (taskDecorator != null) {
+            this.executor.setTaskDecorator(taskDecorator);
+        }
+        this.executor.initialize();
+        this.permits = new Semaphore(threads + queueCapacity);
+        this.timeout = timeout.toMillis();
+    }
+
+    @Override
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        if (isOffloaded(handlerMethod)) {
+            return new OffloadedHandlerMethod(handlerMethod);
+        }
+        return super.createInvocableHandlerMethod(handlerMethod);
+    }
+
+    @Override
+    protected ModelAndView invokeHandlerMethod(HttpServletRequest request,
+                                               HttpServletResponse response,
+                                               HandlerMethod handlerMethod) throws Exception {
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        if (asyncManager.hasConcurrentResult() && asyncManager.getConcurrentResult() instanceof Result) {
+            // hand the value of an offloaded call to its handler method instead of letting the adapter wrap it as a
+            // result of the declared return type, exceptions still take the usual path
+            request.setAttribute(RESULT_ATTRIBUTE, asyncManager.getConcurrentResult());
+            asyncManager.clearConcurrentResult();
+        }
+        return super.invokeHandlerMethod(request, response, handlerMethod);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static boolean isOffloaded(HandlerMethod handlerMethod) {
+        if (!handlerMethod.getBeanType().getPackageName().startsWith(MedRestApplication.class.getPackageName())) {
+            return false;
+        }
+        return !WebAsyncTask.class.isAssignableFrom(handlerMethod.getReturnType().getParameterType());
+    }
+
+    private class OffloadedHandlerMethod extends ServletInvocableHandlerMethod {
+        OffloadedHandlerMethod(HandlerMethod handlerMethod) {
+            super(handlerMethod);
+        }
+
+        @Override
+        public Object invokeForRequest(NativeWebRequest request,
+                                       ModelAndViewContainer mavContainer,
+                                       Object... providedArgs) throws Exception {
+            Object result = request.getAttribute(RESULT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (result != null) {
+                request.removeAttribute(RESULT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+                return ((Result) result).value;
+            }
+            Object[] args = getMethodArgumentValues(request, mavContainer, providedArgs);
+            if (!permits.tryAcquire()) {
+                throw new ServerBusyException("Too many requests are waiting for the database, try again later");
+            }
+            // released by the call, or on completion if the call never started because the request timed out
+            AtomicBoolean held = new AtomicBoolean(true);
+            Runnable release = () -> {
+                if (held.compareAndSet(true, false)) {
+                    permits.release();
+                }
+            };
+            WebAsyncTask<Result> task = new WebAsyncTask<>(timeout, executor, () -> {
+                try {
+                    return new Result(doInvoke(args));
+                } finally {
+                    release.run();
+                }
+            });
+            task.onCompletion(release);
+            return task;
+        }
+    }
+
+    private static final class Result {
+        private final Object value;
+
+        private Result(Object value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.medrest.configuration;
+
+import com.example.medrest.async.OffloadingHandlerAdapter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.time.Duration;
+
+/**
+ * Opt-in execution mode in which the controller methods wait on the database on a pool sized to the connection pool,
+ * so the number of requests served at once is bounded by the connections rather than by the container threads.
+ * Switched on with medrest.async.enabled=true.
+ */
+@Configuration
+@ConditionalOnProperty(name = "medrest.async.enabled", havingValue = "true")
+public class AsyncConfiguration {
+    @Bean
+    public WebMvcRegistrations offloadingRegistrations(
+            @Value("${medrest.async.threads:${spring.datasource.hikari.maximum-pool-size:10}}") int threads,
+            @Value("${medrest.async.queue-capacity:100}") int queueCapacity,
+            @Value("${medrest.async.timeout:30s}") Duration timeout,
+            ObjectProvider<TaskDecorator> taskDecorator) {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+                return new OffloadingHandlerAdapter(threads, queueCapacity, timeout, taskDecorator.getIfUnique());
+            }
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.medrest.configuration;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Caches of the mapped DTOs served by the single entity GET endpoints. The Caffeine caches themselves are set up by
+ * Spring Boot from the spring.cache.* properties; the caching advice runs before the transactional one, so a cache
+ * hit neither opens a transaction nor borrows a connection.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfiguration {
+    public static final String PATIENTS = "patients";
+    public static final String DOCTORS = "doctors";
+    public static final String PRESCRIPTIONS = "prescriptions";
+    public static final String SPECIALISATIONS = "specialisations";
+    public static final String LOCATIONS = "locations";
+    public static final String DEPARTMENTS = "departments";
+}
@@ -0,0 +1,11 @@
+package com.example.medrest.configuration;
+
+import com.example.medrest.repository.KeysetRepositoryImpl;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+@Configuration
+@EnableJpaRepositories(basePackages = "com.example.medrest.repository",
+        repositoryBaseClass = KeysetRepositoryImpl.class)
+public class JpaConfiguration {
+}
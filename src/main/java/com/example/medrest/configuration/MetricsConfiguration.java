@@ -0,0 +1,36 @@
+package com.example.medrest.configuration;
+
+import com.example.medrest.metrics.OperationTagsContributor;
+import com.example.medrest.metrics.QueryMetrics;
+import com.example.medrest.metrics.ServiceTimingPostProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Metrics on top of the ones Spring Boot publishes (http.server.requests, spring.data.repository.invocations,
+ * hikaricp.connections.*, hibernate.*): the endpoint's operationId on every request, a timer per service method and
+ * the statistics of the queries by entity and operation. They are scraped from /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfiguration {
+    @Bean
+    public static ServiceTimingPostProcessor serviceTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ServiceTimingPostProcessor(meterRegistry);
+    }
+
+    @Bean
+    public OperationTagsContributor operationTagsContributor() {
+        return new OperationTagsContributor();
+    }
+
+    @Bean
+    public MeterBinder queryMetrics(EntityManagerFactory entityManagerFactory) {
+        return new QueryMetrics(entityManagerFactory.unwrap(SessionFactory.class));
+    }
+}
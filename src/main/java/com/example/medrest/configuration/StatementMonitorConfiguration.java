@@ -0,0 +1,47 @@
+package com.example.medrest.configuration;
+
+import com.example.medrest.metrics.StatementLog;
+import com.example.medrest.metrics.StatementMonitorFilter;
+import com.example.medrest.metrics.StatementRecording;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Counts and times the SQL statements of every request at the JDBC level, so the statements Hibernate, the
+ * JdbcTemplate and the native queries send are all seen, and reports the requests over medrest.sql-monitor.max-*.
+ * The task decorator carries a request's log over to the executors its work is handed to, the offloading pool and
+ * the MVC async executor.
+ */
+@Configuration
+@ConditionalOnProperty(name = "medrest.sql-monitor.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementMonitorConfiguration {
+    @Bean
+    public static BeanPostProcessor statementRecordingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource ? StatementRecording.wrap((DataSource) bean) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public StatementMonitorFilter statementMonitorFilter(
+            @Value("${medrest.sql-monitor.max-statements:10}") int maxStatements,
+            @Value("${medrest.sql-monitor.max-time:200ms}") Duration maxTime,
+            @Value("${medrest.sql-monitor.response-headers:false}") boolean responseHeaders) {
+        return new StatementMonitorFilter(maxStatements, maxTime, responseHeaders);
+    }
+
+    @Bean
+    public TaskDecorator statementLogPropagation() {
+        return StatementLog::propagate;
+    }
+}
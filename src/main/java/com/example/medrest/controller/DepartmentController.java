@@ -1,10 +1,12 @@
 package com.example.medrest.controller;
 
 import com.example.medrest.dto.DepartmentDto;
+import com.example.medrest.etag.ResourceType;
+import com.example.medrest.etag.VersionTags;
 import com.example.medrest.exception.CanNotDeleteException;
-import com.example.medrest.mapper.DepartmentMapper;
 import com.example.medrest.model.Department;
 import com.example.medrest.model.Location;
+import com.example.medrest.response.SerializedResponses;
 import com.example.medrest.service.DepartmentService;
 import com.example.medrest.service.DoctorService;
 import com.example.medrest.service.LocationService;
@@ -15,14 +17,14 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.net.URI;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("api/departments")
@@ -30,13 +32,16 @@ public class DepartmentController {
     private final DepartmentService departmentService;
     private final LocationService locationService;
     private final DoctorService doctorService;
+    private final SerializedResponses serializedResponses;
 
     public DepartmentController(@Autowired DepartmentService departmentService,
                                 @Autowired LocationService locationService,
-                                @Autowired DoctorService doctorService) {
+                                @Autowired DoctorService doctorService,
+                                @Autowired SerializedResponses serializedResponses) {
         this.departmentService = departmentService;
         this.locationService = locationService;
         this.doctorService = doctorService;
+        this.serializedResponses = serializedResponses;
     }
 
     @Operation(summary = "Get the names of all the departments",
@@ -47,12 +52,13 @@ public class DepartmentController {
                 content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                         array = @ArraySchema(schema = @Schema(implementation = DepartmentDto.class)))}
             ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "No departments in the database")
     })
     @GetMapping("/names")
-    public ResponseEntity<List<DepartmentDto>> getAllDepartmentNames() {
-        List<DepartmentDto> departmentDtoList = departmentService.getAllDepartments().stream().map(DepartmentMapper::departmentToDepartmentDto).collect(Collectors.toList());
-        return ResponseEntity.ok(departmentDtoList);
+    public ResponseEntity<byte[]> getAllDepartmentNames(WebRequest request) {
+        return serializedResponses.respond(ResourceType.DEPARTMENTS, request,
+                () -> ResponseEntity.ok(departmentService.getAllDepartmentDtos()));
     }
 
     @Operation(summary = "Get department by id",
@@ -62,12 +68,17 @@ public class DepartmentController {
             @ApiResponse(responseCode = "200", description = "Found department",
                 content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                     schema = @Schema(implementation = DepartmentDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Department not found")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<DepartmentDto> getDepartmentById(@PathVariable("id") Long id) {
-        Department department = departmentService.getDepartment(id);
-        return ResponseEntity.ok(DepartmentMapper.departmentToDepartmentDto(department));
+    public ResponseEntity<DepartmentDto> getDepartmentById(@PathVariable("id") Long id, WebRequest request) {
+        DepartmentDto departmentDto = departmentService.getDepartmentDto(id);
+        String eTag = VersionTags.eTag(departmentDto.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().headers(VersionTags.headers(eTag)).body(departmentDto);
     }
 
     @Operation(summary = "Create a new department",
@@ -93,11 +104,13 @@ public class DepartmentController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Department was updated"),
             @ApiResponse(responseCode = "404", description = "Department not found"),
+            @ApiResponse(responseCode = "412", description = "The If-Match header does not match the current version of the department"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> changeDepartment(@PathVariable Long id, @RequestBody @Valid Department departmentEntity) {
-        Boolean isOperationSuccessful = departmentService.updateDepartment(id, departmentEntity);
+    public ResponseEntity<Void> changeDepartment(@PathVariable Long id, @RequestBody @Valid Department departmentEntity,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Boolean isOperationSuccessful = departmentService.updateDepartment(id, departmentEntity, VersionTags.expectedVersion(ifMatch));
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
@@ -111,11 +124,14 @@ public class DepartmentController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Department was patched"),
             @ApiResponse(responseCode = "404", description = "Department not found"),
+            @ApiResponse(responseCode = "409", description = "The department kept being modified concurrently"),
+            @ApiResponse(responseCode = "412", description = "The If-Match header does not match the current version of the department"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PatchMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> patchDepartment(@PathVariable("id") Long id, @RequestBody Department departmentEntity) {
-        Boolean isOperationSuccessful = departmentService.patchDepartment(id, departmentEntity);
+    public ResponseEntity<Void> patchDepartment(@PathVariable("id") Long id, @RequestBody Department departmentEntity,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Boolean isOperationSuccessful = departmentService.patchDepartment(id, departmentEntity, VersionTags.expectedVersion(ifMatch));
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
@@ -153,14 +169,15 @@ public class DepartmentController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Location for the department was set"),
             @ApiResponse(responseCode = "404", description = "Department or location not found"),
+            @ApiResponse(responseCode = "409", description = "The department kept being modified concurrently"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PatchMapping(path = "/{depId}/location/{locId}")
     public ResponseEntity<Void> setDepartmentLocation(@PathVariable("depId") Long departmentId, @PathVariable("locId") Long locationId) {
         Location existingLocation = locationService.getLocationById(locationId);
-        Department existingDepartment = departmentService.getDepartment(departmentId);
-        existingDepartment.setLocation(existingLocation);
-        Boolean isOperationSuccessful = departmentService.patchDepartment(departmentId, existingDepartment);
+        Department departmentPatch = new Department();
+        departmentPatch.setLocation(existingLocation);
+        Boolean isOperationSuccessful = departmentService.patchDepartment(departmentId, departmentPatch, null);
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
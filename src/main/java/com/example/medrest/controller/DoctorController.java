@@ -1,30 +1,44 @@
 package com.example.medrest.controller;
 
 import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
+import com.example.medrest.etag.VersionTags;
+import com.example.medrest.export.NdjsonWriter;
+import com.example.medrest.filter.Filters;
 import com.example.medrest.mapper.DoctorMapper;
 import com.example.medrest.model.Department;
 import com.example.medrest.model.Doctor;
 import com.example.medrest.model.Location;
 import com.example.medrest.model.Specialisation;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.pagination.Pagination;
+import com.example.medrest.projection.Fields;
 import com.example.medrest.service.DepartmentService;
 import com.example.medrest.service.DoctorService;
 import com.example.medrest.service.PatientService;
 import com.example.medrest.service.SpecialisationService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("api/doctors")
@@ -33,15 +47,21 @@ public class DoctorController {
     private final DepartmentService departmentService;
     private final SpecialisationService specialisationService;
     private final PatientService patientService;
+    private final NdjsonWriter ndjsonWriter;
+    private final ChangeCounters changeCounters;
 
     public DoctorController(@Autowired DoctorService doctorService,
                             @Autowired DepartmentService departmentService,
                             @Autowired SpecialisationService specialisationService,
-                            @Autowired PatientService patientService) {
+                            @Autowired PatientService patientService,
+                            @Autowired NdjsonWriter ndjsonWriter,
+                            @Autowired ChangeCounters changeCounters) {
         this.doctorService = doctorService;
         this.departmentService = departmentService;
         this.specialisationService = specialisationService;
         this.patientService = patientService;
+        this.ndjsonWriter = ndjsonWriter;
+        this.changeCounters = changeCounters;
     }
 
     @Operation(summary = "Get information about all the doctors",
@@ -52,16 +72,43 @@ public class DoctorController {
                     content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                             array = @ArraySchema(schema = @Schema(implementation = DoctorDto.class)))}
             ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid paging, sorting, fields or filter parameters"),
             @ApiResponse(responseCode = "404", description = "No doctors are stored in the database"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @GetMapping(value = "/infos", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<DoctorDto>> getDoctors() {
-        List<Doctor> doctorList = doctorService.getAllDoctors();
-        return ResponseEntity.ok(doctorList
-                .stream()
-                .map(DoctorMapper::doctorToDoctorDto)
-                .collect(Collectors.toList()));
+    public ResponseEntity<List<?>> getDoctors(@RequestParam(value = "page", required = false) Integer page,
+                                              @RequestParam(value = "size", defaultValue = Pagination.DEFAULT_PAGE_SIZE) int size,
+                                              @RequestParam(value = "sort", required = false) String sort,
+                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "fields", required = false) String fields,
+                                              @Parameter(hidden = true) @RequestParam MultiValueMap<String, String> parameters,
+                                              WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, DoctorMapper.DTO_PROPERTIES);
+        // a filtered listing is read with a criteria query, as maps of the selected or of all the properties
+        boolean projected = selectedFields != null || Filters.present(parameters);
+        List<String> properties = selectedFields != null ? selectedFields : DoctorMapper.DTO_PROPERTIES;
+        String eTag = changeCounters.eTag(ResourceType.DOCTORS);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        if (page != null) {
+            Slice<?> doctorPage = projected
+                    ? doctorService.getDoctorsPage(page, size, sort, properties, parameters)
+                    : doctorService.getDoctorsPage(page, size, sort);
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .headers(Pagination.nextPageHeaders(doctorPage))
+                    .body(doctorPage.getContent());
+        }
+        KeysetSlice<?> doctorSlice = projected
+                ? doctorService.getDoctorsByCursor(cursor, size, sort, properties, parameters)
+                : doctorService.getDoctorsByCursor(cursor, size, sort);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .headers(Pagination.nextCursorHeaders(doctorSlice))
+                .body(doctorSlice.getContent());
     }
 
     @Operation(summary = "Get doctor using an id",
@@ -71,13 +118,41 @@ public class DoctorController {
             @ApiResponse(responseCode = "200", description = "Doctor found",
                     content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                             schema = @Schema(implementation = DoctorDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "doctor not found"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<DoctorDto> getDoctor(@PathVariable("id") Long id) {
-        DoctorDto doctorDto = DoctorMapper.doctorToDoctorDto(doctorService.getDoctorById(id));
-        return ResponseEntity.ok(doctorDto);
+    public ResponseEntity<Object> getDoctor(@PathVariable("id") Long id,
+                                            @RequestParam(value = "fields", required = false) String fields,
+                                            WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, DoctorMapper.DTO_PROPERTIES);
+        DoctorDto doctorDto = doctorService.getDoctorDtoById(id);
+        String eTag = VersionTags.eTag(doctorDto.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().headers(VersionTags.headers(eTag)).body(selectedFields == null ? doctorDto : Fields.select(doctorDto, selectedFields));
+    }
+
+    @Operation(summary = "Export all the doctors",
+            operationId = "exportDoctors",
+            description = "Streams every doctor stored in the database as newline delimited JSON, one doctor per line")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The doctors are being streamed",
+                    content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = DoctorDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "500", description = "Something went wrong")
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportDoctors(WebRequest request,
+                                            HttpServletResponse response) {
+        String eTag = changeCounters.eTag(ResourceType.DOCTORS);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ndjsonWriter.export(response, eTag, doctorService::exportDoctors);
     }
 
     @Operation(summary = "Create a new doctor",
@@ -103,11 +178,13 @@ public class DoctorController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "doctor was updated"),
             @ApiResponse(responseCode = "404", description = "doctor not found"),
+            @ApiResponse(responseCode = "412", description = "The If-Match header does not match the current version of the doctor"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> changeDoctor(@PathVariable Long id, @RequestBody Doctor doctor) {
-        Boolean isOperationSuccessful = doctorService.updateDoctor(id, doctor);
+    public ResponseEntity<Void> changeDoctor(@PathVariable Long id, @RequestBody @Valid Doctor doctor,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Boolean isOperationSuccessful = doctorService.updateDoctor(id, doctor, VersionTags.expectedVersion(ifMatch));
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
@@ -121,11 +198,14 @@ public class DoctorController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "doctor was patched"),
             @ApiResponse(responseCode = "404", description = "doctor not found"),
+            @ApiResponse(responseCode = "409", description = "The doctor kept being modified concurrently"),
+            @ApiResponse(responseCode = "412", description = "The If-Match header does not match the current version of the doctor"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PatchMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> patchDoctor(@PathVariable("id") Long id, @RequestBody Doctor doctor) {
-        Boolean isOperationSuccessful = doctorService.patchDoctor(id, doctor);
+    public ResponseEntity<Void> patchDoctor(@PathVariable("id") Long id, @RequestBody Doctor doctor,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Boolean isOperationSuccessful = doctorService.patchDoctor(id, doctor, VersionTags.expectedVersion(ifMatch));
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
@@ -158,14 +238,16 @@ public class DoctorController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "specialisation for the doctor was set"),
             @ApiResponse(responseCode = "404", description = "doctor or specialisation not found"),
+            @ApiResponse(responseCode = "409", description = "The doctor kept being modified concurrently"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PatchMapping(path = "/{docId}/specialisation/{specId}")
     public ResponseEntity<Void> setDoctorSpecialisation(@PathVariable("docId") Long doctorId, @PathVariable("specId") Long specialisationId) {
-        Doctor existingDoctor = doctorService.getDoctorById(doctorId);
         Specialisation existingSpecialisation = specialisationService.getSpecialisationById(specialisationId);
-        existingDoctor.setSpecialization(existingSpecialisation);
-        Boolean isOperationSuccessful = doctorService.patchDoctor(doctorId, existingDoctor);
+        // only the association goes into the patch, so it is applied to a fresh read of the doctor on every attempt
+        Doctor doctorPatch = new Doctor();
+        doctorPatch.setSpecialization(existingSpecialisation);
+        Boolean isOperationSuccessful = doctorService.patchDoctor(doctorId, doctorPatch, null);
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
@@ -180,15 +262,16 @@ public class DoctorController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "department for the doctor was assigned"),
             @ApiResponse(responseCode = "404", description = "doctor or department not found"),
+            @ApiResponse(responseCode = "409", description = "The doctor kept being modified concurrently"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PatchMapping(path = "/{docId}/department/{depId}")
     public ResponseEntity<Void> assignDoctorDepartment(@PathVariable("docId") Long doctorId,
                                                        @PathVariable("depId") Long departmentId) {
-        Doctor existingDoctor = doctorService.getDoctorById(doctorId);
         Department existingDepartment = departmentService.getDepartment(departmentId);
-        existingDoctor.setDepartment(existingDepartment);
-        Boolean isOperationSuccessful = doctorService.patchDoctor(doctorId, existingDoctor);
+        Doctor doctorPatch = new Doctor();
+        doctorPatch.setDepartment(existingDepartment);
+        Boolean isOperationSuccessful = doctorService.patchDoctor(doctorId, doctorPatch, null);
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
@@ -1,37 +1,61 @@
 package com.example.medrest.controller;
 
 import com.example.medrest.dto.LocationDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
+import com.example.medrest.etag.VersionTags;
 import com.example.medrest.exception.CanNotDeleteException;
+import com.example.medrest.export.NdjsonWriter;
+import com.example.medrest.filter.Filters;
 import com.example.medrest.mapper.LocationMapper;
 import com.example.medrest.model.Location;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.pagination.Pagination;
+import com.example.medrest.projection.Fields;
+import com.example.medrest.response.SerializedResponses;
 import com.example.medrest.service.DepartmentService;
 import com.example.medrest.service.LocationService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("api/locations")
 public class LocationController {
     private final LocationService locationService;
     private final DepartmentService departmentService;
+    private final NdjsonWriter ndjsonWriter;
+    private final ChangeCounters changeCounters;
+    private final SerializedResponses serializedResponses;
 
     public LocationController(@Autowired LocationService locationService,
-                              @Autowired DepartmentService departmentService) {
+                              @Autowired DepartmentService departmentService,
+                              @Autowired NdjsonWriter ndjsonWriter,
+                              @Autowired ChangeCounters changeCounters,
+                              @Autowired SerializedResponses serializedResponses) {
         this.locationService = locationService;
         this.departmentService = departmentService;
+        this.ndjsonWriter = ndjsonWriter;
+        this.changeCounters = changeCounters;
+        this.serializedResponses = serializedResponses;
     }
 
     @Operation(summary = "Get information about all the locations",
@@ -42,16 +66,51 @@ public class LocationController {
                     content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                             array = @ArraySchema(schema = @Schema(implementation = LocationDto.class)))}
             ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid paging, sorting, fields or filter parameters"),
             @ApiResponse(responseCode = "404", description = "No locations are stored in the database"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @GetMapping(value = "/infos", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<LocationDto>> getLocations() {
-        List<Location> locationList = locationService.getAllLocations();
-        return ResponseEntity.ok(locationList
-                .stream()
-                .map(LocationMapper::locationToLocationDto)
-                .collect(Collectors.toList()));
+    public ResponseEntity<?> getLocations(@RequestParam(value = "page", required = false) Integer page,
+                                          @RequestParam(value = "size", defaultValue = Pagination.DEFAULT_PAGE_SIZE) int size,
+                                          @RequestParam(value = "sort", required = false) String sort,
+                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "fields", required = false) String fields,
+                                          @Parameter(hidden = true) @RequestParam MultiValueMap<String, String> parameters,
+                                          WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, LocationMapper.DTO_PROPERTIES);
+        // a filtered listing is read with a criteria query, as maps of the selected or of all the properties
+        boolean projected = selectedFields != null || Filters.present(parameters);
+        List<String> properties = selectedFields != null ? selectedFields : LocationMapper.DTO_PROPERTIES;
+        // the default listing of this small table is answered from its stored bytes until the next write, and
+        // checked against the tag of the encoding it is sent in
+        if (parameters.isEmpty()) {
+            return serializedResponses.respond(ResourceType.LOCATIONS, request, () -> {
+                KeysetSlice<LocationDto> locations = locationService.getLocationsByCursor(null, size, null);
+                return ResponseEntity.ok().headers(Pagination.nextCursorHeaders(locations)).body(locations.getContent());
+            });
+        }
+        String eTag = changeCounters.eTag(ResourceType.LOCATIONS);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        if (page != null) {
+            Slice<?> locationPage = projected
+                    ? locationService.getLocationsPage(page, size, sort, properties, parameters)
+                    : locationService.getLocationsPage(page, size, sort);
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .headers(Pagination.nextPageHeaders(locationPage))
+                    .body(locationPage.getContent());
+        }
+        KeysetSlice<?> locationSlice = projected
+                ? locationService.getLocationsByCursor(cursor, size, sort, properties, parameters)
+                : locationService.getLocationsByCursor(cursor, size, sort);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .headers(Pagination.nextCursorHeaders(locationSlice))
+                .body(locationSlice.getContent());
     }
 
     @Operation(summary = "Get location using an id",
@@ -61,13 +120,41 @@ public class LocationController {
             @ApiResponse(responseCode = "200", description = "Location found",
                     content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                         schema = @Schema(implementation = LocationDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Location not found"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<LocationDto> getLocation(@PathVariable("id") Long id) {
-        LocationDto locationDto = LocationMapper.locationToLocationDto(locationService.getLocationById(id));
-        return ResponseEntity.ok(locationDto);
+    public ResponseEntity<Object> getLocation(@PathVariable("id") Long id,
+                                              @RequestParam(value = "fields", required = false) String fields,
+                                              WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, LocationMapper.DTO_PROPERTIES);
+        LocationDto locationDto = locationService.getLocationDtoById(id);
+        String eTag = VersionTags.eTag(locationDto.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().headers(VersionTags.headers(eTag)).body(selectedFields == null ? locationDto : Fields.select(locationDto, selectedFields));
+    }
+
+    @Operation(summary = "Export all the locations",
+            operationId = "exportLocations",
+            description = "Streams every location stored in the database as newline delimited JSON, one location per line")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The locations are being streamed",
+                    content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = LocationDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "500", description = "Something went wrong")
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportLocations(WebRequest request,
+                                              HttpServletResponse response) {
+        String eTag = changeCounters.eTag(ResourceType.LOCATIONS);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ndjsonWriter.export(response, eTag, locationService::exportLocations);
     }
 
     @Operation(summary = "Create a new location",
@@ -92,11 +179,13 @@ public class LocationController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Location was updated"),
             @ApiResponse(responseCode = "404", description = "Location not found"),
+            @ApiResponse(responseCode = "412", description = "The If-Match header does not match the current version of the location"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> changeLocation(@PathVariable Long id, @Valid @RequestBody Location locationEntity) {
-        Boolean isOperationSuccessful = locationService.updateLocation(id, locationEntity);
+    public ResponseEntity<Void> changeLocation(@PathVariable Long id, @Valid @RequestBody Location locationEntity,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Boolean isOperationSuccessful = locationService.updateLocation(id, locationEntity, VersionTags.expectedVersion(ifMatch));
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
@@ -110,11 +199,14 @@ public class LocationController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Location was patched"),
             @ApiResponse(responseCode = "404", description = "Location not found"),
+            @ApiResponse(responseCode = "409", description = "The location kept being modified concurrently"),
+            @ApiResponse(responseCode = "412", description = "The If-Match header does not match the current version of the location"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PatchMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> patchLocation(@PathVariable("id") Long id, @Valid @RequestBody Location locationEntity) {
-        Boolean isOperationSuccessful = locationService.patchLocation(id, locationEntity);
+    public ResponseEntity<Void> patchLocation(@PathVariable("id") Long id, @Valid @RequestBody Location locationEntity,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Boolean isOperationSuccessful = locationService.patchLocation(id, locationEntity, VersionTags.expectedVersion(ifMatch));
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
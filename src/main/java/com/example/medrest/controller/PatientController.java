@@ -1,42 +1,82 @@
 package com.example.medrest.controller;
 
 import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.dto.ImportReportDto;
 import com.example.medrest.dto.PatientDto;
+import com.example.medrest.dto.PatientSearchDto;
 import com.example.medrest.dto.PrescriptionDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.MediaTypeTags;
+import com.example.medrest.etag.ResourceType;
+import com.example.medrest.etag.VersionTags;
+import com.example.medrest.export.NdjsonWriter;
+import com.example.medrest.importer.CsvRowReader;
+import com.example.medrest.importer.JsonRowReader;
+import com.example.medrest.filter.Filters;
 import com.example.medrest.mapper.DoctorMapper;
 import com.example.medrest.mapper.PatientMapper;
 import com.example.medrest.mapper.PrescriptionMapper;
-import com.example.medrest.model.Doctor;
 import com.example.medrest.model.Patient;
-import com.example.medrest.service.DoctorService;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.pagination.Pagination;
+import com.example.medrest.projection.Fields;
+import com.example.medrest.service.AppointmentService;
+import com.example.medrest.service.PatientImportService;
 import com.example.medrest.service.PatientService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
-import javax.transaction.Transactional;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+
+import static com.example.medrest.configuration.MessageConverterConfiguration.APPLICATION_SMILE_VALUE;
+import static com.example.medrest.protobuf.ProtobufLists.APPLICATION_PROTOBUF_VALUE;
 
 @RestController
 @RequestMapping("api/patients")
 public class PatientController {
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final PatientService patientService;
-    private final DoctorService doctorService;
+    private final AppointmentService appointmentService;
+    private final NdjsonWriter ndjsonWriter;
+    private final PatientImportService patientImportService;
+    private final ObjectMapper objectMapper;
+    private final ChangeCounters changeCounters;
 
     public PatientController(@Autowired PatientService patientService,
-                             @Autowired DoctorService doctorService) {
+                             @Autowired AppointmentService appointmentService,
+                             @Autowired NdjsonWriter ndjsonWriter,
+                             @Autowired PatientImportService patientImportService,
+                             @Autowired ObjectMapper objectMapper,
+                             @Autowired ChangeCounters changeCounters) {
         this.patientService = patientService;
-        this.doctorService = doctorService;
+        this.appointmentService = appointmentService;
+        this.ndjsonWriter = ndjsonWriter;
+        this.patientImportService = patientImportService;
+        this.objectMapper = objectMapper;
+        this.changeCounters = changeCounters;
     }
 
     @Operation(summary = "Get information about all the patients",
@@ -47,16 +87,73 @@ public class PatientController {
                     content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                             array = @ArraySchema(schema = @Schema(implementation = PatientDto.class)))}
             ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid paging, sorting, fields or filter parameters"),
             @ApiResponse(responseCode = "404", description = "No patient entities are stored in the database"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
-    @GetMapping(value = "/infos", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<PatientDto>> getPatients() {
-        List<Patient> patientList = patientService.getAllPatients();
-        return ResponseEntity.ok(patientList
-                .stream()
-                .map(PatientMapper::patientToPatientDto)
-                .collect(Collectors.toList()));
+    @GetMapping(value = "/infos", produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public ResponseEntity<List<?>> getPatients(@RequestParam(value = "page", required = false) Integer page,
+                                               @RequestParam(value = "size", defaultValue = Pagination.DEFAULT_PAGE_SIZE) int size,
+                                               @RequestParam(value = "sort", required = false) String sort,
+                                               @RequestParam(value = "cursor", required = false) String cursor,
+                                               @RequestParam(value = "fields", required = false) String fields,
+                                               @Parameter(hidden = true) @RequestParam MultiValueMap<String, String> parameters,
+                                               WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, PatientMapper.DTO_PROPERTIES);
+        // a filtered listing is read with a criteria query, as maps of the selected or of all the properties
+        boolean projected = selectedFields != null || Filters.present(parameters);
+        List<String> properties = selectedFields != null ? selectedFields : PatientMapper.DTO_PROPERTIES;
+        String eTag = MediaTypeTags.eTag(changeCounters.eTag(ResourceType.PATIENTS), request);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        if (page != null) {
+            Slice<?> patientPage = projected
+                    ? patientService.getPatientsPage(page, size, sort, properties, parameters)
+                    : patientService.getPatientsPage(page, size, sort);
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .headers(Pagination.nextPageHeaders(patientPage))
+                    .body(patientPage.getContent());
+        }
+        KeysetSlice<?> patientSlice = projected
+                ? patientService.getPatientsByCursor(cursor, size, sort, properties, parameters)
+                : patientService.getPatientsByCursor(cursor, size, sort);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .headers(Pagination.nextCursorHeaders(patientSlice))
+                .body(patientSlice.getContent());
+    }
+
+    @Operation(summary = "Search patients",
+            operationId = "searchPatients",
+            description = "Finds the patients having, for every word of the query, a name word or an email address " +
+                    "starting with it, ignoring case and accents; a query of digits and phone punctuation finds the " +
+                    "patients whose phone number starts with its digits")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Patients were found",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = PatientSearchDto.class)))}
+            ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "The query is empty or the size or fields are invalid"),
+            @ApiResponse(responseCode = "404", description = "No patient matches the query"),
+            @ApiResponse(responseCode = "500", description = "Something went wrong")
+    })
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<?>> searchPatients(@RequestParam("q") String query,
+                                                  @RequestParam(value = "size", defaultValue = Pagination.DEFAULT_PAGE_SIZE) int size,
+                                                  @RequestParam(value = "fields", required = false) String fields,
+                                                  WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, PatientMapper.SEARCH_DTO_PROPERTIES);
+        String eTag = changeCounters.eTag(ResourceType.PATIENTS);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(Fields.selectEach(patientService.searchPatients(query, size), selectedFields));
     }
 
     @Operation(summary = "Get patient using an id",
@@ -66,13 +163,41 @@ public class PatientController {
             @ApiResponse(responseCode = "200", description = "The patient was found",
                     content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                             schema = @Schema(implementation = PatientDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "The patient with the given id was not found"),
             @ApiResponse(responseCode = "500", description = "Something went wrong on the server side")
     })
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<PatientDto> getPatient(@PathVariable("id") Long id) {
-        PatientDto patientDto = PatientMapper.patientToPatientDto(patientService.getPatientById(id));
-        return ResponseEntity.ok(patientDto);
+    public ResponseEntity<Object> getPatient(@PathVariable("id") Long id,
+                                             @RequestParam(value = "fields", required = false) String fields,
+                                             WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, PatientMapper.DTO_PROPERTIES);
+        PatientDto patientDto = patientService.getPatientDtoById(id);
+        String eTag = VersionTags.eTag(patientDto.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().headers(VersionTags.headers(eTag)).body(selectedFields == null ? patientDto : Fields.select(patientDto, selectedFields));
+    }
+
+    @Operation(summary = "Export all the patients",
+            operationId = "exportPatients",
+            description = "Streams every patient stored in the database as newline delimited JSON, one patient per line")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The patients are being streamed",
+                    content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = PatientDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "500", description = "Something went wrong")
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportPatients(WebRequest request,
+                                             HttpServletResponse response) {
+        String eTag = changeCounters.eTag(ResourceType.PATIENTS);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ndjsonWriter.export(response, eTag, patientService::exportPatients);
     }
 
     @Operation(summary = "Create a new patient",
@@ -92,17 +217,55 @@ public class PatientController {
         return ResponseEntity.created(uri).build();
     }
 
+    @Operation(summary = "Import patients from a JSON array",
+            operationId = "importPatients",
+            description = "Creates every valid patient of the array; the body is read and written in batches, " +
+                    "the rows which could not be imported are listed in the report")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The import finished",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ImportReportDto.class))}),
+            @ApiResponse(responseCode = "400", description = "The body is not a JSON array"),
+            @ApiResponse(responseCode = "500", description = "Something went wrong")
+    })
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportReportDto> importPatients(InputStream body) {
+        JsonRowReader<PatientDto> rows = new JsonRowReader<>(objectMapper.readerFor(PatientDto.class), body);
+        return ResponseEntity.ok(patientImportService.importPatients(rows));
+    }
+
+    @Operation(summary = "Import patients from CSV",
+            operationId = "importPatientsFromCsv",
+            description = "Creates every valid patient of the CSV body, whose header must be " +
+                    "firstName,lastName,phoneNumber,emailAddress; the rows which could not be imported are listed in the report")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The import finished",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ImportReportDto.class))}),
+            @ApiResponse(responseCode = "400", description = "The CSV header is missing or wrong"),
+            @ApiResponse(responseCode = "500", description = "Something went wrong")
+    })
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportReportDto> importPatientsFromCsv(InputStream body) {
+        CsvRowReader<PatientDto> rows = new CsvRowReader<>(new InputStreamReader(body, StandardCharsets.UTF_8),
+                PatientMapper.DTO_PROPERTIES,
+                PatientMapper::csvRowToPatientDto);
+        return ResponseEntity.ok(patientImportService.importPatients(rows));
+    }
+
     @Operation(summary = "Update a patient",
             operationId = "changePatient",
             description = "Change the information about a patient by providing an id and new data")
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "patient was updated"),
             @ApiResponse(responseCode = "404", description = "patient not found"),
+            @ApiResponse(responseCode = "412", description = "The If-Match header does not match the current version of the patient"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> changePatient(@PathVariable Long id, @RequestBody Patient patient) {
-        Boolean isOperationSuccessful = patientService.updatePatient(id, patient);
+    public ResponseEntity<Void> changePatient(@PathVariable Long id, @RequestBody @Valid Patient patient,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Boolean isOperationSuccessful = patientService.updatePatient(id, patient, VersionTags.expectedVersion(ifMatch));
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
@@ -116,11 +279,14 @@ public class PatientController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "patient was patched"),
             @ApiResponse(responseCode = "404", description = "patient not found"),
+            @ApiResponse(responseCode = "409", description = "The patient kept being modified concurrently"),
+            @ApiResponse(responseCode = "412", description = "The If-Match header does not match the current version of the patient"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PatchMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> patchPatient(@PathVariable("id") Long id, @RequestBody Patient patient) {
-        Boolean isOperationSuccessful = patientService.patchPatient(id, patient);
+    public ResponseEntity<Void> patchPatient(@PathVariable("id") Long id, @RequestBody Patient patient,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Boolean isOperationSuccessful = patientService.patchPatient(id, patient, VersionTags.expectedVersion(ifMatch));
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
@@ -162,6 +328,23 @@ public class PatientController {
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Add several prescriptions to a patient at once",
+            operationId = "addPrescriptionsToPatient",
+            description = "Give the id of the patient and a JSON array with the ids of the prescriptions; " +
+                    "the prescriptions which the patient already has are left as they are")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Prescriptions were assigned to the patient"),
+            @ApiResponse(responseCode = "400", description = "No prescription ids were given"),
+            @ApiResponse(responseCode = "404", description = "Patient or one of the prescriptions not found"),
+            @ApiResponse(responseCode = "500", description = "Something went wrong")
+    })
+    @PostMapping(path = "/{patientId}/prescriptions", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> addPrescriptionsToPatient(@PathVariable("patientId") Long patientId,
+                                                          @RequestBody Set<Long> prescriptionIds) {
+        patientService.addPrescriptionsToPatient(prescriptionIds, patientId);
+        return ResponseEntity.noContent().build();
+    }
+
     @Operation(summary = "Get the prescriptions that are given to the patient with given id.",
             operationId = "getPrescriptionPatients",
             description = "By using a valid id you can get the information about its corresponding prescription")
@@ -171,19 +354,25 @@ public class PatientController {
                             array = @ArraySchema(schema = @Schema(implementation = PrescriptionDto.class)))}
             ),
             @ApiResponse(responseCode = "204", description = "Patient has no prescriptions"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid fields"),
             @ApiResponse(responseCode = "404", description = "Patient not found"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
-    @GetMapping(path = "/{id}/prescriptions", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<PrescriptionDto>> getPatientPrescriptions(@PathVariable("id") Long patientId) {
-        List<PrescriptionDto> patientPrescriptions = patientService.getPatientPrescriptionsList(patientId)
-                .stream()
-                .map(PrescriptionMapper::prescriptionToPrescriptionDto)
-                .collect(Collectors.toList());
+    @GetMapping(path = "/{id}/prescriptions", produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public ResponseEntity<List<?>> getPatientPrescriptions(@PathVariable("id") Long patientId,
+                                                           @RequestParam(value = "fields", required = false) String fields,
+                                                           WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, PrescriptionMapper.DTO_PROPERTIES);
+        String eTag = MediaTypeTags.eTag(changeCounters.eTag(ResourceType.PATIENTS, ResourceType.PRESCRIPTIONS), request);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        List<PrescriptionDto> patientPrescriptions = patientService.getPatientPrescriptionsList(patientId);
         if (patientPrescriptions.isEmpty()) {
             return ResponseEntity.noContent().build();
         } else {
-            return ResponseEntity.ok(patientPrescriptions);
+            return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).body(Fields.selectEach(patientPrescriptions, selectedFields));
         }
     }
 
@@ -214,15 +403,8 @@ public class PatientController {
     @PostMapping(path = "/{patientId}/doctors/{doctorId}")
     public ResponseEntity<Void> appointPatientToDoctor(@PathVariable("patientId") Long patientId,
                                                          @PathVariable("doctorId") Long doctorId) {
-        Patient existingPatient = patientService.getPatientById(patientId);
-        Doctor existingDoctor = doctorService.getDoctorById(doctorId);
-        existingPatient.addDoctor(existingDoctor);
-        Boolean isOperationSuccessful = patientService.patchPatient(patientId, existingPatient);
-        if (isOperationSuccessful) {
-            return ResponseEntity.noContent().build();
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        appointmentService.addAppointment(patientId, doctorId);
+        return ResponseEntity.noContent().build();
     }
 
     @Operation(summary = "Get the doctors that the patient has appointments with",
@@ -234,17 +416,25 @@ public class PatientController {
                             array = @ArraySchema(schema = @Schema(implementation = DoctorDto.class)))}
             ),
             @ApiResponse(responseCode = "204", description = "Patient has no doctor appointments"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid fields"),
             @ApiResponse(responseCode = "404", description = "Patient not found"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @GetMapping(path = "/{id}/appointments", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<DoctorDto>> getPatientAppointmentsWithDoctors(@PathVariable("id") Long patientId) {
-        Patient existingPatient = patientService.getPatientById(patientId);
-        if (existingPatient.getDoctors().isEmpty()) {
+    public ResponseEntity<List<?>> getPatientAppointmentsWithDoctors(@PathVariable("id") Long patientId,
+                                                                     @RequestParam(value = "fields", required = false) String fields,
+                                                                     WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, DoctorMapper.DTO_PROPERTIES);
+        String eTag = changeCounters.eTag(ResourceType.PATIENTS, ResourceType.DOCTORS);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        List<DoctorDto> patientDoctors = patientService.getPatientDoctorsList(patientId);
+        if (patientDoctors.isEmpty()) {
             return ResponseEntity.noContent().build();
         } else {
-            List<DoctorDto> doctorDtoList = existingPatient.getDoctors().stream().map(DoctorMapper::doctorToDoctorDto).collect(Collectors.toList());
-            return ResponseEntity.ok(doctorDtoList);
+            return ResponseEntity.ok().eTag(eTag).body(Fields.selectEach(patientDoctors, selectedFields));
         }
     }
 
@@ -256,20 +446,10 @@ public class PatientController {
             @ApiResponse(responseCode = "404", description = "Given patient or appointment not found"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
-    @Transactional
     @DeleteMapping(path = "/{patientId}/doctors/{doctorId}")
     public ResponseEntity<Void> removePatientAppointment(@PathVariable("patientId") Long patientId,
                                                           @PathVariable("doctorId") Long doctorId) {
-        Patient patient = patientService.getPatientById(patientId);
-        Doctor doctor = doctorService.getDoctorById(doctorId);
-        patient.removeDoctor(doctor);
-        doctor.removePatient(patient);
-        Boolean result = patientService.updatePatient(patientId, patient);
-        Boolean res = doctorService.updateDoctor(doctorId, doctor);
-        if (result) {
-            return ResponseEntity.noContent().build();
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        appointmentService.removeAppointment(patientId, doctorId);
+        return ResponseEntity.noContent().build();
     }
 }
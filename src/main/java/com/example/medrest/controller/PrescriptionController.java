@@ -2,38 +2,62 @@ package com.example.medrest.controller;
 
 import com.example.medrest.dto.PatientDto;
 import com.example.medrest.dto.PrescriptionDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.MediaTypeTags;
+import com.example.medrest.etag.ResourceType;
+import com.example.medrest.etag.VersionTags;
+import com.example.medrest.export.NdjsonWriter;
+import com.example.medrest.filter.Filters;
 import com.example.medrest.mapper.PatientMapper;
 import com.example.medrest.mapper.PrescriptionMapper;
 import com.example.medrest.model.Patient;
 import com.example.medrest.model.Prescription;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.pagination.Pagination;
+import com.example.medrest.projection.Fields;
 import com.example.medrest.service.PatientService;
 import com.example.medrest.service.PrescriptionService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
+
+import static com.example.medrest.configuration.MessageConverterConfiguration.APPLICATION_SMILE_VALUE;
+import static com.example.medrest.protobuf.ProtobufLists.APPLICATION_PROTOBUF_VALUE;
 
 @RestController
 @RequestMapping("api/prescriptions")
 public class PrescriptionController {
     private final PrescriptionService prescriptionService;
     private final PatientService patientService;
+    private final NdjsonWriter ndjsonWriter;
+    private final ChangeCounters changeCounters;
 
     public PrescriptionController(@Autowired PrescriptionService prescriptionService,
-                                  @Autowired PatientService patientService) {
+                                  @Autowired PatientService patientService,
+                                  @Autowired NdjsonWriter ndjsonWriter,
+                                  @Autowired ChangeCounters changeCounters) {
         this.prescriptionService = prescriptionService;
         this.patientService = patientService;
+        this.ndjsonWriter = ndjsonWriter;
+        this.changeCounters = changeCounters;
     }
 
     @Operation(summary = "Get information about all the prescriptions",
@@ -44,16 +68,45 @@ public class PrescriptionController {
                     content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                             array = @ArraySchema(schema = @Schema(implementation = PrescriptionDto.class)))}
             ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid paging, sorting, fields or filter parameters"),
             @ApiResponse(responseCode = "404", description = "No prescriptions are stored in the database"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
-    @GetMapping(value = "/infos", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<PrescriptionDto>> getPrescriptions() {
-        List<Prescription> prescriptionList = prescriptionService.getAllPrescriptions();
-        return ResponseEntity.ok(prescriptionList
-                .stream()
-                .map(PrescriptionMapper::prescriptionToPrescriptionDto)
-                .collect(Collectors.toList()));
+    @GetMapping(value = "/infos", produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public ResponseEntity<List<?>> getPrescriptions(@RequestParam(value = "page", required = false) Integer page,
+                                                    @RequestParam(value = "size", defaultValue = Pagination.DEFAULT_PAGE_SIZE) int size,
+                                                    @RequestParam(value = "sort", required = false) String sort,
+                                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                                    @RequestParam(value = "fields", required = false) String fields,
+                                                    @Parameter(hidden = true) @RequestParam MultiValueMap<String, String> parameters,
+                                                    WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, PrescriptionMapper.DTO_PROPERTIES);
+        // a filtered listing is read with a criteria query, as maps of the selected or of all the properties
+        boolean projected = selectedFields != null || Filters.present(parameters);
+        List<String> properties = selectedFields != null ? selectedFields : PrescriptionMapper.DTO_PROPERTIES;
+        String eTag = MediaTypeTags.eTag(changeCounters.eTag(ResourceType.PRESCRIPTIONS), request);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        if (page != null) {
+            Slice<?> prescriptionPage = projected
+                    ? prescriptionService.getPrescriptionsPage(page, size, sort, properties, parameters)
+                    : prescriptionService.getPrescriptionsPage(page, size, sort);
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .headers(Pagination.nextPageHeaders(prescriptionPage))
+                    .body(prescriptionPage.getContent());
+        }
+        KeysetSlice<?> prescriptionSlice = projected
+                ? prescriptionService.getPrescriptionsByCursor(cursor, size, sort, properties, parameters)
+                : prescriptionService.getPrescriptionsByCursor(cursor, size, sort);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .headers(Pagination.nextCursorHeaders(prescriptionSlice))
+                .body(prescriptionSlice.getContent());
     }
 
     @Operation(summary = "Get a prescription using an id",
@@ -63,13 +116,41 @@ public class PrescriptionController {
             @ApiResponse(responseCode = "200", description = "prescription found",
                     content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                             schema = @Schema(implementation = PrescriptionDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "prescription not found"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<PrescriptionDto> getPrescription(@PathVariable("id") Long id) {
-        PrescriptionDto prescriptionDto = PrescriptionMapper.prescriptionToPrescriptionDto(prescriptionService.getPrescriptionById(id));
-        return ResponseEntity.ok(prescriptionDto);
+    public ResponseEntity<Object> getPrescription(@PathVariable("id") Long id,
+                                                  @RequestParam(value = "fields", required = false) String fields,
+                                                  WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, PrescriptionMapper.DTO_PROPERTIES);
+        PrescriptionDto prescriptionDto = prescriptionService.getPrescriptionDtoById(id);
+        String eTag = VersionTags.eTag(prescriptionDto.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().headers(VersionTags.headers(eTag)).body(selectedFields == null ? prescriptionDto : Fields.select(prescriptionDto, selectedFields));
+    }
+
+    @Operation(summary = "Export all the prescriptions",
+            operationId = "exportPrescriptions",
+            description = "Streams every prescription stored in the database as newline delimited JSON, one prescription per line")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The prescriptions are being streamed",
+                    content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = PrescriptionDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "500", description = "Something went wrong")
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportPrescriptions(WebRequest request,
+                                                  HttpServletResponse response) {
+        String eTag = changeCounters.eTag(ResourceType.PRESCRIPTIONS);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ndjsonWriter.export(response, eTag, prescriptionService::exportPrescriptions);
     }
 
     @Operation(summary = "Create a new prescription",
@@ -95,11 +176,13 @@ public class PrescriptionController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "prescription was updated"),
             @ApiResponse(responseCode = "404", description = "prescription not found"),
+            @ApiResponse(responseCode = "412", description = "The If-Match header does not match the current version of the prescription"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> changePrescription(@PathVariable Long id, @RequestBody Prescription prescription) {
-        Boolean isOperationSuccessful = prescriptionService.updatePrescription(id, prescription);
+    public ResponseEntity<Void> changePrescription(@PathVariable Long id, @RequestBody @Valid Prescription prescription,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Boolean isOperationSuccessful = prescriptionService.updatePrescription(id, prescription, VersionTags.expectedVersion(ifMatch));
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
@@ -113,11 +196,14 @@ public class PrescriptionController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "prescription was patched"),
             @ApiResponse(responseCode = "404", description = "prescription not found"),
+            @ApiResponse(responseCode = "409", description = "The prescription kept being modified concurrently"),
+            @ApiResponse(responseCode = "412", description = "The If-Match header does not match the current version of the prescription"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PatchMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> patchPrescription(@PathVariable("id") Long id, @RequestBody Prescription prescription) {
-        Boolean isOperationSuccessful = prescriptionService.patchPrescription(id, prescription);
+    public ResponseEntity<Void> patchPrescription(@PathVariable("id") Long id, @RequestBody Prescription prescription,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Boolean isOperationSuccessful = prescriptionService.patchPrescription(id, prescription, VersionTags.expectedVersion(ifMatch));
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
@@ -0,0 +1,42 @@
+package com.example.medrest.controller;
+
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.dto.PrescriptionDto;
+import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.protobuf.ProtobufLists;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("api/protobuf")
+public class ProtobufSchemaController {
+    private static final Map<String, Class<?>> ELEMENT_TYPES = Map.of(
+            "patients", PatientDto.class,
+            "prescriptions", PrescriptionDto.class);
+
+    @Operation(summary = "Get the Protobuf schema of a listing",
+            operationId = "getProtobufSchema",
+            description = "The .proto definition of the messages the patients and prescriptions listings are sent as "
+                    + "when application/x-protobuf is accepted")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The schema was generated"),
+            @ApiResponse(responseCode = "404", description = "The listing has no Protobuf representation")
+    })
+    @GetMapping(value = "/{listing}.proto", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getProtobufSchema(@PathVariable("listing") String listing) {
+        Class<?> elementType = ELEMENT_TYPES.get(listing);
+        if (elementType == null) {
+            throw new NotFoundException("No Protobuf schema exists for '" + listing + "'!");
+        }
+        return ResponseEntity.ok(ProtobufLists.schema(elementType));
+    }
+}
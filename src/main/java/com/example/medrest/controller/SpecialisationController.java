@@ -1,37 +1,61 @@
 package com.example.medrest.controller;
 
 import com.example.medrest.dto.SpecialisationDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
+import com.example.medrest.etag.VersionTags;
 import com.example.medrest.exception.CanNotDeleteException;
+import com.example.medrest.export.NdjsonWriter;
+import com.example.medrest.filter.Filters;
 import com.example.medrest.mapper.SpecialisationMapper;
 import com.example.medrest.model.Specialisation;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.pagination.Pagination;
+import com.example.medrest.projection.Fields;
+import com.example.medrest.response.SerializedResponses;
 import com.example.medrest.service.DoctorService;
 import com.example.medrest.service.SpecialisationService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("api/specialisations")
 public class SpecialisationController {
     private final SpecialisationService specialisationService;
     private final DoctorService doctorService;
+    private final NdjsonWriter ndjsonWriter;
+    private final ChangeCounters changeCounters;
+    private final SerializedResponses serializedResponses;
 
     public SpecialisationController(@Autowired SpecialisationService specialisationService,
-                                    @Autowired DoctorService doctorService) {
+                                    @Autowired DoctorService doctorService,
+                                    @Autowired NdjsonWriter ndjsonWriter,
+                                    @Autowired ChangeCounters changeCounters,
+                                    @Autowired SerializedResponses serializedResponses) {
         this.specialisationService = specialisationService;
         this.doctorService = doctorService;
+        this.ndjsonWriter = ndjsonWriter;
+        this.changeCounters = changeCounters;
+        this.serializedResponses = serializedResponses;
     }
 
     @Operation(summary = "Get information about all the specialisations",
@@ -42,16 +66,51 @@ public class SpecialisationController {
                     content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                             array = @ArraySchema(schema = @Schema(implementation = SpecialisationDto.class)))}
             ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid paging, sorting, fields or filter parameters"),
             @ApiResponse(responseCode = "404", description = "No specialisations are stored in the database"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @GetMapping(value = "/infos", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<SpecialisationDto>> getSpecialisations() {
-        List<Specialisation> specialisationList = specialisationService.getSpecializations();
-        return ResponseEntity.ok(specialisationList
-                .stream()
-                .map(SpecialisationMapper::specialisationToSpecialisationDto)
-                .collect(Collectors.toList()));
+    public ResponseEntity<?> getSpecialisations(@RequestParam(value = "page", required = false) Integer page,
+                                                @RequestParam(value = "size", defaultValue = Pagination.DEFAULT_PAGE_SIZE) int size,
+                                                @RequestParam(value = "sort", required = false) String sort,
+                                                @RequestParam(value = "cursor", required = false) String cursor,
+                                                @RequestParam(value = "fields", required = false) String fields,
+                                                @Parameter(hidden = true) @RequestParam MultiValueMap<String, String> parameters,
+                                                WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, SpecialisationMapper.DTO_PROPERTIES);
+        // a filtered listing is read with a criteria query, as maps of the selected or of all the properties
+        boolean projected = selectedFields != null || Filters.present(parameters);
+        List<String> properties = selectedFields != null ? selectedFields : SpecialisationMapper.DTO_PROPERTIES;
+        // the default listing of this small table is answered from its stored bytes until the next write, and
+        // checked against the tag of the encoding it is sent in
+        if (parameters.isEmpty()) {
+            return serializedResponses.respond(ResourceType.SPECIALISATIONS, request, () -> {
+                KeysetSlice<SpecialisationDto> specialisations = specialisationService.getSpecialisationsByCursor(null, size, null);
+                return ResponseEntity.ok().headers(Pagination.nextCursorHeaders(specialisations)).body(specialisations.getContent());
+            });
+        }
+        String eTag = changeCounters.eTag(ResourceType.SPECIALISATIONS);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        if (page != null) {
+            Slice<?> specialisationPage = projected
+                    ? specialisationService.getSpecialisationsPage(page, size, sort, properties, parameters)
+                    : specialisationService.getSpecialisationsPage(page, size, sort);
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .headers(Pagination.nextPageHeaders(specialisationPage))
+                    .body(specialisationPage.getContent());
+        }
+        KeysetSlice<?> specialisationSlice = projected
+                ? specialisationService.getSpecialisationsByCursor(cursor, size, sort, properties, parameters)
+                : specialisationService.getSpecialisationsByCursor(cursor, size, sort);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .headers(Pagination.nextCursorHeaders(specialisationSlice))
+                .body(specialisationSlice.getContent());
     }
 
     @Operation(summary = "Get specialisation using an id",
@@ -61,13 +120,41 @@ public class SpecialisationController {
             @ApiResponse(responseCode = "200", description = "Specialisation found",
                     content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                             schema = @Schema(implementation = SpecialisationDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Specialisation not found"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<SpecialisationDto> getSpecialisation(@PathVariable("id") Long id) {
-        SpecialisationDto specialisationDto = SpecialisationMapper.specialisationToSpecialisationDto(specialisationService.getSpecialisationById(id));
-        return ResponseEntity.ok(specialisationDto);
+    public ResponseEntity<Object> getSpecialisation(@PathVariable("id") Long id,
+                                                    @RequestParam(value = "fields", required = false) String fields,
+                                                    WebRequest request) {
+        List<String> selectedFields = Fields.parse(fields, SpecialisationMapper.DTO_PROPERTIES);
+        SpecialisationDto specialisationDto = specialisationService.getSpecialisationDtoById(id);
+        String eTag = VersionTags.eTag(specialisationDto.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().headers(VersionTags.headers(eTag)).body(selectedFields == null ? specialisationDto : Fields.select(specialisationDto, selectedFields));
+    }
+
+    @Operation(summary = "Export all the specialisations",
+            operationId = "exportSpecialisations",
+            description = "Streams every specialisation stored in the database as newline delimited JSON, one specialisation per line")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The specialisations are being streamed",
+                    content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = SpecialisationDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "500", description = "Something went wrong")
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportSpecialisations(WebRequest request,
+                                                    HttpServletResponse response) {
+        String eTag = changeCounters.eTag(ResourceType.SPECIALISATIONS);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ndjsonWriter.export(response, eTag, specialisationService::exportSpecialisations);
     }
 
     @Operation(summary = "Create a new specialisation",
@@ -93,11 +180,13 @@ public class SpecialisationController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Specialisation was updated"),
             @ApiResponse(responseCode = "404", description = "Specialisation not found"),
+            @ApiResponse(responseCode = "412", description = "The If-Match header does not match the current version of the specialisation"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PutMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> changeSpecialisation(@PathVariable Long id, @RequestBody Specialisation specialisation) {
-        Boolean isOperationSuccessful = specialisationService.updateSpecialisation(id, specialisation);
+    public ResponseEntity<Void> changeSpecialisation(@PathVariable Long id, @RequestBody @Valid Specialisation specialisation,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Boolean isOperationSuccessful = specialisationService.updateSpecialisation(id, specialisation, VersionTags.expectedVersion(ifMatch));
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
@@ -111,11 +200,14 @@ public class SpecialisationController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Specialisation was patched"),
             @ApiResponse(responseCode = "404", description = "Specialisation not found"),
+            @ApiResponse(responseCode = "409", description = "The specialisation kept being modified concurrently"),
+            @ApiResponse(responseCode = "412", description = "The If-Match header does not match the current version of the specialisation"),
             @ApiResponse(responseCode = "500", description = "Something went wrong")
     })
     @PatchMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Void> patchSpecialisation(@PathVariable("id") Long id, @RequestBody Specialisation specialisation) {
-        Boolean isOperationSuccessful = specialisationService.patchSpecialisation(id, specialisation);
+    public ResponseEntity<Void> patchSpecialisation(@PathVariable("id") Long id, @RequestBody Specialisation specialisation,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Boolean isOperationSuccessful = specialisationService.patchSpecialisation(id, specialisation, VersionTags.expectedVersion(ifMatch));
         if (isOperationSuccessful) {
             return ResponseEntity.noContent().build();
         } else {
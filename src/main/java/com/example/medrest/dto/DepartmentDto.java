@@ -1,5 +1,7 @@
 package com.example.medrest.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
@@ -8,6 +10,9 @@ public class DepartmentDto {
     @NotBlank
     private String depName;
 
+    @JsonIgnore
+    private Long version;
+
     public DepartmentDto() {
         // Every entity has a default constructor declared
     }
@@ -16,6 +21,11 @@ public class DepartmentDto {
         this.depName = name;
     }
 
+    public DepartmentDto(String name, Long version) {
+        this(name);
+        this.version = version;
+    }
+
     public String getName() {
         return depName;
     }
@@ -23,4 +33,12 @@ public class DepartmentDto {
     public void setName(String name) {
         this.depName = name;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
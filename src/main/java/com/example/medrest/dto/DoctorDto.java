@@ -1,5 +1,7 @@
 package com.example.medrest.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
@@ -10,6 +12,9 @@ public class DoctorDto {
 
     private Integer salary;
 
+    @JsonIgnore
+    private Long version;
+
     public DoctorDto() {
         // Every entity needs a default constructor declared
     }
@@ -19,6 +24,11 @@ public class DoctorDto {
         this.salary = salary;
     }
 
+    public DoctorDto(String name, Integer salary, Long version) {
+        this(name, salary);
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -34,4 +44,12 @@ public class DoctorDto {
     public void setSalary(Integer salary) {
         this.salary = salary;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,43 @@
+package com.example.medrest.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportReportDto {
+    private long imported;
+    private final List<RowFailure> failures = new ArrayList<>();
+
+    public long getImported() {
+        return imported;
+    }
+
+    public List<RowFailure> getFailures() {
+        return failures;
+    }
+
+    public void addImported(int rows) {
+        imported += rows;
+    }
+
+    public void addFailure(long row, String message) {
+        failures.add(new RowFailure(row, message));
+    }
+
+    public static class RowFailure {
+        private final long row;
+        private final String message;
+
+        public RowFailure(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.medrest.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
@@ -18,6 +20,9 @@ public class LocationDto {
     @Max(10000)
     private Integer specialNumber;
 
+    @JsonIgnore
+    private Long version;
+
     public LocationDto() {
         // Every entity has a default constructor declared
     }
@@ -28,6 +33,11 @@ public class LocationDto {
         this.specialNumber = specialNumber;
     }
 
+    public LocationDto(String city, String street, Integer specialNumber, Long version) {
+        this(city, street, specialNumber);
+        this.version = version;
+    }
+
     public String getCity() {
         return city;
     }
@@ -51,4 +61,12 @@ public class LocationDto {
     public void setSpecialNumber(Integer specialNumber) {
         this.specialNumber = specialNumber;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -1,24 +1,35 @@
 package com.example.medrest.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
 public class PatientDto {
+    // the indexes are the Protobuf field numbers, a new property takes the next one and none is ever reused
     @NotNull
     @NotBlank
+    @JsonProperty(index = 1)
     private String firstName;
 
     @NotNull
     @NotBlank
+    @JsonProperty(index = 2)
     private String lastName;
 
     @NotNull
     @NotBlank
+    @JsonProperty(index = 3)
     private String phoneNumber;
 
     @NotBlank
+    @JsonProperty(index = 4)
     private String emailAddress;
 
+    @JsonIgnore
+    private Long version;
+
     public PatientDto() {
     }
 
@@ -29,6 +40,11 @@ public class PatientDto {
         this.emailAddress = emailAddress;
     }
 
+    public PatientDto(String firstName, String lastName, String phoneNumber, String emailAddress, Long version) {
+        this(firstName, lastName, phoneNumber, emailAddress);
+        this.version = version;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -60,4 +76,12 @@ public class PatientDto {
     public void setEmailAddress(String emailAddress) {
         this.emailAddress = emailAddress;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
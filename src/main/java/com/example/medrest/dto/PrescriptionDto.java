@@ -1,18 +1,27 @@
 package com.example.medrest.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
 public class PrescriptionDto {
+    // the indexes are the Protobuf field numbers, a new property takes the next one and none is ever reused
     @NotNull
     @NotBlank
+    @JsonProperty(index = 1)
     private String medicamentName;
 
+    @JsonProperty(index = 2)
     private Integer price;
 
+    @JsonProperty(index = 3)
     private Integer amountToTake;
 
+    @JsonIgnore
+    private Long version;
+
     public PrescriptionDto() {
 
     }
@@ -23,6 +32,11 @@ public class PrescriptionDto {
         this.amountToTake = amountToTake;
     }
 
+    public PrescriptionDto(String medicamentName, Integer price, Integer amountToTake, Long version) {
+        this(medicamentName, price, amountToTake);
+        this.version = version;
+    }
+
     public String getMedicamentName() {
         return medicamentName;
     }
@@ -46,4 +60,12 @@ public class PrescriptionDto {
     public void setAmountToTake(Integer amountToTake) {
         this.amountToTake = amountToTake;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
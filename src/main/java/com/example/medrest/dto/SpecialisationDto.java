@@ -1,5 +1,7 @@
 package com.example.medrest.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
@@ -12,6 +14,9 @@ public class SpecialisationDto {
 
     private Integer maxSalary;
 
+    @JsonIgnore
+    private Long version;
+
     public SpecialisationDto() {
     }
 
@@ -21,6 +26,11 @@ public class SpecialisationDto {
         this.maxSalary = maxSalary;
     }
 
+    public SpecialisationDto(String name, Integer minSalary, Integer maxSalary, Long version) {
+        this(name, minSalary, maxSalary);
+        this.version = version;
+    }
+
 
 
     public String getName() {
@@ -46,4 +56,12 @@ public class SpecialisationDto {
     public void setMaxSalary(Integer maxSalary) {
         this.maxSalary = maxSalary;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,64 @@
+package com.example.medrest.etag;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One change counter per resource, bumped by the services after every committed write. The ETags of the GET
+ * endpoints are built from the counters of the resources a response is made of, so an unchanged ETag is known
+ * without reading the database. The counters live in this instance only and their ETags carry the start time, so
+ * an ETag handed out before a restart never matches again. Writes made through another instance, or straight to the
+ * database, are not counted: the tags are weak, they only tell that this instance saw no change since, and they hold
+ * for a single instance deployment only.
+ */
+@Component
+public class ChangeCounters {
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Map<ResourceType, AtomicLong> counters = new EnumMap<>(ResourceType.class);
+
+    public ChangeCounters() {
+        for (ResourceType resourceType : ResourceType.values()) {
+            counters.put(resourceType, new AtomicLong());
+        }
+    }
+
+    public void changed(ResourceType resourceType) {
+        AtomicLong counter = counters.get(resourceType);
+        // inside a transaction the bump waits for the commit, so no reader sees the new counter with the old rows
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.incrementAndGet();
+                }
+            });
+        } else {
+            counter.incrementAndGet();
+        }
+    }
+
+    public long version(ResourceType resourceType) {
+        return counters.get(resourceType).get();
+    }
+
+    /**
+     * The ETag of a single resource at a version read earlier, the same {@link #eTag(ResourceType...)} gives for it
+     * while its counter is still at that version.
+     */
+    public String eTag(long version) {
+        return "W/\"" + epoch + '-' + version + '"';
+    }
+
+    public String eTag(ResourceType... resourceTypes) {
+        StringBuilder eTag = new StringBuilder("W/\"").append(epoch);
+        for (ResourceType resourceType : resourceTypes) {
+            eTag.append('-').append(counters.get(resourceType).get());
+        }
+        return eTag.append('"').toString();
+    }
+}
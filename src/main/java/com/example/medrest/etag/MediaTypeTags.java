@@ -0,0 +1,56 @@
+package com.example.medrest.etag;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ETags of the listings answered in several media types. The same rows encoded as JSON, Smile, CBOR or
+ * Protobuf are different representations, so the tag of the rows is completed with the media type the content
+ * negotiation picks among the ones the endpoint produces: a cache holding the JSON body never validates it with the
+ * tag of the Protobuf one.
+ */
+public final class MediaTypeTags {
+    private MediaTypeTags() {
+    }
+
+    public static String eTag(String eTag, WebRequest request) {
+        MediaType mediaType = negotiated(request);
+        if (mediaType == null) {
+            return eTag;
+        }
+        return eTag.substring(0, eTag.length() - 1) + '-' + mediaType.getSubtype() + '"';
+    }
+
+    // the first producible type compatible with the most preferred accepted type, as the message converters choose
+    @SuppressWarnings("unchecked")
+    private static MediaType negotiated(WebRequest request) {
+        Collection<MediaType> producible = (Collection<MediaType>) request.getAttribute(
+                HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (producible == null || producible.isEmpty()) {
+            return null;
+        }
+        List<MediaType> accepted;
+        try {
+            String[] accept = request.getHeaderValues(HttpHeaders.ACCEPT);
+            accepted = new ArrayList<>(accept == null ? List.of(MediaType.ALL) : MediaType.parseMediaTypes(List.of(accept)));
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType acceptedType : accepted) {
+            for (MediaType producibleType : producible) {
+                if (acceptedType.isCompatibleWith(producibleType)) {
+                    return producibleType;
+                }
+            }
+        }
+        return null;
+    }
+}
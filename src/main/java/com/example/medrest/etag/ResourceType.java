@@ -0,0 +1,10 @@
+package com.example.medrest.etag;
+
+public enum ResourceType {
+    PATIENTS,
+    DOCTORS,
+    PRESCRIPTIONS,
+    SPECIALISATIONS,
+    LOCATIONS,
+    DEPARTMENTS
+}
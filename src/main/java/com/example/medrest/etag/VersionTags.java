@@ -0,0 +1,48 @@
+package com.example.medrest.etag;
+
+import com.example.medrest.exception.PreconditionFailedException;
+import org.springframework.http.HttpHeaders;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Strong ETags of single entities, made of their version column. The GET endpoint of an entity hands one out and
+ * PUT or PATCH with that tag in If-Match only apply while the entity is still at that version.
+ */
+public final class VersionTags {
+    private static final Pattern VERSION_TAG = Pattern.compile("\"(\\d{1,18})\"");
+
+    private VersionTags() {
+    }
+
+    public static String eTag(Long version) {
+        return version != null ? "\"" + version + "\"" : null;
+    }
+
+    /**
+     * The headers of a GET answered with the tag, empty when the representation was read without its version.
+     */
+    public static HttpHeaders headers(String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        if (eTag != null) {
+            headers.setETag(eTag);
+        }
+        return headers;
+    }
+
+    /**
+     * The version a conditional write expects, or {@code null} when the write is unconditional (no If-Match or
+     * {@code *}). Anything else, a weak tag or a list of tags included, can never match a single version.
+     */
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Matcher matcher = VERSION_TAG.matcher(ifMatch.trim());
+        if (!matcher.matches()) {
+            throw new PreconditionFailedException("The If-Match header does not hold the ETag of a version of this resource");
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.medrest.exception;
+
+public class BadRequestException extends RuntimeException {
+    public BadRequestException() {
+    }
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
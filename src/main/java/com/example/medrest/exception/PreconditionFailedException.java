@@ -0,0 +1,10 @@
+package com.example.medrest.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException() {
+    }
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
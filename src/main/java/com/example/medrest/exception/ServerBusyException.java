@@ -0,0 +1,10 @@
+package com.example.medrest.exception;
+
+public class ServerBusyException extends RuntimeException {
+    public ServerBusyException() {
+    }
+
+    public ServerBusyException(String message) {
+        super(message);
+    }
+}
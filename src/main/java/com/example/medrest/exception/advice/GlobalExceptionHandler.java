@@ -1,13 +1,19 @@
 package com.example.medrest.exception.advice;
 
+import com.example.medrest.exception.BadRequestException;
 import com.example.medrest.exception.CanNotDeleteException;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.exception.PreconditionFailedException;
+import com.example.medrest.exception.ServerBusyException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import java.time.LocalDateTime;
 import java.util.stream.Collectors;
@@ -26,6 +32,37 @@ public class GlobalExceptionHandler {
                 .body(exception.getMessage());
     }
 
+    @ExceptionHandler({BadRequestException.class})
+    public ResponseEntity<String> handle(BadRequestException exception) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(exception.getMessage());
+    }
+
+    @ExceptionHandler({PreconditionFailedException.class})
+    public ResponseEntity<String> handle(PreconditionFailedException exception) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(exception.getMessage());
+    }
+
+    @ExceptionHandler({OptimisticLockingFailureException.class})
+    public ResponseEntity<String> handle(OptimisticLockingFailureException exception) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("The resource kept being modified concurrently, try again");
+    }
+
+    @ExceptionHandler({ServerBusyException.class})
+    public ResponseEntity<String> handle(ServerBusyException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(exception.getMessage());
+    }
+
+    @ExceptionHandler({AsyncRequestTimeoutException.class})
+    public ResponseEntity<String> handle(AsyncRequestTimeoutException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("The request took too long to complete");
+    }
+
     @ExceptionHandler({MethodArgumentNotValidException.class})
     public ResponseEntity<String> handle(MethodArgumentNotValidException exception) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
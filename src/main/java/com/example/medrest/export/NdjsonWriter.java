@@ -0,0 +1,72 @@
+package com.example.medrest.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a stream of rows as newline delimited JSON, one document per line. Rows are serialized as they are
+ * pulled from the stream so nothing but the current row and Jackson's output buffer is held in memory; the
+ * buffer is flushed whenever it fills up instead of after every row.
+ * <p>
+ * The export endpoints stream on the MVC async executor with a timeout of their own, medrest.export.timeout, since a
+ * large table takes far longer to stream than any other request is allowed to run.
+ */
+@Component
+public class NdjsonWriter {
+    private final ObjectWriter writer;
+    private final long timeout;
+
+    public NdjsonWriter(@Autowired ObjectMapper objectMapper,
+                        @Value("${medrest.export.timeout:30m}") Duration timeout) {
+        this.writer = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.timeout = timeout.toMillis();
+    }
+
+    /**
+     * The task writing the rows of the export into the response as NDJSON, tagged with the ETag.
+     */
+    public <T> WebAsyncTask<Void> export(HttpServletResponse response, String eTag, RowExport<T> export) {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        return new WebAsyncTask<>(timeout, () -> {
+            OutputStream outputStream = response.getOutputStream();
+            export.export(rows -> write(rows, outputStream));
+            response.flushBuffer();
+            return null;
+        });
+    }
+
+    public <T> void write(Stream<T> rows, OutputStream outputStream) throws IOException {
+        boolean empty = true;
+        try (SequenceWriter sequenceWriter = writer.writeValues(outputStream)) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                sequenceWriter.write(iterator.next());
+                empty = false;
+            }
+        }
+        // the separator only goes between documents, the last line still has to be terminated
+        if (!empty) {
+            outputStream.write('\n');
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.medrest.export;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface RowExport<T> {
+    void export(RowWriter<T> rowWriter) throws IOException;
+}
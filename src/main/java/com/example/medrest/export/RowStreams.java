@@ -0,0 +1,36 @@
+package com.example.medrest.export;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+/**
+ * Runs the queries whose rows are written out or indexed one at a time, with a fetch size meant for streaming which
+ * no other statement gets. On MySQL it is Integer.MIN_VALUE, for which the driver hands out the rows as they arrive
+ * instead of buffering the whole result set, so the export connection does not need useCursorFetch.
+ */
+@Component
+public class RowStreams {
+    private final EntityManager entityManager;
+    private final int fetchSize;
+
+    public RowStreams(@Autowired EntityManager entityManager,
+                      @Value("${medrest.export.fetch-size:500}") int fetchSize) {
+        this.entityManager = entityManager;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * The rows of the JPQL query, to be consumed and closed within the caller's transaction.
+     */
+    public <T> Stream<T> stream(String query, Class<T> type) {
+        return entityManager.createQuery(query, type)
+                .setHint(HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.medrest.export;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+@FunctionalInterface
+public interface RowWriter<T> {
+    void write(Stream<T> rows) throws IOException;
+}
@@ -0,0 +1,149 @@
+package com.example.medrest.filter;
+
+import com.example.medrest.exception.BadRequestException;
+import com.example.medrest.pagination.Pagination;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.MultiValueMap;
+
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Filters of the listings, written as query parameters: {@code salary>=5000}, {@code lastName^=Pop},
+ * {@code name!=Ion}, {@code amountToTake<3} or plain {@code city=Cluj}. The conditions are and-ed into one
+ * {@link Specification} of the listing's query. Their values reach the database as bound parameters because the
+ * criteria literals are bound ({@code hibernate.criteria.literal_handling_mode=bind}), otherwise Hibernate would
+ * write numbers into the query text. {@code ^=} is a prefix match. Only indexed properties may be filtered on, the
+ * other ones are answered 400 rather than scanned.
+ * <p>
+ * The servlet container splits such a parameter at its first '=', so {@code salary>=5000} arrives named
+ * {@code salary>} with the value 5000, and {@code salary>5000} arrives as a name without a value.
+ */
+public final class Filters {
+    public static final Set<String> RESERVED_PARAMETERS = Set.of("page", "size", "sort", "cursor", "fields");
+
+    private static final Pattern NAME_WITH_OPERATOR = Pattern.compile("([A-Za-z]\\w*)\\s*([<>!^])");
+    private static final Pattern STRICT_COMPARISON = Pattern.compile("([A-Za-z]\\w*)\\s*([<>])(.+)");
+
+    private Filters() {
+    }
+
+    /**
+     * Whether any parameter besides the paging, sorting and fields ones was given.
+     */
+    public static boolean present(MultiValueMap<String, String> parameters) {
+        return parameters != null && parameters.keySet().stream().anyMatch(name -> !RESERVED_PARAMETERS.contains(name));
+    }
+
+    /**
+     * The conditions of the parameters, or null when there are none. Plain parameters which are not a property of
+     * the representation are left alone; an operator on an unknown property is an error.
+     */
+    public static <T> Specification<T> parse(MultiValueMap<String, String> parameters,
+                                             List<String> properties,
+                                             Set<String> filterableProperties) {
+        if (parameters == null) {
+            return null;
+        }
+        List<Specification<T>> conditions = new ArrayList<>();
+        for (Map.Entry<String, List<String>> parameter : parameters.entrySet()) {
+            String name = parameter.getKey();
+            if (RESERVED_PARAMETERS.contains(name)) {
+                continue;
+            }
+            for (String value : parameter.getValue()) {
+                Condition condition = Condition.parse(name, value == null ? "" : value, properties);
+                if (condition != null) {
+                    checkFilterable(condition.property, filterableProperties);
+                    conditions.add(condition.toSpecification());
+                }
+            }
+        }
+        return conditions.stream().reduce(Specification::and).orElse(null);
+    }
+
+    private static void checkFilterable(String property, Set<String> filterableProperties) {
+        if (!Pagination.ID_PROPERTY.equals(property) && !filterableProperties.contains(property)) {
+            throw new BadRequestException("Filtering by '" + property + "' is not supported!");
+        }
+    }
+
+    private static final class Condition {
+        private final String property;
+        private final String operator;
+        private final String value;
+
+        private Condition(String property, String operator, String value) {
+            this.property = property;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        private static Condition parse(String name, String value, List<String> properties) {
+            Matcher withOperator = NAME_WITH_OPERATOR.matcher(name);
+            if (withOperator.matches()) {
+                return new Condition(withOperator.group(1), withOperator.group(2) + "=", value);
+            }
+            Matcher strict = STRICT_COMPARISON.matcher(name);
+            if (strict.matches() && value.isEmpty()) {
+                return new Condition(strict.group(1), strict.group(2), strict.group(3));
+            }
+            if (properties.contains(name)) {
+                return new Condition(name, "=", value);
+            }
+            return null;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private <T> Specification<T> toSpecification() {
+            return (root, query, builder) -> {
+                Path path = root.get(property);
+                if ("^=".equals(operator)) {
+                    if (!String.class.equals(path.getJavaType())) {
+                        throw new BadRequestException("'" + property + "' is not text, it can not be filtered by prefix!");
+                    }
+                    return builder.like(path, escape(value) + "%", '\\');
+                }
+                Comparable converted = convert(path.getJavaType());
+                switch (operator) {
+                    case "=":
+                        return builder.equal(path, converted);
+                    case "!=":
+                        return builder.notEqual(path, converted);
+                    case ">=":
+                        return builder.greaterThanOrEqualTo((Expression<Comparable>) path, converted);
+                    case "<=":
+                        return builder.lessThanOrEqualTo((Expression<Comparable>) path, converted);
+                    case ">":
+                        return builder.greaterThan((Expression<Comparable>) path, converted);
+                    default:
+                        return builder.lessThan((Expression<Comparable>) path, converted);
+                }
+            };
+        }
+
+        private Comparable<?> convert(Class<?> type) {
+            try {
+                Object converted = DefaultConversionService.getSharedInstance().convert(value.trim(), type);
+                if (converted == null) {
+                    throw new BadRequestException("The filter on '" + property + "' needs a value!");
+                }
+                return (Comparable<?>) converted;
+            } catch (ConversionException | ClassCastException exception) {
+                throw new BadRequestException("The value '" + value + "' of the filter on '" + property + "' is not valid!");
+            }
+        }
+
+        private static String escape(String prefix) {
+            return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.medrest.importer;
+
+import com.example.medrest.exception.BadRequestException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Reads a CSV body one line at a time. The first line must be a header naming the expected columns in order;
+ * quoted values may contain commas and doubled quotes, but not line breaks. A row with the wrong number of
+ * values fails on its own with a {@link BadRequestException} and reading continues with the next line.
+ */
+public class CsvRowReader<T> implements Iterator<T> {
+    private final BufferedReader reader;
+    private final int columns;
+    private final Function<List<String>, T> mapper;
+    private String nextLine;
+
+    public CsvRowReader(Reader reader, List<String> header, Function<List<String>, T> mapper) {
+        this.reader = new BufferedReader(reader);
+        this.columns = header.size();
+        this.mapper = mapper;
+        String firstLine = readLine();
+        if (firstLine == null || !parse(firstLine).equals(header)) {
+            throw new BadRequestException("The CSV header must be: " + String.join(",", header));
+        }
+        this.nextLine = readLine();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextLine != null;
+    }
+
+    @Override
+    public T next() {
+        if (nextLine == null) {
+            throw new NoSuchElementException();
+        }
+        String line = nextLine;
+        nextLine = readLine();
+        List<String> values = parse(line);
+        if (values.size() != columns) {
+            throw new BadRequestException("Expected " + columns + " values but found " + values.size());
+        }
+        return mapper.apply(values);
+    }
+
+    private String readLine() {
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isBlank());
+            return line;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    static List<String> parse(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString().trim());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString().trim());
+        return values;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.medrest.importer;
+
+import com.example.medrest.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * Reads the elements of a JSON array one by one. An element which can not be bound fails on its own with a
+ * {@link BadRequestException} and reading continues with the next one; malformed JSON can not be resynchronized,
+ * so it fails the current element and ends the iteration.
+ */
+public class JsonRowReader<T> implements Iterator<T> {
+    private final MappingIterator<T> iterator;
+    private boolean broken;
+
+    public JsonRowReader(ObjectReader reader, InputStream inputStream) {
+        try {
+            this.iterator = reader.readValues(inputStream);
+        } catch (IOException exception) {
+            throw new BadRequestException("The body is not a JSON array: " + exception.getMessage());
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (broken) {
+            return false;
+        }
+        try {
+            return iterator.hasNextValue();
+        } catch (JsonParseException exception) {
+            broken = true;
+            return true;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (broken) {
+            throw new BadRequestException("Malformed JSON, the import stopped at this element");
+        }
+        try {
+            return iterator.nextValue();
+        } catch (JsonParseException exception) {
+            broken = true;
+            throw new BadRequestException("Malformed JSON, the import stopped at this element: " + exception.getOriginalMessage());
+        } catch (JsonProcessingException exception) {
+            throw new BadRequestException(exception.getOriginalMessage());
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -4,9 +4,18 @@ import com.example.medrest.dto.DepartmentDto;
 import com.example.medrest.model.Department;
 import org.springframework.stereotype.Component;
 
+import javax.persistence.Tuple;
+import java.util.List;
+
 @Component
 public class DepartmentMapper {
+    public static final List<String> DTO_PROPERTIES = List.of("departmentName");
+
     public static DepartmentDto departmentToDepartmentDto(Department department) {
         return new DepartmentDto(department.getDepartmentName());
     }
+
+    public static DepartmentDto tupleToDepartmentDto(Tuple tuple) {
+        return new DepartmentDto(tuple.get("departmentName", String.class));
+    }
 }
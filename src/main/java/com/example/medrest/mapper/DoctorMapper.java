@@ -4,9 +4,19 @@ import com.example.medrest.dto.DoctorDto;
 import com.example.medrest.model.Doctor;
 import org.springframework.stereotype.Component;
 
+import javax.persistence.Tuple;
+import java.util.List;
+
 @Component
 public class DoctorMapper {
+    public static final List<String> DTO_PROPERTIES = List.of("name", "salary");
+
     public static DoctorDto doctorToDoctorDto(Doctor doctor) {
         return new DoctorDto(doctor.getName(), doctor.getSalary());
     }
+
+    public static DoctorDto tupleToDoctorDto(Tuple tuple) {
+        return new DoctorDto(tuple.get("name", String.class),
+                tuple.get("salary", Integer.class));
+    }
 }
@@ -4,8 +4,13 @@ import com.example.medrest.dto.LocationDto;
 import com.example.medrest.model.Location;
 import org.springframework.stereotype.Component;
 
+import javax.persistence.Tuple;
+import java.util.List;
+
 @Component
 public class LocationMapper {
+    public static final List<String> DTO_PROPERTIES = List.of("city", "street", "specialNumber");
+
     public static LocationDto locationToLocationDto(Location location) {
         return new LocationDto(location.getCity(), location.getStreet(), location.getSpecialNumber());
     }
@@ -13,4 +18,10 @@ public class LocationMapper {
     public static Location locationDtoToLocation(LocationDto locationDto) {
         return new Location(locationDto.getCity(), locationDto.getStreet(), locationDto.getSpecialNumber());
     }
+
+    public static LocationDto tupleToLocationDto(Tuple tuple) {
+        return new LocationDto(tuple.get("city", String.class),
+                tuple.get("street", String.class),
+                tuple.get("specialNumber", Integer.class));
+    }
 }
@@ -1,11 +1,18 @@
 package com.example.medrest.mapper;
 
 import com.example.medrest.dto.PatientDto;
+import com.example.medrest.dto.PatientSearchDto;
 import com.example.medrest.model.Patient;
 import org.springframework.stereotype.Component;
 
+import javax.persistence.Tuple;
+import java.util.List;
+
 @Component
 public class PatientMapper {
+    public static final List<String> DTO_PROPERTIES = List.of("firstName", "lastName", "phoneNumber", "emailAddress");
+    public static final List<String> SEARCH_DTO_PROPERTIES = List.of("id", "firstName", "lastName", "phoneNumber", "emailAddress");
+
     public static PatientDto patientToPatientDto(Patient patient) {
         return new PatientDto(patient.getFirstName(),
                 patient.getLastName(),
@@ -13,4 +20,37 @@ public class PatientMapper {
                 patient.getEmailAddress()
         );
     }
+
+    public static Patient patientDtoToPatient(PatientDto patientDto) {
+        return new Patient(patientDto.getFirstName(),
+                patientDto.getLastName(),
+                patientDto.getPhoneNumber(),
+                patientDto.getEmailAddress());
+    }
+
+    public static PatientSearchDto patientToPatientSearchDto(Long id, Patient patient) {
+        return new PatientSearchDto(id,
+                patient.getFirstName(),
+                patient.getLastName(),
+                patient.getPhoneNumber(),
+                patient.getEmailAddress());
+    }
+
+    public static PatientDto csvRowToPatientDto(List<String> values) {
+        return new PatientDto(emptyToNull(values.get(0)),
+                emptyToNull(values.get(1)),
+                emptyToNull(values.get(2)),
+                emptyToNull(values.get(3)));
+    }
+
+    public static PatientDto tupleToPatientDto(Tuple tuple) {
+        return new PatientDto(tuple.get("firstName", String.class),
+                tuple.get("lastName", String.class),
+                tuple.get("phoneNumber", String.class),
+                tuple.get("emailAddress", String.class));
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
 }
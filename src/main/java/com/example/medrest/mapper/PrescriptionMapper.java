@@ -4,11 +4,22 @@ import com.example.medrest.dto.PrescriptionDto;
 import com.example.medrest.model.Prescription;
 import org.springframework.stereotype.Component;
 
+import javax.persistence.Tuple;
+import java.util.List;
+
 @Component
 public class PrescriptionMapper {
+    public static final List<String> DTO_PROPERTIES = List.of("medicamentName", "price", "amountToTake");
+
     public static PrescriptionDto prescriptionToPrescriptionDto(Prescription prescription) {
         return new PrescriptionDto(prescription.getMedicamentName(),
                 prescription.getPrice(),
                 prescription.getAmountToTake());
     }
+
+    public static PrescriptionDto tupleToPrescriptionDto(Tuple tuple) {
+        return new PrescriptionDto(tuple.get("medicamentName", String.class),
+                tuple.get("price", Integer.class),
+                tuple.get("amountToTake", Integer.class));
+    }
 }
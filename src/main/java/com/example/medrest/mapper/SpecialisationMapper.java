@@ -4,11 +4,22 @@ import com.example.medrest.dto.SpecialisationDto;
 import com.example.medrest.model.Specialisation;
 import org.springframework.stereotype.Component;
 
+import javax.persistence.Tuple;
+import java.util.List;
+
 @Component
 public class SpecialisationMapper {
+    public static final List<String> DTO_PROPERTIES = List.of("name", "minSalary", "maxSalary");
+
     public static SpecialisationDto specialisationToSpecialisationDto(Specialisation specialisation) {
         return new SpecialisationDto(specialisation.getName(),
                 specialisation.getMinSalary(),
                 specialisation.getMaxSalary());
     }
+
+    public static SpecialisationDto tupleToSpecialisationDto(Tuple tuple) {
+        return new SpecialisationDto(tuple.get("name", String.class),
+                tuple.get("minSalary", Integer.class),
+                tuple.get("maxSalary", Integer.class));
+    }
 }
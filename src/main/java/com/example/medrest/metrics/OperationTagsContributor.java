@@ -0,0 +1,45 @@
+package com.example.medrest.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tags http.server.requests with the operationId of the endpoint's {@link Operation}, the name the API documentation
+ * uses, or with the handler method's name when it has none.
+ */
+public class OperationTagsContributor implements WebMvcTagsContributor {
+    public static final String TAG = "operation";
+    private static final Tags NONE = Tags.of(TAG, "none");
+
+    private final Map<Method, Tags> operations = new ConcurrentHashMap<>();
+
+    @Override
+    public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler, Throwable exception) {
+        return operation(handler);
+    }
+
+    @Override
+    public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+        return operation(handler);
+    }
+
+    private Tags operation(Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return NONE;
+        }
+        return operations.computeIfAbsent(((HandlerMethod) handler).getMethod(), method -> {
+            Operation operation = AnnotatedElementUtils.findMergedAnnotation(method, Operation.class);
+            return Tags.of(TAG, operation != null && !operation.operationId().isEmpty() ? operation.operationId() : method.getName());
+        });
+    }
+}
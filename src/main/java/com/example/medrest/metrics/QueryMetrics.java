@@ -0,0 +1,174 @@
+package com.example.medrest.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.metamodel.EntityType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes the statistics Hibernate keeps per query as hibernate.query.*, summed up by the entity a query reads or
+ * writes and its operation (select, insert, update or delete) instead of being tagged with the query itself: a
+ * criteria query has a new text for every length of an in list, so the queries would be an unbounded tag. Native
+ * queries and queries of anything else than a mapped entity are summed up as entity other.
+ */
+public class QueryMetrics implements MeterBinder {
+    static final String OTHER = "other";
+    private static final List<String> OPERATIONS = List.of("select", "insert", "update", "delete");
+    // the meters of one scrape are read one after the other, they share the totals summed up for the first one
+    private static final long TOTALS_MAX_AGE = TimeUnit.SECONDS.toNanos(1);
+
+    private final Statistics statistics;
+    private final Set<String> entities;
+    // the name of every query Hibernate keeps statistics of, pruned along with them; Hibernate keeps at most
+    // hibernate.statistics.query_max_size queries (5000 by default), dropping the least recently used ones
+    final Map<String, List<String>> names = new ConcurrentHashMap<>();
+    private volatile Totals totals;
+
+    public QueryMetrics(SessionFactory sessionFactory) {
+        this.statistics = sessionFactory.getStatistics();
+        this.entities = sessionFactory.getMetamodel().getEntities().stream()
+                .map(EntityType::getName)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String entity : entities) {
+            bindTo(registry, entity);
+        }
+        bindTo(registry, OTHER);
+    }
+
+    private void bindTo(MeterRegistry registry, String entity) {
+        for (String operation : OPERATIONS) {
+            List<String> name = List.of(entity, operation);
+            Tags tags = Tags.of("entity", entity, "operation", operation);
+            FunctionTimer.builder("hibernate.query.execution.total", name,
+                            queryName -> totalsOf(queryName).executions,
+                            queryName -> totalsOf(queryName).executionTime,
+                            TimeUnit.MILLISECONDS)
+                    .tags(tags)
+                    .description("Query executions")
+                    .register(registry);
+            TimeGauge.builder("hibernate.query.execution.max", name, TimeUnit.MILLISECONDS,
+                            queryName -> totalsOf(queryName).executionMaxTime)
+                    .tags(tags)
+                    .description("Query maximum execution time")
+                    .register(registry);
+            FunctionCounter.builder("hibernate.query.execution.rows", name,
+                            queryName -> totalsOf(queryName).rows)
+                    .tags(tags)
+                    .description("Number of rows processed for a query")
+                    .register(registry);
+            FunctionCounter.builder("hibernate.query.cache.requests", name,
+                            queryName -> totalsOf(queryName).cacheHits)
+                    .tags(tags.and("result", "hit"))
+                    .description("Number of query cache hits")
+                    .register(registry);
+            FunctionCounter.builder("hibernate.query.cache.requests", name,
+                            queryName -> totalsOf(queryName).cacheMisses)
+                    .tags(tags.and("result", "miss"))
+                    .description("Number of query cache misses")
+                    .register(registry);
+        }
+    }
+
+    private QueryTotals totalsOf(List<String> name) {
+        Totals current = totals;
+        if (current == null || System.nanoTime() - current.takenAt > TOTALS_MAX_AGE) {
+            current = sumUp();
+            totals = current;
+        }
+        return current.byName.getOrDefault(name, QueryTotals.NONE);
+    }
+
+    // one pass over the statistics for all the names, dropping the names of the queries Hibernate no longer keeps
+    Totals sumUp() {
+        String[] queries = statistics.getQueries();
+        Map<List<String>, QueryTotals> byName = new HashMap<>();
+        for (String query : queries) {
+            QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+            byName.computeIfAbsent(nameOf(query), name -> new QueryTotals()).add(queryStatistics);
+        }
+        names.keySet().retainAll(new HashSet<>(Arrays.asList(queries)));
+        return new Totals(byName, System.nanoTime());
+    }
+
+    // the entity and the operation of a query
+    List<String> nameOf(String query) {
+        return names.computeIfAbsent(query, this::parse);
+    }
+
+    // the operation is the first word, "from Patient" being a select; the entity follows the update, or else the
+    // first from or into
+    private List<String> parse(String query) {
+        String[] words = query.trim().split("\\s+");
+        String operation = words[0].toLowerCase(Locale.ROOT);
+        if (operation.equals("from")) {
+            operation = "select";
+        }
+        if (!OPERATIONS.contains(operation)) {
+            return List.of(OTHER, "select");
+        }
+        int target = -1;
+        if (operation.equals("update")) {
+            target = 1;
+        } else {
+            for (int i = 0; i < words.length - 1 && target < 0; i++) {
+                if (words[i].equalsIgnoreCase("from") || words[i].equalsIgnoreCase("into")) {
+                    target = i + 1;
+                }
+            }
+        }
+        String entity = target < 0 || target >= words.length ? OTHER : words[target];
+        entity = entity.substring(entity.lastIndexOf('.') + 1);
+        return List.of(entities.contains(entity) ? entity : OTHER, operation);
+    }
+
+    private static final class Totals {
+        private final Map<List<String>, QueryTotals> byName;
+        private final long takenAt;
+
+        private Totals(Map<List<String>, QueryTotals> byName, long takenAt) {
+            this.byName = byName;
+            this.takenAt = takenAt;
+        }
+    }
+
+    private static final class QueryTotals {
+        private static final QueryTotals NONE = new QueryTotals();
+
+        private long executions;
+        private double executionTime;
+        private double executionMaxTime;
+        private double rows;
+        private double cacheHits;
+        private double cacheMisses;
+
+        private void add(QueryStatistics queryStatistics) {
+            executions += queryStatistics.getExecutionCount();
+            executionTime += queryStatistics.getExecutionTotalTime();
+            executionMaxTime = Math.max(executionMaxTime, queryStatistics.getExecutionMaxTime());
+            rows += queryStatistics.getExecutionRowCount();
+            cacheHits += queryStatistics.getCacheHitCount();
+            cacheMisses += queryStatistics.getCacheMissCount();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.medrest.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Times every call of a method of a {@link Service} bean as medrest.service.invocations, tagged with the service, the
+ * method and the simple name of the exception thrown, if any. The advice is put in front of the transaction and
+ * caching advice already on the bean, so a call is timed with its commit and a cache hit shows up as a short call.
+ */
+public class ServiceTimingPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+    public static final String METRIC_NAME = "medrest.service.invocations";
+
+    public ServiceTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.advisor = new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(Service.class, true),
+                new TimingInterceptor(meterRegistry));
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+
+    private static final class TimingInterceptor implements MethodInterceptor {
+        // resolved on the first call, the registry must not be created this early in the startup
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+
+        private TimingInterceptor(ObjectProvider<MeterRegistry> meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null) {
+                return invocation.proceed();
+            }
+            Timer.Sample sample = Timer.start(registry);
+            String exception = "none";
+            try {
+                return invocation.proceed();
+            } catch (Throwable throwable) {
+                exception = throwable.getClass().getSimpleName();
+                throw throwable;
+            } finally {
+                sample.stop(Timer.builder(METRIC_NAME)
+                        .tag("service", ClassUtils.getUserClass(invocation.getThis()).getSimpleName())
+                        .tag("method", invocation.getMethod().getName())
+                        .tag("exception", exception)
+                        .register(registry));
+            }
+        }
+    }
+}
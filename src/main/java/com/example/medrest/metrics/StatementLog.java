@@ -0,0 +1,89 @@
+package com.example.medrest.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The SQL statements one request sent to the database: how many, how long the database took to answer them and how
+ * often each statement shape, its SQL with the literals and the IN lists collapsed, was repeated. The log of the
+ * request being served is bound to the thread serving it; {@link #propagate(Runnable)} carries it over to the
+ * threads the request hands work to.
+ */
+public final class StatementLog {
+    private static final ThreadLocal<StatementLog> CURRENT = new ThreadLocal<>();
+    private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LISTS = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // keyed by the SQL as sent, the shapes are only worked out for a report
+    private final Map<String, Integer> statements = new HashMap<>();
+    private int count;
+    private long nanos;
+
+    public static StatementLog current() {
+        return CURRENT.get();
+    }
+
+    static StatementLog bind(StatementLog log) {
+        StatementLog previous = CURRENT.get();
+        CURRENT.set(log);
+        return previous;
+    }
+
+    static void restore(StatementLog previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * A {@link org.springframework.core.task.TaskDecorator} running the task with the log of the thread which
+     * submitted it.
+     */
+    public static Runnable propagate(Runnable task) {
+        StatementLog log = current();
+        if (log == null) {
+            return task;
+        }
+        return () -> {
+            StatementLog previous = bind(log);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    synchronized void record(String sql, long nanos) {
+        statements.merge(sql == null ? "<batch>" : sql, 1, Integer::sum);
+        count++;
+        this.nanos += nanos;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public synchronized long nanos() {
+        return nanos;
+    }
+
+    /**
+     * The shape sent the most times, or null when no statement was sent.
+     */
+    public synchronized Map.Entry<String, Integer> mostRepeated() {
+        Map<String, Integer> shapes = new HashMap<>();
+        statements.forEach((sql, times) -> shapes.merge(shape(sql), times, Integer::sum));
+        return shapes.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+    }
+
+    static String shape(String sql) {
+        String shape = LITERALS.matcher(sql).replaceAll("?");
+        shape = IN_LISTS.matcher(shape).replaceAll("(...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.medrest.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Keeps a {@link StatementLog} per request and logs a warning for every request which sent more statements or spent
+ * more time in the database than allowed, with its endpoint and the statement it repeated the most, which is how an
+ * N+1 query shows up. With the response headers on, the totals so far are also sent in {@value #COUNT_HEADER} and
+ * {@value #TIME_HEADER} (milliseconds) just before the response is committed. A request whose controller runs
+ * asynchronously is reported once, when its async dispatch ends.
+ */
+public class StatementMonitorFilter extends OncePerRequestFilter {
+    public static final String COUNT_HEADER = "X-SQL-Statements";
+    public static final String TIME_HEADER = "X-SQL-Time";
+    private static final String LOG_ATTRIBUTE = StatementMonitorFilter.class.getName() + ".LOG";
+    private static final Logger log = LoggerFactory.getLogger(StatementMonitorFilter.class);
+
+    private final int maxStatements;
+    private final long maxNanos;
+    private final boolean responseHeaders;
+
+    public StatementMonitorFilter(int maxStatements, Duration maxTime, boolean responseHeaders) {
+        this.maxStatements = maxStatements;
+        this.maxNanos = maxTime.toNanos();
+        this.responseHeaders = responseHeaders;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StatementLog statements = (StatementLog) request.getAttribute(LOG_ATTRIBUTE);
+        if (statements == null) {
+            statements = new StatementLog();
+            request.setAttribute(LOG_ATTRIBUTE, statements);
+        }
+        HeaderWritingResponse headerWriting = responseHeaders ? new HeaderWritingResponse(response, statements) : null;
+        StatementLog previous = StatementLog.bind(statements);
+        try {
+            chain.doFilter(request, headerWriting != null ? headerWriting : response);
+        } finally {
+            StatementLog.restore(previous);
+            if (!isAsyncStarted(request)) {
+                if (headerWriting != null) {
+                    headerWriting.writeHeaders();
+                }
+                report(request, statements);
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, StatementLog statements) {
+        if (statements.count() <= maxStatements && statements.nanos() <= maxNanos) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Map.Entry<String, Integer> repeated = statements.mostRepeated();
+        log.warn("{} {} sent {} SQL statements taking {} ms, {} times: {}", request.getMethod(),
+                pattern != null ? pattern : request.getRequestURI(), statements.count(), millis(statements.nanos()),
+                repeated.getValue(), repeated.getKey());
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1e6);
+    }
+
+    // sets the headers the first time the body is written or the response is otherwise about to be committed
+    private static final class HeaderWritingResponse extends HttpServletResponseWrapper {
+        private final StatementLog statements;
+        private boolean written;
+
+        private HeaderWritingResponse(HttpServletResponse response, StatementLog statements) {
+            super(response);
+            this.statements = statements;
+        }
+
+        private void writeHeaders() {
+            if (!written && !isCommitted()) {
+                setHeader(COUNT_HEADER, String.valueOf(statements.count()));
+                setHeader(TIME_HEADER, millis(statements.nanos()));
+            }
+            written = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.medrest.metrics;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Wraps a {@link DataSource} so that every statement executed on its connections is recorded in the
+ * {@link StatementLog} of the current request, with the time the database took to execute it. Statements executed
+ * outside of a request are not recorded. Anything else, {@code unwrap} included, goes straight to the wrapped objects.
+ */
+public final class StatementRecording {
+    private StatementRecording() {
+    }
+
+    public static DataSource wrap(DataSource dataSource) {
+        return (DataSource) proxy(DataSource.class, dataSource, null);
+    }
+
+    private static Object proxy(Class<?> type, Object target, String sql) {
+        return Proxy.newProxyInstance(StatementRecording.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("equals") && args.length == 1) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode") && args == null) {
+                return System.identityHashCode(proxy);
+            }
+            StatementLog log = name.startsWith("execute") && target instanceof Statement ? StatementLog.current() : null;
+            long start = log != null ? System.nanoTime() : 0;
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException exception) {
+                throw exception.getCause();
+            } finally {
+                if (log != null) {
+                    // Statement.execute*(sql, ...) carries its SQL, a prepared statement was created with it
+                    log.record(args != null && args[0] instanceof String ? (String) args[0] : sql, System.nanoTime() - start);
+                }
+            }
+            if (type == DataSource.class && name.equals("getConnection")) {
+                return proxy(Connection.class, result, null);
+            }
+            if (type == Connection.class && result instanceof Statement) {
+                String statementSql = args != null && args[0] instanceof String ? (String) args[0] : null;
+                Class<?> statementType = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return proxy(statementType, result, statementSql);
+            }
+            return result;
+        });
+    }
+}
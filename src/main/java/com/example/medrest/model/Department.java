@@ -1,6 +1,8 @@
 package com.example.medrest.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -9,18 +11,27 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "departments")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "departments")
+@Table(name = "departments", indexes = {
+        @Index(name = "idx_departments_location_id", columnList = "location_id")
+})
 public class Department {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
     @NotNull
     @NotBlank
     @Column(name = "department_name", nullable = false)
     private String departmentName;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "location_id")
     @JsonIgnore
     private Location location;
@@ -44,6 +55,14 @@ public class Department {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getDepartmentName() {
         return departmentName;
     }
@@ -10,12 +10,22 @@ import java.util.Objects;
 import java.util.Set;
 
 @Entity
-@Table(name = "doctors")
+@Table(name = "doctors", indexes = {
+        @Index(name = "idx_doctors_department_id", columnList = "department_id"),
+        @Index(name = "idx_doctors_specialization_id", columnList = "specialization_id"),
+        @Index(name = "idx_doctors_name", columnList = "name"),
+        @Index(name = "idx_doctors_salary", columnList = "salary")
+})
 public class Doctor {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
     @NotNull
     @NotBlank
     @Column(name = "name", nullable = false)
@@ -29,11 +39,11 @@ public class Doctor {
     @JsonIgnore
     private Specialisation specialization;
 
-    @ManyToMany(mappedBy = "doctors", fetch = FetchType.EAGER)
+    @ManyToMany(mappedBy = "doctors", fetch = FetchType.LAZY)
     @JsonIgnore
     private Set<Patient> patients;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "department_id", referencedColumnName = "id")
     @JsonIgnore
     private Department department;
@@ -55,6 +65,14 @@ public class Doctor {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -1,5 +1,9 @@
 package com.example.medrest.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
@@ -8,12 +12,23 @@ import javax.validation.constraints.NotNull;
 import java.util.Objects;
 
 @Entity
-@Table(name = "locations")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "locations")
+@Table(name = "locations", indexes = {
+        @Index(name = "idx_locations_city", columnList = "city"),
+        @Index(name = "idx_locations_street", columnList = "street"),
+        @Index(name = "idx_locations_number", columnList = "number")
+})
 public class Location {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
     @NotNull
     @NotBlank
     @Column(name = "city", nullable = false)
@@ -46,6 +61,14 @@ public class Location {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getCity() {
         return city;
     }
@@ -1,6 +1,9 @@
 package com.example.medrest.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -10,13 +13,32 @@ import java.util.Objects;
 import java.util.Set;
 
 @Entity
-@Table(name = "patients")
+@Table(name = "patients", indexes = {
+        @Index(name = "idx_patients_first_name", columnList = "first_name"),
+        @Index(name = "idx_patients_last_name", columnList = "last_name"),
+        @Index(name = "idx_patients_phone_number", columnList = "phone_number"),
+        @Index(name = "idx_patients_email_address", columnList = "email_address")
+})
 public class Patient {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patients_seq")
+    @GenericGenerator(
+            name = "patients_seq",
+            strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "patients_seq"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            }
+    )
     @Column(name = "patient_id")
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
     @NotNull
     @NotBlank
     @Column(name = "first_name", nullable = false)
@@ -36,7 +58,10 @@ public class Patient {
     @Column(name = "email_address")
     private String emailAddress;
 
+    // the links are not part of the patient's representation and are also written straight to the join tables,
+    // so changing them neither bumps the version nor conflicts with a concurrent edit of the patient
     @ManyToMany(fetch = FetchType.LAZY)
+    @OptimisticLock(excluded = true)
     @JoinTable(
             name = "patients_doctors",
             joinColumns = @JoinColumn(name = "patient_id"),
@@ -46,6 +71,7 @@ public class Patient {
     private Set<Doctor> doctors;
 
     @ManyToMany(fetch = FetchType.LAZY)
+    @OptimisticLock(excluded = true)
     @JoinTable(
             name = "patients_prescriptions",
             joinColumns = @JoinColumn(name = "patient_id"),
@@ -74,6 +100,14 @@ public class Patient {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -8,13 +8,22 @@ import javax.validation.constraints.NotNull;
 import java.util.*;
 
 @Entity
-@Table(name = "prescriptions")
+@Table(name = "prescriptions", indexes = {
+        @Index(name = "idx_prescriptions_medicament_name", columnList = "medicament_name"),
+        @Index(name = "idx_prescriptions_price", columnList = "price"),
+        @Index(name = "idx_prescriptions_amount_to_take", columnList = "amount_to_take")
+})
 public class Prescription {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "prescription_id")
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
     @NotNull
     @NotBlank
     @Column(name = "medicament_name", nullable = false)
@@ -49,6 +58,14 @@ public class Prescription {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getMedicamentName() {
         return medicamentName;
     }
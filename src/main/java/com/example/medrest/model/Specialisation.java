@@ -1,16 +1,31 @@
 package com.example.medrest.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.util.Objects;
 
 @Entity
-@Table(name = "specialisations")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "specialisations")
+@Table(name = "specialisations", indexes = {
+        @Index(name = "idx_specialisations_name", columnList = "specialisation_name"),
+        @Index(name = "idx_specialisations_min_salary", columnList = "min_salary"),
+        @Index(name = "idx_specialisations_max_salary", columnList = "max_salary")
+})
 public class Specialisation {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
     @NotNull
     @Column(name = "specialisation_name", nullable = false)
     private String name;
@@ -38,6 +53,14 @@ public class Specialisation {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
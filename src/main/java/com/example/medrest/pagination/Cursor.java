@@ -0,0 +1,58 @@
+package com.example.medrest.pagination;
+
+import com.example.medrest.exception.BadRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class Cursor {
+    private static final String SEPARATOR = ":";
+
+    private final Sort.Direction direction;
+    private final String property;
+    private final String id;
+    private final String value;
+
+    public Cursor(Sort.Direction direction, String property, String id, String value) {
+        this.direction = direction;
+        this.property = property;
+        this.id = id;
+        this.value = value;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String encode() {
+        String raw = direction.name() + SEPARATOR + property + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // the sort value goes last because it is the only part that can contain the separator
+            String[] parts = raw.split(SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new BadRequestException("The given cursor is not valid!");
+            }
+            return new Cursor(Sort.Direction.valueOf(parts[0]), parts[1], parts[2], parts[3]);
+        } catch (IllegalArgumentException exception) {
+            throw new BadRequestException("The given cursor is not valid!");
+        }
+    }
+}
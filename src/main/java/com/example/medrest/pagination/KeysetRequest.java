@@ -0,0 +1,47 @@
+package com.example.medrest.pagination;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+public class KeysetRequest {
+    private final Sort.Direction direction;
+    private final String sortProperty;
+    private final int size;
+    private final Cursor cursor;
+
+    public KeysetRequest(Sort.Direction direction, String sortProperty, int size, Cursor cursor) {
+        this.direction = direction;
+        this.sortProperty = sortProperty;
+        this.size = size;
+        this.cursor = cursor;
+    }
+
+    public static KeysetRequest of(String sort, int size, String cursor, Set<String> sortableProperties) {
+        int checkedSize = Pagination.checkSize(size);
+        if (cursor == null || cursor.isBlank()) {
+            Sort.Order order = Pagination.parseOrder(sort, sortableProperties);
+            return new KeysetRequest(order.getDirection(), order.getProperty(), checkedSize, null);
+        }
+        // a cursor carries its own ordering, so the sort parameter only matters for the first page
+        Cursor decodedCursor = Cursor.decode(cursor);
+        Pagination.checkSortable(decodedCursor.getProperty(), sortableProperties);
+        return new KeysetRequest(decodedCursor.getDirection(), decodedCursor.getProperty(), checkedSize, decodedCursor);
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public String getSortProperty() {
+        return sortProperty;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Cursor getCursor() {
+        return cursor;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.medrest.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class KeysetSlice<T> {
+    private final List<T> content;
+    private final String nextCursor;
+
+    public KeysetSlice(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean isEmpty() {
+        return content.isEmpty();
+    }
+
+    public <R> KeysetSlice<R> map(Function<? super T, ? extends R> mapper) {
+        return new KeysetSlice<>(content.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+}
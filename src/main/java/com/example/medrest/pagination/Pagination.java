@@ -0,0 +1,86 @@
+package com.example.medrest.pagination;
+
+import com.example.medrest.exception.BadRequestException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Set;
+
+public final class Pagination {
+    public static final String DEFAULT_PAGE_SIZE = "50";
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final String ID_PROPERTY = "id";
+    public static final String NEXT_PAGE_HEADER = "X-Next-Page";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private Pagination() {
+    }
+
+    public static Pageable pageRequest(int page, int size, String sort, Set<String> sortableProperties) {
+        if (page < 0) {
+            throw new BadRequestException("The page index must not be negative!");
+        }
+        Sort.Order order = parseOrder(sort, sortableProperties);
+        Sort sortBy = Sort.by(order);
+        if (!ID_PROPERTY.equals(order.getProperty())) {
+            // the id is appended as a tie-breaker so that rows never move between pages
+            sortBy = sortBy.and(Sort.by(order.getDirection(), ID_PROPERTY));
+        }
+        return PageRequest.of(page, checkSize(size), sortBy);
+    }
+
+    public static int checkSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("The page size must be between 1 and " + MAX_PAGE_SIZE + "!");
+        }
+        return size;
+    }
+
+    public static Sort.Order parseOrder(String sort, Set<String> sortableProperties) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.Order.asc(ID_PROPERTY);
+        }
+        String[] parts = sort.split(",");
+        String property = parts[0].trim();
+        Sort.Direction direction = Sort.Direction.ASC;
+        // sort=-salary is the short form of sort=salary,desc
+        if (property.startsWith("-")) {
+            if (parts.length > 1) {
+                throw new BadRequestException("The sort direction is given either by a '-' prefix or after a comma, not both!");
+            }
+            property = property.substring(1).trim();
+            direction = Sort.Direction.DESC;
+        }
+        checkSortable(property, sortableProperties);
+        if (parts.length > 1) {
+            direction = Sort.Direction.fromOptionalString(parts[1].trim())
+                    .orElseThrow(() -> new BadRequestException("Unknown sort direction '" + parts[1].trim() + "'!"));
+        }
+        return new Sort.Order(direction, property);
+    }
+
+    public static void checkSortable(String property, Set<String> sortableProperties) {
+        if (!ID_PROPERTY.equals(property) && !sortableProperties.contains(property)) {
+            throw new BadRequestException("Sorting by '" + property + "' is not supported!");
+        }
+    }
+
+    public static HttpHeaders nextPageHeaders(Slice<?> slice) {
+        HttpHeaders headers = new HttpHeaders();
+        if (slice.hasNext()) {
+            headers.set(NEXT_PAGE_HEADER, String.valueOf(slice.getNumber() + 1));
+        }
+        return headers;
+    }
+
+    public static HttpHeaders nextCursorHeaders(KeysetSlice<?> slice) {
+        HttpHeaders headers = new HttpHeaders();
+        if (slice.hasNext()) {
+            headers.set(NEXT_CURSOR_HEADER, slice.getNextCursor());
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.medrest.projection;
+
+import com.example.medrest.exception.BadRequestException;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import javax.persistence.Tuple;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sparse fieldsets: the fields parameter names the properties of a representation the client wants, comma separated.
+ * The listings select only those columns; the representations are narrowed to them in the order they were asked for.
+ */
+public final class Fields {
+    private Fields() {
+    }
+
+    /**
+     * The fields named by the parameter, or null when it is absent and the whole representation is wanted.
+     */
+    public static List<String> parse(String fields, List<String> properties) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String property = field.trim();
+            if (!properties.contains(property)) {
+                throw new BadRequestException("Unknown field '" + property + "'! The fields are " + String.join(", ", properties) + ".");
+            }
+            selected.add(property);
+        }
+        return List.copyOf(selected);
+    }
+
+    public static Map<String, Object> select(Tuple tuple, List<String> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields) {
+            values.put(field, tuple.get(field));
+        }
+        return values;
+    }
+
+    /**
+     * Every representation narrowed to the fields, or the representations themselves when the fields are null.
+     */
+    public static List<?> selectEach(List<?> representations, List<String> fields) {
+        if (fields == null) {
+            return representations;
+        }
+        return representations.stream().map(representation -> select(representation, fields)).collect(Collectors.toList());
+    }
+
+    public static Map<String, Object> select(Object representation, List<String> fields) {
+        BeanWrapper bean = PropertyAccessorFactory.forBeanPropertyAccess(representation);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields) {
+            values.put(field, bean.getPropertyValue(field));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.medrest.protobuf;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * The message a list is sent as: a Protobuf message can not be an array, so the elements are its repeated field.
+ */
+public class ProtobufList<T> {
+    @JsonProperty(index = 1)
+    private List<T> items;
+
+    public ProtobufList() {
+    }
+
+    public ProtobufList(List<T> items) {
+        this.items = items;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+}
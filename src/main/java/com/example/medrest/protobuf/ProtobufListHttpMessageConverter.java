@@ -0,0 +1,55 @@
+package com.example.medrest.protobuf;
+
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.exception.BadRequestException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes the lists of DTOs returned by the listings as Protobuf {@link ProtobufList} messages. Only the DTOs have a
+ * schema: the maps of a listing narrowed by fields or filters are refused before anything is written, and request
+ * bodies are still read as JSON.
+ */
+public class ProtobufListHttpMessageConverter extends AbstractHttpMessageConverter<List<?>> {
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.valueOf(ProtobufLists.APPLICATION_PROTOBUF_VALUE);
+
+    public ProtobufListHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected List<?> readInternal(Class<? extends List<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(List<?> list, HttpOutputMessage outputMessage) throws IOException {
+        if (list.isEmpty()) {
+            // an empty list is a message without fields, which encodes to no bytes at all
+            return;
+        }
+        Class<?> elementType = list.get(0).getClass();
+        if (!PatientDto.class.getPackage().equals(elementType.getPackage())) {
+            throw new BadRequestException("Only whole representations are available as Protobuf, "
+                    + "ask for JSON, Smile or CBOR to use fields or filters!");
+        }
+        ProtobufLists.writer(elementType).writeValue(StreamUtils.nonClosing(outputMessage.getBody()), new ProtobufList<>(list));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.medrest.protobuf;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Protobuf encoding of lists of DTOs. The schema of a {@link ProtobufList} of an element type is generated from the
+ * Jackson view of the class, so its fields are the ones of the JSON representation and it follows the DTO as it
+ * changes. The fields are numbered by the {@code @JsonProperty} index of each property, so reordering or adding
+ * properties keeps the numbers the clients were generated with. It is generated once per element type.
+ */
+public final class ProtobufLists {
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+
+    private static final ProtobufMapper MAPPER = new ProtobufMapper();
+    private static final Map<Class<?>, Codec> CODECS = new ConcurrentHashMap<>();
+
+    private ProtobufLists() {
+    }
+
+    public static ObjectWriter writer(Class<?> elementType) {
+        return codec(elementType).writer;
+    }
+
+    public static ObjectReader reader(Class<?> elementType) {
+        return codec(elementType).reader;
+    }
+
+    /**
+     * The schema in the .proto language, for the clients to generate their classes from.
+     */
+    public static String schema(Class<?> elementType) {
+        return codec(elementType).schema.getSource().toString();
+    }
+
+    private static Codec codec(Class<?> elementType) {
+        return CODECS.computeIfAbsent(elementType, type -> {
+            JavaType listType = MAPPER.getTypeFactory().constructParametricType(ProtobufList.class, type);
+            try {
+                return new Codec(listType, MAPPER.generateSchemaFor(listType));
+            } catch (JsonMappingException exception) {
+                throw new IllegalStateException("No Protobuf schema can be generated for " + type.getName(), exception);
+            }
+        });
+    }
+
+    private static final class Codec {
+        private final ProtobufSchema schema;
+        private final ObjectWriter writer;
+        private final ObjectReader reader;
+
+        private Codec(JavaType listType, ProtobufSchema schema) {
+            this.schema = schema;
+            this.writer = MAPPER.writerFor(listType).with(schema);
+            this.reader = MAPPER.readerFor(listType).with(schema);
+        }
+    }
+}
@@ -1,13 +1,39 @@
 package com.example.medrest.repository;
 
+import com.example.medrest.dto.DepartmentDto;
 import com.example.medrest.model.Department;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
 @Repository
-public interface DepartmentRepository extends JpaRepository<Department, Long> {
+public interface DepartmentRepository extends KeysetRepository<Department, Long> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.medrest.dto.DepartmentDto(d.departmentName) from Department d")
+    List<DepartmentDto> findAllDtos();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.medrest.dto.DepartmentDto(d.departmentName, d.version) from Department d where d.id = :id")
+    Optional<DepartmentDto> findDtoById(@Param("id") Long id);
+
+    boolean existsByLocationId(Long locationId);
+
+    @Modifying
+    @Query("update Department d set d.departmentName = :#{#department.departmentName}, " +
+            "d.version = d.version + 1 " +
+            "where d.id = :id and (:version is null or d.version = :version)")
+    int updateById(@Param("id") Long id, @Param("department") Department department, @Param("version") Long version);
+
+    @Modifying
+    @Query("delete from Department d where d.id = :id")
+    int removeById(@Param("id") Long id);
 }
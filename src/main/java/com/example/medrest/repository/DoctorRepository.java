@@ -1,11 +1,40 @@
 package com.example.medrest.repository;
 
+import com.example.medrest.dto.DoctorDto;
 import com.example.medrest.model.Doctor;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+public interface DoctorRepository extends KeysetRepository<Doctor, Long> {
+    // streamed queries, run through RowStreams with their own fetch size
+    String EXPORT_QUERY = "select new com.example.medrest.dto.DoctorDto(d.name, d.salary) from Doctor d order by d.id";
+
+    @Query("select new com.example.medrest.dto.DoctorDto(d.name, d.salary) from Doctor d")
+    Slice<DoctorDto> findDtoBy(Pageable pageable);
+
+    @Query("select new com.example.medrest.dto.DoctorDto(d.name, d.salary, d.version) from Doctor d where d.id = :id")
+    Optional<DoctorDto> findDtoById(@Param("id") Long id);
+
+    boolean existsByDepartmentId(Long departmentId);
+
+    boolean existsBySpecializationId(Long specialisationId);
+
+    @Modifying
+    @Query("update Doctor d set d.name = :#{#doctor.name}, " +
+            "d.salary = :#{#doctor.salary}, " +
+            "d.version = d.version + 1 " +
+            "where d.id = :id and (:version is null or d.version = :version)")
+    int updateById(@Param("id") Long id, @Param("doctor") Doctor doctor, @Param("version") Long version);
 
+    @Modifying
+    @Query("delete from Doctor d where d.id = :id")
+    int removeById(@Param("id") Long id);
 }
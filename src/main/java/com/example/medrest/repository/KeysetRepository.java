@@ -0,0 +1,24 @@
+package com.example.medrest.repository;
+
+import com.example.medrest.pagination.KeysetRequest;
+import com.example.medrest.pagination.KeysetSlice;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import javax.persistence.Tuple;
+import java.util.Collection;
+import java.util.function.Function;
+
+@NoRepositoryBean
+public interface KeysetRepository<T, ID> extends JpaRepository<T, ID> {
+    KeysetSlice<T> findKeysetSlice(KeysetRequest request);
+
+    <R> KeysetSlice<R> findKeysetSlice(KeysetRequest request, Collection<String> properties, Function<Tuple, R> mapper);
+
+    <R> KeysetSlice<R> findKeysetSlice(KeysetRequest request, Specification<T> filter, Collection<String> properties, Function<Tuple, R> mapper);
+
+    <R> Slice<R> findSlice(Pageable pageable, Specification<T> filter, Collection<String> properties, Function<Tuple, R> mapper);
+}
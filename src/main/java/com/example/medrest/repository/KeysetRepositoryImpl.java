@@ -0,0 +1,209 @@
+package com.example.medrest.repository;
+
+import com.example.medrest.exception.BadRequestException;
+import com.example.medrest.pagination.Cursor;
+import com.example.medrest.pagination.KeysetRequest;
+import com.example.medrest.pagination.KeysetSlice;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Seek based paging shared by every repository: instead of skipping rows with an offset it continues after the
+ * (sort value, id) pair stored in the cursor, so reading a deep page costs the same as reading the first one.
+ * The sort property must be a non-null column, a null sort value can not be seeked past. Offset pages of a chosen
+ * set of properties are read the same way, as tuples of only those columns. Both tuple reads may be narrowed by a
+ * filter, which is and-ed with the seek condition.
+ */
+public class KeysetRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> implements KeysetRepository<T, ID> {
+    private final JpaEntityInformation<T, ?> entityInformation;
+    private final EntityManager entityManager;
+
+    public KeysetRepositoryImpl(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public KeysetSlice<T> findKeysetSlice(KeysetRequest request) {
+        CriteriaQuery<T> query = entityManager.getCriteriaBuilder().createQuery(getDomainClass());
+        Root<T> root = query.from(getDomainClass());
+        Map<ParameterExpression<?>, Object> cursorValues = seek(query, root, request, null);
+        return slice(fetch(query, cursorValues, request),
+                request,
+                row -> entityInformation.getId(row),
+                row -> PropertyAccessorFactory.forDirectFieldAccess(row).getPropertyValue(request.getSortProperty()));
+    }
+
+    @Override
+    public <R> KeysetSlice<R> findKeysetSlice(KeysetRequest request, Collection<String> properties, Function<Tuple, R> mapper) {
+        return findKeysetSlice(request, null, properties, mapper);
+    }
+
+    @Override
+    public <R> KeysetSlice<R> findKeysetSlice(KeysetRequest request, Specification<T> filter, Collection<String> properties, Function<Tuple, R> mapper) {
+        CriteriaQuery<Tuple> query = entityManager.getCriteriaBuilder().createTupleQuery();
+        Root<T> root = query.from(getDomainClass());
+        String idProperty = idProperty();
+        // the id and the sort value are always selected because the next cursor is built from them
+        Set<String> selectedProperties = new LinkedHashSet<>();
+        selectedProperties.add(idProperty);
+        selectedProperties.add(request.getSortProperty());
+        selectedProperties.addAll(properties);
+        query.multiselect(selections(root, selectedProperties));
+        Map<ParameterExpression<?>, Object> cursorValues = seek(query, root, request, filter);
+        return slice(fetch(query, cursorValues, request),
+                request,
+                row -> row.get(idProperty),
+                row -> row.get(request.getSortProperty()))
+                .map(mapper);
+    }
+
+    @Override
+    public <R> Slice<R> findSlice(Pageable pageable, Specification<T> filter, Collection<String> properties, Function<Tuple, R> mapper) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<T> root = query.from(getDomainClass());
+        query.multiselect(selections(root, properties));
+        Predicate condition = filter == null ? null : filter.toPredicate(root, query, builder);
+        if (condition != null) {
+            query.where(condition);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        List<R> content = rows.stream()
+                .limit(pageable.getPageSize())
+                .map(mapper)
+                .collect(Collectors.toList());
+        return new SliceImpl<>(content, pageable, rows.size() > pageable.getPageSize());
+    }
+
+    private static List<Selection<?>> selections(Root<?> root, Collection<String> properties) {
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String property : properties) {
+            selections.add(root.get(property).alias(property));
+        }
+        return selections;
+    }
+
+    // the values of the cursor are parameters rather than literals, so that every page after the first one is the
+    // same query text: one plan in Hibernate's cache and one statement for the database
+    private Map<ParameterExpression<?>, Object> seek(CriteriaQuery<?> query, Root<T> root, KeysetRequest request, Specification<T> filter) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        String idProperty = idProperty();
+        String sortProperty = request.getSortProperty();
+        boolean ascending = request.getDirection().isAscending();
+        boolean sortedById = idProperty.equals(sortProperty);
+        Path<?> idPath = root.get(idProperty);
+        Path<?> sortPath = root.get(sortProperty);
+
+        List<Predicate> conditions = new ArrayList<>();
+        Predicate filterCondition = filter == null ? null : filter.toPredicate(root, query, builder);
+        if (filterCondition != null) {
+            conditions.add(filterCondition);
+        }
+        Map<ParameterExpression<?>, Object> cursorValues = new HashMap<>();
+        Cursor cursor = request.getCursor();
+        if (cursor != null) {
+            ParameterExpression<?> lastId = builder.parameter(idPath.getJavaType());
+            cursorValues.put(lastId, convert(cursor.getId(), idPath.getJavaType()));
+            if (sortedById) {
+                conditions.add(compare(builder, idPath, lastId, ascending));
+            } else {
+                // expanded form of (sort, id) > (?, ?), which JPQL can not express as a row value
+                ParameterExpression<?> lastValue = builder.parameter(sortPath.getJavaType());
+                cursorValues.put(lastValue, convert(cursor.getValue(), sortPath.getJavaType()));
+                conditions.add(builder.or(
+                        compare(builder, sortPath, lastValue, ascending),
+                        builder.and(builder.equal(sortPath, lastValue), compare(builder, idPath, lastId, ascending))));
+            }
+        }
+        if (!conditions.isEmpty()) {
+            query.where(conditions.toArray(new Predicate[0]));
+        }
+
+        List<Order> orders = new ArrayList<>();
+        if (!sortedById) {
+            orders.add(ascending ? builder.asc(sortPath) : builder.desc(sortPath));
+        }
+        orders.add(ascending ? builder.asc(idPath) : builder.desc(idPath));
+        query.orderBy(orders);
+        return cursorValues;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <E> List<E> fetch(CriteriaQuery<E> query, Map<ParameterExpression<?>, Object> cursorValues, KeysetRequest request) {
+        TypedQuery<E> typedQuery = entityManager.createQuery(query);
+        cursorValues.forEach((parameter, value) -> typedQuery.setParameter((ParameterExpression) parameter, value));
+        // one extra row tells us whether another page exists without a count query
+        return typedQuery
+                .setMaxResults(request.getSize() + 1)
+                .getResultList();
+    }
+
+    private static <E> KeysetSlice<E> slice(List<E> rows,
+                                            KeysetRequest request,
+                                            Function<E, Object> idGetter,
+                                            Function<E, Object> sortValueGetter) {
+        if (rows.size() <= request.getSize()) {
+            return new KeysetSlice<>(rows, null);
+        }
+        List<E> content = new ArrayList<>(rows.subList(0, request.getSize()));
+        E last = content.get(content.size() - 1);
+        Cursor nextCursor = new Cursor(request.getDirection(),
+                request.getSortProperty(),
+                String.valueOf(idGetter.apply(last)),
+                String.valueOf(sortValueGetter.apply(last)));
+        return new KeysetSlice<>(content, nextCursor.encode());
+    }
+
+    private String idProperty() {
+        return entityInformation.getIdAttribute().getName();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate compare(CriteriaBuilder builder, Path path, Expression value, boolean ascending) {
+        return ascending ? builder.greaterThan(path, value) : builder.lessThan(path, value);
+    }
+
+    private static Comparable<?> convert(String value, Class<?> type) {
+        try {
+            return (Comparable<?>) DefaultConversionService.getSharedInstance().convert(value, type);
+        } catch (ConversionException | ClassCastException exception) {
+            throw new BadRequestException("The given cursor is not valid!");
+        }
+    }
+}
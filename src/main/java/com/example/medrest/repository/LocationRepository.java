@@ -1,11 +1,42 @@
 package com.example.medrest.repository;
 
+import com.example.medrest.dto.LocationDto;
 import com.example.medrest.model.Location;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
-public interface LocationRepository extends JpaRepository<Location, Long> {
+public interface LocationRepository extends KeysetRepository<Location, Long> {
+    // streamed queries, run through RowStreams with their own fetch size
+    String EXPORT_QUERY = "select new com.example.medrest.dto.LocationDto(l.city, l.street, l.specialNumber) from Location l order by l.id";
+
+    @Query("select new com.example.medrest.dto.LocationDto(l.city, l.street, l.specialNumber) from Location l")
+    Slice<LocationDto> findDtoBy(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.medrest.dto.LocationDto(l.city, l.street, l.specialNumber, l.version) from Location l where l.id = :id")
+    Optional<LocationDto> findDtoById(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Location l set l.city = :#{#location.city}, " +
+            "l.street = :#{#location.street}, " +
+            "l.specialNumber = :#{#location.specialNumber}, " +
+            "l.version = l.version + 1 " +
+            "where l.id = :id and (:version is null or l.version = :version)")
+    int updateById(@Param("id") Long id, @Param("location") Location location, @Param("version") Long version);
 
+    @Modifying
+    @Query("delete from Location l where l.id = :id")
+    int removeById(@Param("id") Long id);
 }
@@ -1,11 +1,80 @@
 package com.example.medrest.repository;
 
+import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.dto.PrescriptionDto;
 import com.example.medrest.model.Patient;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends KeysetRepository<Patient, Long> {
+    // streamed query, run through RowStreams with its own fetch size
+    String EXPORT_QUERY = "select new com.example.medrest.dto.PatientDto(p.firstName, p.lastName, p.phoneNumber, p.emailAddress) from Patient p order by p.id";
+
+    @Query("select new com.example.medrest.dto.PatientDto(p.firstName, p.lastName, p.phoneNumber, p.emailAddress) from Patient p")
+    Slice<PatientDto> findDtoBy(Pageable pageable);
+
+    @Query("select new com.example.medrest.dto.PatientDto(p.firstName, p.lastName, p.phoneNumber, p.emailAddress, p.version) from Patient p where p.id = :id")
+    Optional<PatientDto> findDtoById(@Param("id") Long id);
+
+    @Query("select new com.example.medrest.dto.DoctorDto(d.name, d.salary) from Patient p join p.doctors d where p.id = :id")
+    List<DoctorDto> findDoctorDtosByPatientId(@Param("id") Long id);
+
+    @Query("select new com.example.medrest.dto.PrescriptionDto(pr.medicamentName, pr.price, pr.amountToTake) " +
+            "from Patient p join p.prescriptions pr where p.id = :id")
+    List<PrescriptionDto> findPrescriptionDtosByPatientId(@Param("id") Long id);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "patients_prescriptions"))
+    @Query(value = "insert into patients_prescriptions (patient_id, prescription_id) " +
+            "select :patientId, p.prescription_id from prescriptions p " +
+            "where p.prescription_id in (:prescriptionIds) and not exists (" +
+            "select 1 from patients_prescriptions pp where pp.patient_id = :patientId and pp.prescription_id = p.prescription_id)",
+            nativeQuery = true)
+    int insertMissingPrescriptionLinks(@Param("patientId") Long patientId,
+                                       @Param("prescriptionIds") Collection<Long> prescriptionIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "patients_doctors"))
+    @Query(value = "insert into patients_doctors (patient_id, doctor_id) " +
+            "select p.patient_id, d.id from patients p, doctors d where p.patient_id = :patientId and d.id = :doctorId " +
+            "and not exists (select 1 from patients_doctors pd where pd.patient_id = :patientId and pd.doctor_id = :doctorId)",
+            nativeQuery = true)
+    int insertDoctorLink(@Param("patientId") Long patientId, @Param("doctorId") Long doctorId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "patients_doctors"))
+    @Query(value = "delete from patients_doctors where patient_id = :patientId and doctor_id = :doctorId", nativeQuery = true)
+    int deleteDoctorLink(@Param("patientId") Long patientId, @Param("doctorId") Long doctorId);
+
+    @Query("select case when count(d) > 0 then true else false end from Patient p join p.doctors d " +
+            "where p.id = :patientId and d.id = :doctorId")
+    boolean existsDoctorLink(@Param("patientId") Long patientId, @Param("doctorId") Long doctorId);
+
+    @Modifying
+    @Query("update Patient p set p.firstName = :#{#patient.firstName}, " +
+            "p.lastName = :#{#patient.lastName}, " +
+            "p.phoneNumber = :#{#patient.phoneNumber}, " +
+            "p.emailAddress = :#{#patient.emailAddress}, " +
+            "p.version = p.version + 1 " +
+            "where p.id = :id and (:version is null or p.version = :version)")
+    int updateById(@Param("id") Long id, @Param("patient") Patient patient, @Param("version") Long version);
 
+    @Modifying
+    @Query("delete from Patient p where p.id = :id")
+    int removeById(@Param("id") Long id);
 }
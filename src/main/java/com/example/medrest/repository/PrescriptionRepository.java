@@ -1,11 +1,42 @@
 package com.example.medrest.repository;
 
+import com.example.medrest.dto.PrescriptionDto;
 import com.example.medrest.model.Prescription;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface PrescriptionRepository extends JpaRepository<Prescription, Long> {
+public interface PrescriptionRepository extends KeysetRepository<Prescription, Long> {
+    // streamed queries, run through RowStreams with their own fetch size
+    String EXPORT_QUERY = "select new com.example.medrest.dto.PrescriptionDto(p.medicamentName, p.price, p.amountToTake) from Prescription p order by p.id";
+
+    @Query("select new com.example.medrest.dto.PrescriptionDto(p.medicamentName, p.price, p.amountToTake) from Prescription p")
+    Slice<PrescriptionDto> findDtoBy(Pageable pageable);
+
+    @Query("select new com.example.medrest.dto.PrescriptionDto(p.medicamentName, p.price, p.amountToTake, p.version) from Prescription p where p.id = :id")
+    Optional<PrescriptionDto> findDtoById(@Param("id") Long id);
+
+    @Query("select p.id from Prescription p where p.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Prescription p set p.medicamentName = :#{#prescription.medicamentName}, " +
+            "p.price = :#{#prescription.price}, " +
+            "p.amountToTake = :#{#prescription.amountToTake}, " +
+            "p.version = p.version + 1 " +
+            "where p.id = :id and (:version is null or p.version = :version)")
+    int updateById(@Param("id") Long id, @Param("prescription") Prescription prescription, @Param("version") Long version);
 
+    @Modifying
+    @Query("delete from Prescription p where p.id = :id")
+    int removeById(@Param("id") Long id);
 }
@@ -1,11 +1,42 @@
 package com.example.medrest.repository;
 
+import com.example.medrest.dto.SpecialisationDto;
 import com.example.medrest.model.Specialisation;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
-public interface SpecialisationRepository extends JpaRepository<Specialisation, Long> {
+public interface SpecialisationRepository extends KeysetRepository<Specialisation, Long> {
+    // streamed queries, run through RowStreams with their own fetch size
+    String EXPORT_QUERY = "select new com.example.medrest.dto.SpecialisationDto(s.name, s.minSalary, s.maxSalary) from Specialisation s order by s.id";
+
+    @Query("select new com.example.medrest.dto.SpecialisationDto(s.name, s.minSalary, s.maxSalary) from Specialisation s")
+    Slice<SpecialisationDto> findDtoBy(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new com.example.medrest.dto.SpecialisationDto(s.name, s.minSalary, s.maxSalary, s.version) from Specialisation s where s.id = :id")
+    Optional<SpecialisationDto> findDtoById(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Specialisation s set s.name = :#{#specialisation.name}, " +
+            "s.minSalary = :#{#specialisation.minSalary}, " +
+            "s.maxSalary = :#{#specialisation.maxSalary}, " +
+            "s.version = s.version + 1 " +
+            "where s.id = :id and (:version is null or s.version = :version)")
+    int updateById(@Param("id") Long id, @Param("specialisation") Specialisation specialisation, @Param("version") Long version);
 
+    @Modifying
+    @Query("delete from Specialisation s where s.id = :id")
+    int removeById(@Param("id") Long id);
 }
@@ -0,0 +1,137 @@
+package com.example.medrest.response;
+
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The JSON responses of the small reference data listings, kept serialized and gzipped with the change counter of
+ * their resource at the time they were read. Until a write bumps the counter a request is answered with the stored
+ * bytes, without reading, mapping or serializing anything. The counter is read before the rows, and it is bumped
+ * only after a write commits, so stored bytes are never older than the version they are kept under. The counter
+ * only sees the writes made through this instance, so the bytes are also read again once they are older than
+ * medrest.serialized-responses.ttl, which bounds how long a write made elsewhere goes unseen.
+ * <p>
+ * The gzipped bytes are a representation of their own: they carry the ETag of the plain ones with a -gzip suffix,
+ * and both add Accept-Encoding to the Vary of the loaded response.
+ */
+@Component
+public class SerializedResponses {
+    private final ChangeCounters changeCounters;
+    private final ObjectMapper objectMapper;
+    private final long ttlNanos;
+    private final Map<ResourceType, SerializedResponse> responses = new ConcurrentHashMap<>();
+
+    public SerializedResponses(@Autowired ChangeCounters changeCounters,
+                               @Autowired ObjectMapper objectMapper,
+                               @Value("${medrest.serialized-responses.ttl:1m}") Duration ttl) {
+        this.changeCounters = changeCounters;
+        this.objectMapper = objectMapper;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * The stored response of the resource, or the one built by the loader when a write happened or the time to live
+     * ran out since it was stored, or null when the request's If-None-Match holds the tag of the encoding it gets. The loader's response is
+     * expected to be a 200 with a JSON body; its headers are kept along with the bytes.
+     */
+    public ResponseEntity<byte[]> respond(ResourceType resourceType, WebRequest request, Supplier<ResponseEntity<?>> loader) {
+        long version = changeCounters.version(resourceType);
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String eTag = changeCounters.eTag(version);
+        if (request.checkNotModified(gzip ? gzipped(eTag) : eTag)) {
+            return null;
+        }
+        SerializedResponse response = responses.get(resourceType);
+        if (response == null || response.version < version || System.nanoTime() - response.loadedAt >= ttlNanos) {
+            SerializedResponse loaded = serialize(version, eTag, loader.get());
+            response = responses.merge(resourceType, loaded, (stored, fresh) -> fresh.version >= stored.version ? fresh : stored);
+        }
+        return gzip
+                ? new ResponseEntity<>(response.gzippedBody, response.gzippedHeaders, HttpStatus.OK)
+                : new ResponseEntity<>(response.body, response.headers, HttpStatus.OK);
+    }
+
+    static String gzipped(String eTag) {
+        return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+    }
+
+    private SerializedResponse serialize(long version, String eTag, ResponseEntity<?> loaded) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(loaded.getBody());
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+                gzip.write(body);
+            }
+            return new SerializedResponse(version, eTag, loaded.getHeaders(), body, gzipped.toByteArray());
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                // gzip;q=0 refuses the coding
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static final class SerializedResponse {
+        private final long version;
+        private final long loadedAt = System.nanoTime();
+        private final byte[] body;
+        private final byte[] gzippedBody;
+        private final HttpHeaders headers;
+        private final HttpHeaders gzippedHeaders;
+
+        private SerializedResponse(long version, String eTag, HttpHeaders loadedHeaders, byte[] body, byte[] gzippedBody) {
+            this.version = version;
+            this.body = body;
+            this.gzippedBody = gzippedBody;
+            this.headers = headers(eTag, loadedHeaders, body.length);
+            this.gzippedHeaders = headers(gzipped(eTag), loadedHeaders, gzippedBody.length);
+            this.gzippedHeaders.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        private static HttpHeaders headers(String eTag, HttpHeaders loadedHeaders, int length) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(loadedHeaders);
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setContentLength(length);
+            headers.setETag(eTag);
+            List<String> vary = new ArrayList<>(loadedHeaders.getVary());
+            if (!vary.contains(HttpHeaders.ACCEPT_ENCODING)) {
+                vary.add(HttpHeaders.ACCEPT_ENCODING);
+            }
+            headers.setVary(vary);
+            return headers;
+        }
+    }
+}
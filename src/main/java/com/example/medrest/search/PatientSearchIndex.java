@@ -0,0 +1,297 @@
+package com.example.medrest.search;
+
+import com.example.medrest.dto.PatientSearchDto;
+import com.example.medrest.export.RowStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory prefix index over the patients' names, phone numbers and email addresses. Every word of the names, the
+ * digits of the phone number and the whole email address are normalized (lower case, no accents) into terms kept in
+ * one sorted set of (term, id) postings, so the patients with a term starting with a prefix are a range of the set.
+ * A query matches the patients having, for each of its words, a term starting with it; a query made only of digits
+ * and phone punctuation is one phone number prefix.
+ * <p>
+ * The index is loaded from the database before the application starts serving and is kept current by the writes of
+ * the services, applied once their transaction has committed. Changes made to the table by other means, or by other
+ * instances of the application, are only picked up by {@link #rebuild()}, which loads a new index on the side while
+ * searches go on against the current one, then swaps it in.
+ */
+@Component
+public class PatientSearchIndex implements SmartInitializingSingleton {
+    // streamed through RowStreams with its own fetch size
+    static final String QUERY = "select new com.example.medrest.dto.PatientSearchDto(p.id, p.firstName, p.lastName, p.phoneNumber, p.emailAddress) from Patient p";
+    private static final Logger log = LoggerFactory.getLogger(PatientSearchIndex.class);
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[\\s\\-'.,]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern PHONE_NUMBER = Pattern.compile("[+\\d\\s().\\-/]*\\d[+\\d\\s().\\-/]*");
+    private static final Pattern NON_DIGITS = Pattern.compile("\\D+");
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot());
+    // the changes committed while a rebuild reads the table, replayed on the index it read before it is swapped in;
+    // guarded by the index's monitor, null while no rebuild is running
+    private List<Consumer<Snapshot>> pendingChanges;
+    private final Object rebuildLock = new Object();
+    private final RowStreams rowStreams;
+    private final TransactionTemplate transactionTemplate;
+
+    public PatientSearchIndex(@Autowired RowStreams rowStreams,
+                              @Autowired PlatformTransactionManager transactionManager) {
+        this.rowStreams = rowStreams;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Replaces the content of the index with the patients stored in the database.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                pendingChanges = new ArrayList<>();
+            }
+            Snapshot rebuilt = new Snapshot();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<PatientSearchDto> patients = rowStreams.stream(QUERY, PatientSearchDto.class)) {
+                        patients.forEach(rebuilt::put);
+                    }
+                });
+                synchronized (this) {
+                    pendingChanges.forEach(change -> change.accept(rebuilt));
+                    snapshot.set(rebuilt);
+                }
+            } finally {
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+            }
+            log.info("Indexed {} patients for search in {} ms", rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Indexes the patient, replacing what was indexed under its id, once the current transaction has committed.
+     */
+    public void index(PatientSearchDto patient) {
+        afterCommit(() -> apply(index -> index.put(patient)));
+    }
+
+    /**
+     * Removes the patient from the index once the current transaction has committed.
+     */
+    public void remove(Long id) {
+        afterCommit(() -> apply(index -> index.remove(id)));
+    }
+
+    /**
+     * The first patients, at most limit of them, matching every word of the query, ordered by the matched term.
+     */
+    public List<PatientSearchDto> search(String query, int limit) {
+        List<String> prefixes = prefixes(query);
+        if (prefixes.isEmpty()) {
+            return List.of();
+        }
+        return snapshot.get().search(prefixes, limit);
+    }
+
+    public int size() {
+        return snapshot.get().size();
+    }
+
+    private synchronized void apply(Consumer<Snapshot> change) {
+        change.accept(snapshot.get());
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    static String[] terms(PatientSearchDto patient) {
+        Set<String> terms = new LinkedHashSet<>();
+        words(patient.getFirstName(), terms);
+        words(patient.getLastName(), terms);
+        if (patient.getPhoneNumber() != null) {
+            String digits = NON_DIGITS.matcher(patient.getPhoneNumber()).replaceAll("");
+            if (!digits.isEmpty()) {
+                terms.add(digits);
+            }
+        }
+        if (patient.getEmailAddress() != null && !patient.getEmailAddress().isBlank()) {
+            terms.add(normalize(patient.getEmailAddress().trim()));
+        }
+        return terms.toArray(String[]::new);
+    }
+
+    static List<String> prefixes(String query) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        if (PHONE_NUMBER.matcher(query).matches()) {
+            return List.of(NON_DIGITS.matcher(query).replaceAll(""));
+        }
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (String word : query.trim().split("\\s+")) {
+            // an email address is one term, the other words are split the way the names were
+            if (word.contains("@")) {
+                prefixes.add(normalize(word));
+            } else {
+                words(word, prefixes);
+            }
+        }
+        return new ArrayList<>(prefixes);
+    }
+
+    private static void words(String value, Set<String> terms) {
+        if (value == null) {
+            return;
+        }
+        for (String word : WORD_SEPARATORS.split(normalize(value))) {
+            if (!word.isEmpty()) {
+                terms.add(word);
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Snapshot {
+        private final ConcurrentSkipListSet<Posting> postings = new ConcurrentSkipListSet<>();
+        private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+        private List<PatientSearchDto> search(List<String> prefixes, int limit) {
+            // the longest prefix selects the fewest postings, the other ones are checked on the patients it selects
+            String driver = prefixes.stream().max(Comparator.comparingInt(String::length)).get();
+            Set<Long> seen = new HashSet<>();
+            List<PatientSearchDto> patients = new ArrayList<>();
+            for (Posting posting : postings.subSet(new Posting(driver, Long.MIN_VALUE), new Posting(driver + Character.MAX_VALUE, Long.MIN_VALUE))) {
+                if (patients.size() == limit) {
+                    break;
+                }
+                if (!seen.add(posting.id)) {
+                    continue;
+                }
+                Entry entry = entries.get(posting.id);
+                if (entry != null && entry.matches(prefixes)) {
+                    patients.add(entry.patient);
+                }
+            }
+            return patients;
+        }
+
+        private int size() {
+            return entries.size();
+        }
+
+        private void put(PatientSearchDto patient) {
+            Entry indexed = new Entry(patient, terms(patient));
+            entries.compute(patient.getId(), (id, previous) -> {
+                if (previous != null) {
+                    previous.postings().forEach(postings::remove);
+                }
+                indexed.postings().forEach(postings::add);
+                return indexed;
+            });
+        }
+
+        private void remove(Long id) {
+            entries.computeIfPresent(id, (key, entry) -> {
+                entry.postings().forEach(postings::remove);
+                return null;
+            });
+        }
+    }
+
+    private static final class Entry {
+        private final PatientSearchDto patient;
+        private final String[] terms;
+
+        private Entry(PatientSearchDto patient, String[] terms) {
+            this.patient = patient;
+            this.terms = terms;
+        }
+
+        private Stream<Posting> postings() {
+            return Arrays.stream(terms).map(term -> new Posting(term, patient.getId()));
+        }
+
+        private boolean matches(List<String> prefixes) {
+            for (String prefix : prefixes) {
+                if (Arrays.stream(terms).noneMatch(term -> term.startsWith(prefix))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Posting implements Comparable<Posting> {
+        private final String term;
+        private final long id;
+
+        private Posting(String term, long id) {
+            this.term = term;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Posting other) {
+            int byTerm = term.compareTo(other.term);
+            return byTerm != 0 ? byTerm : Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Posting && compareTo((Posting) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * term.hashCode() + Long.hashCode(id);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.medrest.service;
+
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
+import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Appointments are the rows of the patients_doctors join table, so they are added and removed with one statement
+ * on that table instead of loading both entities with their collections and merging them back.
+ */
+@Service
+public class AppointmentService {
+    private final PatientRepository patientRepository;
+    private final ChangeCounters changeCounters;
+
+    public AppointmentService(@Autowired PatientRepository patientRepository,
+                              @Autowired ChangeCounters changeCounters) {
+        this.patientRepository = patientRepository;
+        this.changeCounters = changeCounters;
+    }
+
+    @Transactional
+    public void addAppointment(Long patientId, Long doctorId) {
+        if (patientRepository.insertDoctorLink(patientId, doctorId) == 1) {
+            changeCounters.changed(ResourceType.PATIENTS);
+            return;
+        }
+        // nothing is inserted when the appointment already exists or when the patient or the doctor is missing
+        if (!patientRepository.existsDoctorLink(patientId, doctorId)) {
+            throw new NotFoundException("The patient or the doctor with the given id was not found!\n");
+        }
+    }
+
+    @Transactional
+    public void removeAppointment(Long patientId, Long doctorId) {
+        if (patientRepository.deleteDoctorLink(patientId, doctorId) == 0) {
+            throw new NotFoundException("The patient has no appointment with the given doctor!\n");
+        }
+        changeCounters.changed(ResourceType.PATIENTS);
+    }
+}
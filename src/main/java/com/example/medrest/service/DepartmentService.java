@@ -1,26 +1,47 @@
 package com.example.medrest.service;
 
+import com.example.medrest.dto.DepartmentDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
 import com.example.medrest.exception.DepartmentNotFoundException;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.exception.PreconditionFailedException;
 import com.example.medrest.model.Department;
 import com.example.medrest.repository.DepartmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 
+import static com.example.medrest.configuration.CacheConfiguration.DEPARTMENTS;
+
 @Service
 public class DepartmentService {
     private final DepartmentRepository departmentRepository;
+    private final ChangeCounters changeCounters;
 
-    public DepartmentService(@Autowired DepartmentRepository departmentRepository) {
+    public DepartmentService(@Autowired DepartmentRepository departmentRepository,
+                             @Autowired ChangeCounters changeCounters) {
         this.departmentRepository = departmentRepository;
+        this.changeCounters = changeCounters;
     }
 
-    public List<Department> getAllDepartments() {
-        List<Department> departmentList = departmentRepository.findAll();
+    public Department getDepartment(Long id) {
+        Optional<Department> department = departmentRepository.findById(id);
+        if(department.isPresent()) {
+            return department.get();
+        } else {
+            throw new DepartmentNotFoundException();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<DepartmentDto> getAllDepartmentDtos() {
+        List<DepartmentDto> departmentList = departmentRepository.findAllDtos();
         if (!departmentList.isEmpty()) {
             return departmentList;
         } else {
@@ -28,9 +49,11 @@ public class DepartmentService {
         }
     }
 
-    public Department getDepartment(Long id) {
-        Optional<Department> department = departmentRepository.findById(id);
-        if(department.isPresent()) {
+    @Cacheable(cacheNames = DEPARTMENTS, key = "#id")
+    @Transactional(readOnly = true)
+    public DepartmentDto getDepartmentDto(Long id) {
+        Optional<DepartmentDto> department = departmentRepository.findDtoById(id);
+        if (department.isPresent()) {
             return department.get();
         } else {
             throw new DepartmentNotFoundException();
@@ -39,51 +62,56 @@ public class DepartmentService {
 
     public Department addDepartment(Department department) {
         if (department != null) {
-            return departmentRepository.save(department);
+            Department savedDepartment = departmentRepository.save(department);
+            changeCounters.changed(ResourceType.DEPARTMENTS);
+            return savedDepartment;
         } else {
             throw new RuntimeException("The given department doesn't contain any data!");
         }
     }
 
-    public Boolean updateDepartment(Long id, Department department) {
-        Optional<Department> existingDepartment = departmentRepository.findById(id);
-        if (existingDepartment.isPresent()) {
-            department.setId(id);
-            departmentRepository.save(department);
-            return true;
-        } else {
+    @CacheEvict(cacheNames = DEPARTMENTS, key = "#id")
+    @Transactional
+    public Boolean updateDepartment(Long id, Department department, Long expectedVersion) {
+        if (departmentRepository.updateById(id, department, expectedVersion) == 0) {
+            if (expectedVersion != null && departmentRepository.existsById(id)) {
+                throw new PreconditionFailedException("The department was modified since the version given in If-Match");
+            }
             return false;
         }
+        changeCounters.changed(ResourceType.DEPARTMENTS);
+        return true;
     }
 
-    public Boolean patchDepartment(Long id, Department department) {
-        Optional<Department> existingDepartment = departmentRepository.findById(id);
-        if (existingDepartment.isPresent()) {
-            existingDepartment.get().patch(department);
-            departmentRepository.save(existingDepartment.get());
-            return true;
-        } else {
-            return false;
-        }
+    @CacheEvict(cacheNames = DEPARTMENTS, key = "#id")
+    public Boolean patchDepartment(Long id, Department department, Long expectedVersion) {
+        return OptimisticRetry.write(expectedVersion, () -> {
+            Optional<Department> existingDepartment = departmentRepository.findById(id);
+            if (existingDepartment.isPresent()) {
+                if (expectedVersion != null && !expectedVersion.equals(existingDepartment.get().getVersion())) {
+                    throw new PreconditionFailedException("The department was modified since the version given in If-Match");
+                }
+                existingDepartment.get().patch(department);
+                departmentRepository.save(existingDepartment.get());
+                changeCounters.changed(ResourceType.DEPARTMENTS);
+                return true;
+            } else {
+                return false;
+            }
+        });
     }
 
+    @CacheEvict(cacheNames = DEPARTMENTS, key = "#id")
+    @Transactional
     public Boolean deleteDepartment(Long id) {
-        Optional<Department> department = departmentRepository.findById(id);
-        if (department.isPresent()) {
-            departmentRepository.deleteById(id);
-            return true;
-        } else {
+        if (departmentRepository.removeById(id) == 0) {
             return false;
         }
+        changeCounters.changed(ResourceType.DEPARTMENTS);
+        return true;
     }
 
     public Boolean checkIfAnyDepartmentHasGivenLocation(Long id) {
-        List<Department> existingDepartments = departmentRepository.findAll();
-        for(Department department:existingDepartments) {
-            if (Objects.equals(department.getLocation().getId(), id)) {
-                return false;
-            }
-        }
-        return true;
+        return !departmentRepository.existsByLocationId(id);
     }
 }
@@ -1,34 +1,99 @@
 package com.example.medrest.service;
 
+import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.exception.PreconditionFailedException;
+import com.example.medrest.export.RowStreams;
+import com.example.medrest.export.RowWriter;
+import com.example.medrest.filter.Filters;
+import com.example.medrest.mapper.DoctorMapper;
 import com.example.medrest.model.Doctor;
+import com.example.medrest.pagination.KeysetRequest;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.pagination.Pagination;
+import com.example.medrest.projection.Fields;
 import com.example.medrest.repository.DoctorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.MultiValueMap;
 
+import java.io.IOException;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.example.medrest.configuration.CacheConfiguration.DOCTORS;
 
 @Service
 public class DoctorService {
+    private static final Set<String> KEYSET_PROPERTIES = Set.of("name");
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("name", "salary");
+
     public final DoctorRepository doctorRepository;
     public final PatientService patientService;
     public final SpecialisationService specialisationService;
     public final DepartmentService departmentService;
+    private final ChangeCounters changeCounters;
+    private final RowStreams rowStreams;
 
     public DoctorService(@Autowired DoctorRepository doctorRepository,
                          @Autowired PatientService patientService,
                          @Autowired SpecialisationService specialisationService,
-                         @Autowired DepartmentService departmentService) {
+                         @Autowired DepartmentService departmentService,
+                         @Autowired ChangeCounters changeCounters,
+                         @Autowired RowStreams rowStreams) {
         this.doctorRepository = doctorRepository;
         this.patientService = patientService;
         this.specialisationService = specialisationService;
         this.departmentService = departmentService;
+        this.changeCounters = changeCounters;
+        this.rowStreams = rowStreams;
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<DoctorDto> getDoctorsPage(int page, int size, String sort) {
+        Slice<DoctorDto> doctors = doctorRepository.findDtoBy(Pagination.pageRequest(page, size, sort, SORTABLE_PROPERTIES));
+        if (doctors.hasContent()) {
+            return doctors;
+        } else {
+            throw new NotFoundException("No doctors were found!");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetSlice<DoctorDto> getDoctorsByCursor(String cursor, int size, String sort) {
+        KeysetSlice<DoctorDto> doctors = doctorRepository.findKeysetSlice(KeysetRequest.of(sort, size, cursor, KEYSET_PROPERTIES),
+                DoctorMapper.DTO_PROPERTIES, DoctorMapper::tupleToDoctorDto);
+        if (!doctors.isEmpty()) {
+            return doctors;
+        } else {
+            throw new NotFoundException("No doctors were found!");
+        }
     }
 
-    public List<Doctor> getAllDoctors() {
-        List<Doctor> doctors = doctorRepository.findAll();
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getDoctorsPage(int page, int size, String sort, List<String> fields, MultiValueMap<String, String> filters) {
+        Slice<Map<String, Object>> doctors = doctorRepository.findSlice(Pagination.pageRequest(page, size, sort, SORTABLE_PROPERTIES),
+                Filters.parse(filters, DoctorMapper.DTO_PROPERTIES, SORTABLE_PROPERTIES), fields, tuple -> Fields.select(tuple, fields));
+        if (doctors.hasContent()) {
+            return doctors;
+        } else {
+            throw new NotFoundException("No doctors were found!");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetSlice<Map<String, Object>> getDoctorsByCursor(String cursor, int size, String sort, List<String> fields, MultiValueMap<String, String> filters) {
+        KeysetSlice<Map<String, Object>> doctors = doctorRepository.findKeysetSlice(KeysetRequest.of(sort, size, cursor, KEYSET_PROPERTIES),
+                Filters.parse(filters, DoctorMapper.DTO_PROPERTIES, SORTABLE_PROPERTIES), fields, tuple -> Fields.select(tuple, fields));
         if (!doctors.isEmpty()) {
             return doctors;
         } else {
@@ -36,6 +101,13 @@ public class DoctorService {
         }
     }
 
+    @Transactional(readOnly = true)
+    public void exportDoctors(RowWriter<DoctorDto> rowWriter) throws IOException {
+        try (Stream<DoctorDto> doctors = rowStreams.stream(DoctorRepository.EXPORT_QUERY, DoctorDto.class)) {
+            rowWriter.write(doctors);
+        }
+    }
+
     public Doctor getDoctorById(Long id) {
         Optional<Doctor> doctor = doctorRepository.findById(id);
         if (doctor.isPresent()) {
@@ -45,63 +117,73 @@ public class DoctorService {
         }
     }
 
+    @Cacheable(cacheNames = DOCTORS, key = "#id")
+    @Transactional(readOnly = true)
+    public DoctorDto getDoctorDtoById(Long id) {
+        Optional<DoctorDto> doctor = doctorRepository.findDtoById(id);
+        if (doctor.isPresent()) {
+            return doctor.get();
+        } else {
+            throw new NotFoundException("No doctor with the given id was found!");
+        }
+    }
+
     public Doctor addDoctor(Doctor doctor) {
         if (doctor != null) {
-            return doctorRepository.save(doctor);
+            Doctor savedDoctor = doctorRepository.save(doctor);
+            changeCounters.changed(ResourceType.DOCTORS);
+            return savedDoctor;
         } else {
             throw new RuntimeException("The given doctor doesn't contain any data");
         }
     }
 
-    public Boolean updateDoctor(Long id, Doctor doctor) {
-        Optional<Doctor> existingDoctor = doctorRepository.findById(id);
-        if (existingDoctor.isPresent()) {
-            doctor.setId(id);
-            doctorRepository.save(doctor);
-            return true;
-        } else {
+    @CacheEvict(cacheNames = DOCTORS, key = "#id")
+    @Transactional
+    public Boolean updateDoctor(Long id, Doctor doctor, Long expectedVersion) {
+        if (doctorRepository.updateById(id, doctor, expectedVersion) == 0) {
+            if (expectedVersion != null && doctorRepository.existsById(id)) {
+                throw new PreconditionFailedException("The doctor was modified since the version given in If-Match");
+            }
             return false;
         }
+        changeCounters.changed(ResourceType.DOCTORS);
+        return true;
     }
 
-    public Boolean patchDoctor(Long id, Doctor doctor) {
-        Optional<Doctor> existingDoctor = doctorRepository.findById(id);
-        if (existingDoctor.isPresent()) {
-            existingDoctor.get().patch(doctor);
-            doctorRepository.save(existingDoctor.get());
-            return true;
-        } else {
-            return false;
-        }
+    @CacheEvict(cacheNames = DOCTORS, key = "#id")
+    public Boolean patchDoctor(Long id, Doctor doctor, Long expectedVersion) {
+        return OptimisticRetry.write(expectedVersion, () -> {
+            Optional<Doctor> existingDoctor = doctorRepository.findById(id);
+            if (existingDoctor.isPresent()) {
+                if (expectedVersion != null && !expectedVersion.equals(existingDoctor.get().getVersion())) {
+                    throw new PreconditionFailedException("The doctor was modified since the version given in If-Match");
+                }
+                existingDoctor.get().patch(doctor);
+                doctorRepository.save(existingDoctor.get());
+                changeCounters.changed(ResourceType.DOCTORS);
+                return true;
+            } else {
+                return false;
+            }
+        });
     }
 
+    @CacheEvict(cacheNames = DOCTORS, key = "#id")
+    @Transactional
     public Boolean deleteDoctor(Long id) {
-        Optional<Doctor> doctor = doctorRepository.findById(id);
-        if (doctor.isPresent()) {
-            doctorRepository.deleteById(id);
-            return true;
-        } else {
+        if (doctorRepository.removeById(id) == 0) {
             return false;
         }
+        changeCounters.changed(ResourceType.DOCTORS);
+        return true;
     }
 
     public Boolean checkIfAnyDoctorIsAssignedToGivenDepartment(Long id) {
-        List<Doctor> existingDoctors = doctorRepository.findAll();
-        for(Doctor doctor:existingDoctors) {
-            if (Objects.equals(doctor.getDepartment().getId(), id)) {
-                return false;
-            }
-        }
-        return true;
+        return !doctorRepository.existsByDepartmentId(id);
     }
 
     public Boolean checkIfAnyDoctorHasSetGivenSpecialisation(Long id) {
-        List<Doctor> existingDoctors = doctorRepository.findAll();
-        for(Doctor doctor:existingDoctors) {
-            if (Objects.equals(doctor.getSpecialization().getId(), id)) {
-                return false;
-            }
-        }
-        return true;
+        return !doctorRepository.existsBySpecializationId(id);
     }
 }
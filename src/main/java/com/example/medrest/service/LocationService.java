@@ -1,24 +1,90 @@
 package com.example.medrest.service;
 
+import com.example.medrest.dto.LocationDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.exception.PreconditionFailedException;
+import com.example.medrest.export.RowStreams;
+import com.example.medrest.export.RowWriter;
+import com.example.medrest.filter.Filters;
+import com.example.medrest.mapper.LocationMapper;
 import com.example.medrest.model.Location;
+import com.example.medrest.pagination.KeysetRequest;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.pagination.Pagination;
+import com.example.medrest.projection.Fields;
 import com.example.medrest.repository.LocationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.MultiValueMap;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.example.medrest.configuration.CacheConfiguration.LOCATIONS;
 
 @Service
 public class LocationService {
+    private static final Set<String> KEYSET_PROPERTIES = Set.of("city", "street");
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("city", "street", "specialNumber");
+
     public final LocationRepository locationRepository;
+    private final ChangeCounters changeCounters;
+    private final RowStreams rowStreams;
 
-    public LocationService(@Autowired LocationRepository locationRepository) {
+    public LocationService(@Autowired LocationRepository locationRepository,
+                           @Autowired ChangeCounters changeCounters,
+                           @Autowired RowStreams rowStreams) {
         this.locationRepository = locationRepository;
+        this.changeCounters = changeCounters;
+        this.rowStreams = rowStreams;
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<LocationDto> getLocationsPage(int page, int size, String sort) {
+        Slice<LocationDto> locations = locationRepository.findDtoBy(Pagination.pageRequest(page, size, sort, SORTABLE_PROPERTIES));
+        if (locations.hasContent()) {
+            return locations;
+        } else {
+            throw new NotFoundException("No locations were found!");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetSlice<LocationDto> getLocationsByCursor(String cursor, int size, String sort) {
+        KeysetSlice<LocationDto> locations = locationRepository.findKeysetSlice(KeysetRequest.of(sort, size, cursor, KEYSET_PROPERTIES),
+                LocationMapper.DTO_PROPERTIES, LocationMapper::tupleToLocationDto);
+        if (!locations.isEmpty()) {
+            return locations;
+        } else {
+            throw new NotFoundException("No locations were found!");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getLocationsPage(int page, int size, String sort, List<String> fields, MultiValueMap<String, String> filters) {
+        Slice<Map<String, Object>> locations = locationRepository.findSlice(Pagination.pageRequest(page, size, sort, SORTABLE_PROPERTIES),
+                Filters.parse(filters, LocationMapper.DTO_PROPERTIES, SORTABLE_PROPERTIES), fields, tuple -> Fields.select(tuple, fields));
+        if (locations.hasContent()) {
+            return locations;
+        } else {
+            throw new NotFoundException("No locations were found!");
+        }
     }
 
-    public List<Location> getAllLocations() {
-        List<Location> locations = locationRepository.findAll();
+    @Transactional(readOnly = true)
+    public KeysetSlice<Map<String, Object>> getLocationsByCursor(String cursor, int size, String sort, List<String> fields, MultiValueMap<String, String> filters) {
+        KeysetSlice<Map<String, Object>> locations = locationRepository.findKeysetSlice(KeysetRequest.of(sort, size, cursor, KEYSET_PROPERTIES),
+                Filters.parse(filters, LocationMapper.DTO_PROPERTIES, SORTABLE_PROPERTIES), fields, tuple -> Fields.select(tuple, fields));
         if (!locations.isEmpty()) {
             return locations;
         } else {
@@ -26,6 +92,13 @@ public class LocationService {
         }
     }
 
+    @Transactional(readOnly = true)
+    public void exportLocations(RowWriter<LocationDto> rowWriter) throws IOException {
+        try (Stream<LocationDto> locations = rowStreams.stream(LocationRepository.EXPORT_QUERY, LocationDto.class)) {
+            rowWriter.write(locations);
+        }
+    }
+
     public Location getLocationById(Long id) {
         Optional<Location> location = locationRepository.findById(id);
         if (location.isPresent()) {
@@ -35,43 +108,65 @@ public class LocationService {
         }
     }
 
+    @Cacheable(cacheNames = LOCATIONS, key = "#id")
+    @Transactional(readOnly = true)
+    public LocationDto getLocationDtoById(Long id) {
+        Optional<LocationDto> location = locationRepository.findDtoById(id);
+        if (location.isPresent()) {
+            return location.get();
+        } else {
+            throw new NotFoundException("No location with the given id was found!");
+        }
+    }
+
     public Location addLocation(Location location) {
         if (location != null) {
-            return locationRepository.save(location);
+            Location savedLocation = locationRepository.save(location);
+            changeCounters.changed(ResourceType.LOCATIONS);
+            return savedLocation;
         } else {
             throw new RuntimeException("The given location doesn't contain any data");
         }
     }
 
-    public Boolean updateLocation(Long id, Location location) {
-        Optional<Location> existingLocation = locationRepository.findById(id);
-        if (existingLocation.isPresent()) {
-            location.setId(id);
-            locationRepository.save(location);
-            return true;
-        } else {
+    @CacheEvict(cacheNames = LOCATIONS, key = "#id")
+    @Transactional
+    public Boolean updateLocation(Long id, Location location, Long expectedVersion) {
+        if (locationRepository.updateById(id, location, expectedVersion) == 0) {
+            if (expectedVersion != null && locationRepository.existsById(id)) {
+                throw new PreconditionFailedException("The location was modified since the version given in If-Match");
+            }
             return false;
         }
+        changeCounters.changed(ResourceType.LOCATIONS);
+        return true;
     }
 
-    public Boolean patchLocation(Long id, Location location) {
-        Optional<Location> existingLocation = locationRepository.findById(id);
-        if (existingLocation.isPresent()) {
-            existingLocation.get().patch(location);
-            locationRepository.save(existingLocation.get());
-            return true;
-        } else {
-            return false;
-        }
+    @CacheEvict(cacheNames = LOCATIONS, key = "#id")
+    public Boolean patchLocation(Long id, Location location, Long expectedVersion) {
+        return OptimisticRetry.write(expectedVersion, () -> {
+            Optional<Location> existingLocation = locationRepository.findById(id);
+            if (existingLocation.isPresent()) {
+                if (expectedVersion != null && !expectedVersion.equals(existingLocation.get().getVersion())) {
+                    throw new PreconditionFailedException("The location was modified since the version given in If-Match");
+                }
+                existingLocation.get().patch(location);
+                locationRepository.save(existingLocation.get());
+                changeCounters.changed(ResourceType.LOCATIONS);
+                return true;
+            } else {
+                return false;
+            }
+        });
     }
 
+    @CacheEvict(cacheNames = LOCATIONS, key = "#id")
+    @Transactional
     public Boolean deleteLocation(Long id) {
-        Optional<Location> location = locationRepository.findById(id);
-        if (location.isPresent()) {
-            locationRepository.deleteById(id);
-            return true;
-        } else {
+        if (locationRepository.removeById(id) == 0) {
             return false;
         }
+        changeCounters.changed(ResourceType.LOCATIONS);
+        return true;
     }
 }
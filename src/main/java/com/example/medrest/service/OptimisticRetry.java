@@ -0,0 +1,33 @@
+package com.example.medrest.service;
+
+import com.example.medrest.exception.PreconditionFailedException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs the read-modify-write of a versioned entity. A write made against an expected version (If-Match) is tried
+ * once and a concurrent write getting in between fails its precondition; an unconditional one starts over from a
+ * fresh read, at most {@link #MAX_ATTEMPTS} times before the conflict is given up on.
+ */
+final class OptimisticRetry {
+    static final int MAX_ATTEMPTS = 3;
+
+    private OptimisticRetry() {
+    }
+
+    static <T> T write(Long expectedVersion, Supplier<T> readModifyWrite) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return readModifyWrite.get();
+            } catch (OptimisticLockingFailureException exception) {
+                if (expectedVersion != null) {
+                    throw new PreconditionFailedException("The resource was modified since the version given in If-Match");
+                }
+                if (attempt == MAX_ATTEMPTS) {
+                    throw exception;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.medrest.service;
+
+import com.example.medrest.dto.ImportReportDto;
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
+import com.example.medrest.exception.BadRequestException;
+import com.example.medrest.mapper.PatientMapper;
+import com.example.medrest.model.Patient;
+import com.example.medrest.search.PatientSearchIndex;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports patients in batches: every batch is persisted in its own transaction, sent as one JDBC batch and then
+ * detached, so the memory used does not depend on the number of rows. Invalid rows are reported and skipped. A
+ * batch which the database rejects is written again one row per transaction, so that only the rows the database
+ * refuses are reported, and the import continues with the next batch.
+ */
+@Service
+public class PatientImportService {
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ChangeCounters changeCounters;
+    private final PatientSearchIndex patientSearchIndex;
+    private final int batchSize;
+
+    public PatientImportService(@Autowired EntityManager entityManager,
+                                @Autowired PlatformTransactionManager transactionManager,
+                                @Autowired Validator validator,
+                                @Autowired ChangeCounters changeCounters,
+                                @Autowired PatientSearchIndex patientSearchIndex,
+                                @Value("${medrest.import.batch-size:500}") int batchSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.changeCounters = changeCounters;
+        this.patientSearchIndex = patientSearchIndex;
+        this.batchSize = batchSize;
+    }
+
+    public ImportReportDto importPatients(Iterator<PatientDto> rows) {
+        ImportReportDto report = new ImportReportDto();
+        List<PatientDto> batch = new ArrayList<>(batchSize);
+        List<Long> batchRows = new ArrayList<>(batchSize);
+        long row = 0;
+        while (rows.hasNext()) {
+            row++;
+            PatientDto patientDto;
+            try {
+                patientDto = rows.next();
+            } catch (BadRequestException exception) {
+                report.addFailure(row, exception.getMessage());
+                continue;
+            }
+            Set<ConstraintViolation<PatientDto>> violations = validator.validate(patientDto);
+            if (!violations.isEmpty()) {
+                report.addFailure(row, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                continue;
+            }
+            batch.add(patientDto);
+            batchRows.add(row);
+            if (batch.size() == batchSize) {
+                write(batch, batchRows, report);
+            }
+        }
+        write(batch, batchRows, report);
+        return report;
+    }
+
+    private void write(List<PatientDto> batch, List<Long> batchRows, ImportReportDto report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            persist(batch);
+            report.addImported(batch.size());
+        } catch (DataAccessException | TransactionException | PersistenceException batchException) {
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    persist(List.of(batch.get(i)));
+                    report.addImported(1);
+                } catch (DataAccessException | TransactionException | PersistenceException rowException) {
+                    report.addFailure(batchRows.get(i), "The row was rejected by the database");
+                }
+            }
+        }
+        batch.clear();
+        batchRows.clear();
+    }
+
+    private void persist(List<PatientDto> rows) {
+        // new entities every time, the ones of a rolled back attempt already hold the ids it was given
+        List<Patient> patients = rows.stream().map(PatientMapper::patientDtoToPatient).collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            patients.forEach(entityManager::persist);
+            entityManager.flush();
+            entityManager.clear();
+        });
+        changeCounters.changed(ResourceType.PATIENTS);
+        patients.forEach(patient -> patientSearchIndex.index(PatientMapper.patientToPatientSearchDto(patient.getId(), patient)));
+    }
+}
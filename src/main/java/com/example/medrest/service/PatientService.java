@@ -1,32 +1,126 @@
 package com.example.medrest.service;
 
+import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.dto.PatientSearchDto;
+import com.example.medrest.dto.PrescriptionDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
+import com.example.medrest.exception.BadRequestException;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.exception.PreconditionFailedException;
+import com.example.medrest.export.RowStreams;
+import com.example.medrest.export.RowWriter;
+import com.example.medrest.filter.Filters;
+import com.example.medrest.mapper.PatientMapper;
 import com.example.medrest.model.Patient;
 import com.example.medrest.model.Prescription;
+import com.example.medrest.pagination.KeysetRequest;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.pagination.Pagination;
+import com.example.medrest.projection.Fields;
 import com.example.medrest.repository.PatientRepository;
 import com.example.medrest.repository.PrescriptionRepository;
+import com.example.medrest.search.PatientSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.MultiValueMap;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.example.medrest.configuration.CacheConfiguration.PATIENTS;
 
 @Service
 public class PatientService {
+    private static final Set<String> KEYSET_PROPERTIES = Set.of("firstName", "lastName", "phoneNumber");
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("firstName", "lastName", "phoneNumber", "emailAddress");
+
     public final PatientRepository patientRepository;
     public final PrescriptionRepository prescriptionRepository;
+    private final ChangeCounters changeCounters;
+    private final PatientSearchIndex patientSearchIndex;
+    private final RowStreams rowStreams;
 
-    public PatientService(@Autowired PatientRepository patientRepository, @Autowired PrescriptionRepository prescriptionRepository) {
+    public PatientService(@Autowired PatientRepository patientRepository,
+                          @Autowired PrescriptionRepository prescriptionRepository,
+                          @Autowired ChangeCounters changeCounters,
+                          @Autowired PatientSearchIndex patientSearchIndex,
+                          @Autowired RowStreams rowStreams) {
         this.patientRepository = patientRepository;
         this.prescriptionRepository = prescriptionRepository;
+        this.changeCounters = changeCounters;
+        this.patientSearchIndex = patientSearchIndex;
+        this.rowStreams = rowStreams;
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<PatientDto> getPatientsPage(int page, int size, String sort) {
+        Slice<PatientDto> patients = patientRepository.findDtoBy(Pagination.pageRequest(page, size, sort, SORTABLE_PROPERTIES));
+        if (patients.hasContent()) {
+            return patients;
+        } else {
+            throw new NotFoundException("No patients found!");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetSlice<PatientDto> getPatientsByCursor(String cursor, int size, String sort) {
+        KeysetSlice<PatientDto> patients = patientRepository.findKeysetSlice(KeysetRequest.of(sort, size, cursor, KEYSET_PROPERTIES),
+                PatientMapper.DTO_PROPERTIES, PatientMapper::tupleToPatientDto);
+        if (!patients.isEmpty()) {
+            return patients;
+        } else {
+            throw new NotFoundException("No patients found!");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getPatientsPage(int page, int size, String sort, List<String> fields, MultiValueMap<String, String> filters) {
+        Slice<Map<String, Object>> patients = patientRepository.findSlice(Pagination.pageRequest(page, size, sort, SORTABLE_PROPERTIES),
+                Filters.parse(filters, PatientMapper.DTO_PROPERTIES, SORTABLE_PROPERTIES), fields, tuple -> Fields.select(tuple, fields));
+        if (patients.hasContent()) {
+            return patients;
+        } else {
+            throw new NotFoundException("No patients found!");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetSlice<Map<String, Object>> getPatientsByCursor(String cursor, int size, String sort, List<String> fields, MultiValueMap<String, String> filters) {
+        KeysetSlice<Map<String, Object>> patients = patientRepository.findKeysetSlice(KeysetRequest.of(sort, size, cursor, KEYSET_PROPERTIES),
+                Filters.parse(filters, PatientMapper.DTO_PROPERTIES, SORTABLE_PROPERTIES), fields, tuple -> Fields.select(tuple, fields));
+        if (!patients.isEmpty()) {
+            return patients;
+        } else {
+            throw new NotFoundException("No patients found!");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportPatients(RowWriter<PatientDto> rowWriter) throws IOException {
+        try (Stream<PatientDto> patients = rowStreams.stream(PatientRepository.EXPORT_QUERY, PatientDto.class)) {
+            rowWriter.write(patients);
+        }
     }
 
-    public List<Patient> getAllPatients() {
-        List<Patient> patients = patientRepository.findAll();
-        if(!patients.isEmpty()) {
+    public List<PatientSearchDto> searchPatients(String query, int size) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("The search query must not be empty!");
+        }
+        List<PatientSearchDto> patients = patientSearchIndex.search(query, Pagination.checkSize(size));
+        if (!patients.isEmpty()) {
             return patients;
         } else {
             throw new NotFoundException("No patients found!");
@@ -42,44 +136,70 @@ public class PatientService {
         }
     }
 
+    @Cacheable(cacheNames = PATIENTS, key = "#id")
+    @Transactional(readOnly = true)
+    public PatientDto getPatientDtoById(Long id) {
+        Optional<PatientDto> patient = patientRepository.findDtoById(id);
+        if (patient.isPresent()) {
+            return patient.get();
+        } else {
+            throw new NotFoundException("No patient with the given id was found!");
+        }
+    }
+
     public Patient addPatient(Patient patient) {
         if (patient != null) {
-            return patientRepository.save(patient);
+            Patient savedPatient = patientRepository.save(patient);
+            changeCounters.changed(ResourceType.PATIENTS);
+            patientSearchIndex.index(PatientMapper.patientToPatientSearchDto(savedPatient.getId(), savedPatient));
+            return savedPatient;
         } else {
             throw new RuntimeException("The given patient doesn't contain any data!");
         }
     }
 
-    public Boolean updatePatient(Long id, Patient patient) {
-        Optional<Patient> existingPatient = patientRepository.findById(id);
-        if (existingPatient.isPresent()) {
-            patient.setId(id);
-            patientRepository.save(patient);
-            return true;
-        } else {
+    @CacheEvict(cacheNames = PATIENTS, key = "#id")
+    @Transactional
+    public Boolean updatePatient(Long id, Patient patient, Long expectedVersion) {
+        if (patientRepository.updateById(id, patient, expectedVersion) == 0) {
+            if (expectedVersion != null && patientRepository.existsById(id)) {
+                throw new PreconditionFailedException("The patient was modified since the version given in If-Match");
+            }
             return false;
         }
+        changeCounters.changed(ResourceType.PATIENTS);
+        patientSearchIndex.index(PatientMapper.patientToPatientSearchDto(id, patient));
+        return true;
     }
 
-    public Boolean patchPatient(Long id, Patient patient) {
-        Optional<Patient> existingPatient = patientRepository.findById(id);
-        if (existingPatient.isPresent()) {
-            existingPatient.get().patch(patient);
-            patientRepository.save(existingPatient.get());
-            return true;
-        } else {
-            return false;
-        }
+    @CacheEvict(cacheNames = PATIENTS, key = "#id")
+    public Boolean patchPatient(Long id, Patient patient, Long expectedVersion) {
+        return OptimisticRetry.write(expectedVersion, () -> {
+            Optional<Patient> existingPatient = patientRepository.findById(id);
+            if (existingPatient.isPresent()) {
+                if (expectedVersion != null && !expectedVersion.equals(existingPatient.get().getVersion())) {
+                    throw new PreconditionFailedException("The patient was modified since the version given in If-Match");
+                }
+                existingPatient.get().patch(patient);
+                patientRepository.save(existingPatient.get());
+                changeCounters.changed(ResourceType.PATIENTS);
+                patientSearchIndex.index(PatientMapper.patientToPatientSearchDto(id, existingPatient.get()));
+                return true;
+            } else {
+                return false;
+            }
+        });
     }
 
+    @CacheEvict(cacheNames = PATIENTS, key = "#id")
+    @Transactional
     public Boolean deletePatient(Long id) {
-        Optional<Patient> patient = patientRepository.findById(id);
-        if (patient.isPresent()) {
-            patientRepository.deleteById(id);
-            return true;
-        } else {
+        if (patientRepository.removeById(id) == 0) {
             return false;
         }
+        changeCounters.changed(ResourceType.PATIENTS);
+        patientSearchIndex.remove(id);
+        return true;
     }
 
     @Transactional
@@ -90,6 +210,7 @@ public class PatientService {
             if (patient.isPresent()) {
                 patient.get().addPrescription(prescription.get());
                 patientRepository.save(patient.get());
+                changeCounters.changed(ResourceType.PATIENTS);
             } else {
                 throw new NotFoundException("The patient with the given id was not found!\n");
             }
@@ -98,6 +219,27 @@ public class PatientService {
         }
     }
 
+    @Transactional
+    public int addPrescriptionsToPatient(Set<Long> prescriptionIds, Long patientId) {
+        if (prescriptionIds.isEmpty() || prescriptionIds.stream().anyMatch(Objects::isNull)) {
+            throw new BadRequestException("No valid prescription ids were given!");
+        }
+        if (!patientRepository.existsById(patientId)) {
+            throw new NotFoundException("The patient with the given id was not found!\n");
+        }
+        List<Long> existingIds = prescriptionRepository.findExistingIds(prescriptionIds);
+        if (existingIds.size() != prescriptionIds.size()) {
+            Set<Long> missingIds = new TreeSet<>(prescriptionIds);
+            existingIds.forEach(missingIds::remove);
+            throw new NotFoundException("The prescriptions with the ids " + missingIds + " were not found!\n");
+        }
+        int inserted = patientRepository.insertMissingPrescriptionLinks(patientId, prescriptionIds);
+        if (inserted > 0) {
+            changeCounters.changed(ResourceType.PATIENTS);
+        }
+        return inserted;
+    }
+
     @Transactional
     public void removePrescriptionFromPatient(Long prescriptionId, Long patientId) {
         Optional<Prescription> prescription = prescriptionRepository.findById(prescriptionId);
@@ -106,6 +248,7 @@ public class PatientService {
             if (patient.isPresent()) {
                 patient.get().removePrescriptions(prescription.get());
                 patientRepository.save(patient.get());
+                changeCounters.changed(ResourceType.PATIENTS);
             } else {
                 throw new NotFoundException("The patient with the given id was not found!\n");
             }
@@ -114,13 +257,23 @@ public class PatientService {
         }
     }
 
-    @Transactional
-    public List<Prescription> getPatientPrescriptionsList(Long patientId) {
-         Optional<Patient> existingPatient = patientRepository.findById(patientId);
-         if (existingPatient.isPresent()) {
-             return new ArrayList<>(existingPatient.get().getPrescriptions());
-         } else {
-             throw new NotFoundException("The patient with the given id does not exist!\n");
-         }
+    @Transactional(readOnly = true)
+    public List<PrescriptionDto> getPatientPrescriptionsList(Long patientId) {
+        List<PrescriptionDto> prescriptions = patientRepository.findPrescriptionDtosByPatientId(patientId);
+        if (!prescriptions.isEmpty() || patientRepository.existsById(patientId)) {
+            return prescriptions;
+        } else {
+            throw new NotFoundException("The patient with the given id does not exist!\n");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<DoctorDto> getPatientDoctorsList(Long patientId) {
+        List<DoctorDto> doctors = patientRepository.findDoctorDtosByPatientId(patientId);
+        if (!doctors.isEmpty() || patientRepository.existsById(patientId)) {
+            return doctors;
+        } else {
+            throw new NotFoundException("The patient with the given id does not exist!\n");
+        }
     }
 }
@@ -1,23 +1,89 @@
 package com.example.medrest.service;
 
+import com.example.medrest.dto.PrescriptionDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.exception.PreconditionFailedException;
+import com.example.medrest.export.RowStreams;
+import com.example.medrest.export.RowWriter;
+import com.example.medrest.filter.Filters;
+import com.example.medrest.mapper.PrescriptionMapper;
 import com.example.medrest.model.Prescription;
+import com.example.medrest.pagination.KeysetRequest;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.pagination.Pagination;
+import com.example.medrest.projection.Fields;
 import com.example.medrest.repository.PrescriptionRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.MultiValueMap;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.example.medrest.configuration.CacheConfiguration.PRESCRIPTIONS;
 
 @Service
 public class PrescriptionService {
+    private static final Set<String> KEYSET_PROPERTIES = Set.of("medicamentName", "amountToTake");
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("medicamentName", "price", "amountToTake");
+
     public final PrescriptionRepository prescriptionRepository;
+    private final ChangeCounters changeCounters;
+    private final RowStreams rowStreams;
 
-    public PrescriptionService(PrescriptionRepository prescriptionRepository) {
+    public PrescriptionService(PrescriptionRepository prescriptionRepository,
+                               ChangeCounters changeCounters,
+                               RowStreams rowStreams) {
         this.prescriptionRepository = prescriptionRepository;
+        this.changeCounters = changeCounters;
+        this.rowStreams = rowStreams;
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<PrescriptionDto> getPrescriptionsPage(int page, int size, String sort) {
+        Slice<PrescriptionDto> prescriptions = prescriptionRepository.findDtoBy(Pagination.pageRequest(page, size, sort, SORTABLE_PROPERTIES));
+        if (prescriptions.hasContent()) {
+            return prescriptions;
+        } else {
+            throw new NotFoundException("No prescription was found in the database");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetSlice<PrescriptionDto> getPrescriptionsByCursor(String cursor, int size, String sort) {
+        KeysetSlice<PrescriptionDto> prescriptions = prescriptionRepository.findKeysetSlice(KeysetRequest.of(sort, size, cursor, KEYSET_PROPERTIES),
+                PrescriptionMapper.DTO_PROPERTIES, PrescriptionMapper::tupleToPrescriptionDto);
+        if (!prescriptions.isEmpty()) {
+            return prescriptions;
+        } else {
+            throw new NotFoundException("No prescription was found in the database");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getPrescriptionsPage(int page, int size, String sort, List<String> fields, MultiValueMap<String, String> filters) {
+        Slice<Map<String, Object>> prescriptions = prescriptionRepository.findSlice(Pagination.pageRequest(page, size, sort, SORTABLE_PROPERTIES),
+                Filters.parse(filters, PrescriptionMapper.DTO_PROPERTIES, SORTABLE_PROPERTIES), fields, tuple -> Fields.select(tuple, fields));
+        if (prescriptions.hasContent()) {
+            return prescriptions;
+        } else {
+            throw new NotFoundException("No prescription was found in the database");
+        }
     }
 
-    public List<Prescription> getAllPrescriptions() {
-        List<Prescription> prescriptions = prescriptionRepository.findAll();
+    @Transactional(readOnly = true)
+    public KeysetSlice<Map<String, Object>> getPrescriptionsByCursor(String cursor, int size, String sort, List<String> fields, MultiValueMap<String, String> filters) {
+        KeysetSlice<Map<String, Object>> prescriptions = prescriptionRepository.findKeysetSlice(KeysetRequest.of(sort, size, cursor, KEYSET_PROPERTIES),
+                Filters.parse(filters, PrescriptionMapper.DTO_PROPERTIES, SORTABLE_PROPERTIES), fields, tuple -> Fields.select(tuple, fields));
         if (!prescriptions.isEmpty()) {
             return prescriptions;
         } else {
@@ -25,6 +91,13 @@ public class PrescriptionService {
         }
     }
 
+    @Transactional(readOnly = true)
+    public void exportPrescriptions(RowWriter<PrescriptionDto> rowWriter) throws IOException {
+        try (Stream<PrescriptionDto> prescriptions = rowStreams.stream(PrescriptionRepository.EXPORT_QUERY, PrescriptionDto.class)) {
+            rowWriter.write(prescriptions);
+        }
+    }
+
     public Prescription getPrescriptionById(Long id) {
         Optional<Prescription> prescription = prescriptionRepository.findById(id);
         if (prescription.isPresent()) {
@@ -34,43 +107,65 @@ public class PrescriptionService {
         }
     }
 
+    @Cacheable(cacheNames = PRESCRIPTIONS, key = "#id")
+    @Transactional(readOnly = true)
+    public PrescriptionDto getPrescriptionDtoById(Long id) {
+        Optional<PrescriptionDto> prescription = prescriptionRepository.findDtoById(id);
+        if (prescription.isPresent()) {
+            return prescription.get();
+        } else {
+            throw new NotFoundException("Prescription not found");
+        }
+    }
+
     public Prescription addPrescription(Prescription prescription) {
         if (prescription != null) {
-            return prescriptionRepository.save(prescription);
+            Prescription savedPrescription = prescriptionRepository.save(prescription);
+            changeCounters.changed(ResourceType.PRESCRIPTIONS);
+            return savedPrescription;
         } else {
             throw new RuntimeException("The given prescription is null");
         }
     }
 
-    public Boolean updatePrescription(Long id, Prescription prescription) {
-        Optional<Prescription> existingPrescription = prescriptionRepository.findById(id);
-        if (existingPrescription.isPresent()) {
-            prescription.setId(id);
-            prescriptionRepository.save(prescription);
-            return true;
-        } else {
+    @CacheEvict(cacheNames = PRESCRIPTIONS, key = "#id")
+    @Transactional
+    public Boolean updatePrescription(Long id, Prescription prescription, Long expectedVersion) {
+        if (prescriptionRepository.updateById(id, prescription, expectedVersion) == 0) {
+            if (expectedVersion != null && prescriptionRepository.existsById(id)) {
+                throw new PreconditionFailedException("The prescription was modified since the version given in If-Match");
+            }
             return false;
         }
+        changeCounters.changed(ResourceType.PRESCRIPTIONS);
+        return true;
     }
 
-    public Boolean patchPrescription(Long id, Prescription prescription) {
-        Optional<Prescription> existingPrescription = prescriptionRepository.findById(id);
-        if (existingPrescription.isPresent()) {
-            existingPrescription.get().patch(prescription);
-            prescriptionRepository.save(existingPrescription.get());
-            return true;
-        } else {
-            return false;
-        }
+    @CacheEvict(cacheNames = PRESCRIPTIONS, key = "#id")
+    public Boolean patchPrescription(Long id, Prescription prescription, Long expectedVersion) {
+        return OptimisticRetry.write(expectedVersion, () -> {
+            Optional<Prescription> existingPrescription = prescriptionRepository.findById(id);
+            if (existingPrescription.isPresent()) {
+                if (expectedVersion != null && !expectedVersion.equals(existingPrescription.get().getVersion())) {
+                    throw new PreconditionFailedException("The prescription was modified since the version given in If-Match");
+                }
+                existingPrescription.get().patch(prescription);
+                prescriptionRepository.save(existingPrescription.get());
+                changeCounters.changed(ResourceType.PRESCRIPTIONS);
+                return true;
+            } else {
+                return false;
+            }
+        });
     }
 
+    @CacheEvict(cacheNames = PRESCRIPTIONS, key = "#id")
+    @Transactional
     public Boolean deletePrescription(Long id) {
-        Optional<Prescription> prescription = prescriptionRepository.findById(id);
-        if (prescription.isPresent()) {
-            prescriptionRepository.deleteById(id);
-            return true;
-        } else {
+        if (prescriptionRepository.removeById(id) == 0) {
             return false;
         }
+        changeCounters.changed(ResourceType.PRESCRIPTIONS);
+        return true;
     }
 }
@@ -1,30 +1,103 @@
 package com.example.medrest.service;
 
+import com.example.medrest.dto.SpecialisationDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.exception.PreconditionFailedException;
+import com.example.medrest.export.RowStreams;
+import com.example.medrest.export.RowWriter;
+import com.example.medrest.filter.Filters;
+import com.example.medrest.mapper.SpecialisationMapper;
 import com.example.medrest.model.Specialisation;
+import com.example.medrest.pagination.KeysetRequest;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.pagination.Pagination;
+import com.example.medrest.projection.Fields;
 import com.example.medrest.repository.SpecialisationRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.MultiValueMap;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.example.medrest.configuration.CacheConfiguration.SPECIALISATIONS;
 
 @Service
 public class SpecialisationService {
+    private static final Set<String> KEYSET_PROPERTIES = Set.of("name");
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("name", "minSalary", "maxSalary");
+
     public final SpecialisationRepository specialisationRepository;
+    private final ChangeCounters changeCounters;
+    private final RowStreams rowStreams;
 
-    public SpecialisationService(SpecialisationRepository specialisationRepository) {
+    public SpecialisationService(SpecialisationRepository specialisationRepository,
+                                 ChangeCounters changeCounters,
+                                 RowStreams rowStreams) {
         this.specialisationRepository = specialisationRepository;
+        this.changeCounters = changeCounters;
+        this.rowStreams = rowStreams;
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<SpecialisationDto> getSpecialisationsPage(int page, int size, String sort) {
+        Slice<SpecialisationDto> specialisations = specialisationRepository.findDtoBy(Pagination.pageRequest(page, size, sort, SORTABLE_PROPERTIES));
+        if (specialisations.hasContent()) {
+            return specialisations;
+        } else {
+            throw new NotFoundException("No specialization was found in the database!");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetSlice<SpecialisationDto> getSpecialisationsByCursor(String cursor, int size, String sort) {
+        KeysetSlice<SpecialisationDto> specialisations = specialisationRepository.findKeysetSlice(KeysetRequest.of(sort, size, cursor, KEYSET_PROPERTIES),
+                SpecialisationMapper.DTO_PROPERTIES, SpecialisationMapper::tupleToSpecialisationDto);
+        if (!specialisations.isEmpty()) {
+            return specialisations;
+        } else {
+            throw new NotFoundException("No specialization was found in the database!");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getSpecialisationsPage(int page, int size, String sort, List<String> fields, MultiValueMap<String, String> filters) {
+        Slice<Map<String, Object>> specialisations = specialisationRepository.findSlice(Pagination.pageRequest(page, size, sort, SORTABLE_PROPERTIES),
+                Filters.parse(filters, SpecialisationMapper.DTO_PROPERTIES, SORTABLE_PROPERTIES), fields, tuple -> Fields.select(tuple, fields));
+        if (specialisations.hasContent()) {
+            return specialisations;
+        } else {
+            throw new NotFoundException("No specialization was found in the database!");
+        }
     }
 
-    public List<Specialisation> getSpecializations() {
-        List<Specialisation> specialisations = specialisationRepository.findAll();
-        if(!specialisations.isEmpty()) {
+    @Transactional(readOnly = true)
+    public KeysetSlice<Map<String, Object>> getSpecialisationsByCursor(String cursor, int size, String sort, List<String> fields, MultiValueMap<String, String> filters) {
+        KeysetSlice<Map<String, Object>> specialisations = specialisationRepository.findKeysetSlice(KeysetRequest.of(sort, size, cursor, KEYSET_PROPERTIES),
+                Filters.parse(filters, SpecialisationMapper.DTO_PROPERTIES, SORTABLE_PROPERTIES), fields, tuple -> Fields.select(tuple, fields));
+        if (!specialisations.isEmpty()) {
             return specialisations;
         } else {
             throw new NotFoundException("No specialization was found in the database!");
         }
     }
 
+    @Transactional(readOnly = true)
+    public void exportSpecialisations(RowWriter<SpecialisationDto> rowWriter) throws IOException {
+        try (Stream<SpecialisationDto> specialisations = rowStreams.stream(SpecialisationRepository.EXPORT_QUERY, SpecialisationDto.class)) {
+            rowWriter.write(specialisations);
+        }
+    }
+
     public Specialisation getSpecialisationById(Long id) {
         Optional<Specialisation> specialisation = specialisationRepository.findById(id);
         if(specialisation.isPresent()) {
@@ -34,43 +107,65 @@ public class SpecialisationService {
         }
     }
 
+    @Cacheable(cacheNames = SPECIALISATIONS, key = "#id")
+    @Transactional(readOnly = true)
+    public SpecialisationDto getSpecialisationDtoById(Long id) {
+        Optional<SpecialisationDto> specialisation = specialisationRepository.findDtoById(id);
+        if(specialisation.isPresent()) {
+            return specialisation.get();
+        } else {
+            throw new NotFoundException("Specialisation not found");
+        }
+    }
+
     public Specialisation addSpecialisation(Specialisation specialisation) {
         if (specialisation != null) {
-            return specialisationRepository.save(specialisation);
+            Specialisation savedSpecialisation = specialisationRepository.save(specialisation);
+            changeCounters.changed(ResourceType.SPECIALISATIONS);
+            return savedSpecialisation;
         } else {
             throw new RuntimeException("The given specialisation is null");
         }
     }
 
-    public Boolean updateSpecialisation(Long id, Specialisation specialisation) {
-        Optional<Specialisation> existingSpecialisation = specialisationRepository.findById(id);
-        if (existingSpecialisation.isPresent()) {
-            specialisation.setId(id);
-            specialisationRepository.save(specialisation);
-            return true;
-        } else {
+    @CacheEvict(cacheNames = SPECIALISATIONS, key = "#id")
+    @Transactional
+    public Boolean updateSpecialisation(Long id, Specialisation specialisation, Long expectedVersion) {
+        if (specialisationRepository.updateById(id, specialisation, expectedVersion) == 0) {
+            if (expectedVersion != null && specialisationRepository.existsById(id)) {
+                throw new PreconditionFailedException("The specialisation was modified since the version given in If-Match");
+            }
             return false;
         }
+        changeCounters.changed(ResourceType.SPECIALISATIONS);
+        return true;
     }
 
-    public Boolean patchSpecialisation(Long id, Specialisation specialisation) {
-        Optional<Specialisation> existingSpecialisation = specialisationRepository.findById(id);
-        if (existingSpecialisation.isPresent()) {
-            existingSpecialisation.get().patch(specialisation);
-            specialisationRepository.save(existingSpecialisation.get());
-            return true;
-        } else {
-            return false;
-        }
+    @CacheEvict(cacheNames = SPECIALISATIONS, key = "#id")
+    public Boolean patchSpecialisation(Long id, Specialisation specialisation, Long expectedVersion) {
+        return OptimisticRetry.write(expectedVersion, () -> {
+            Optional<Specialisation> existingSpecialisation = specialisationRepository.findById(id);
+            if (existingSpecialisation.isPresent()) {
+                if (expectedVersion != null && !expectedVersion.equals(existingSpecialisation.get().getVersion())) {
+                    throw new PreconditionFailedException("The specialisation was modified since the version given in If-Match");
+                }
+                existingSpecialisation.get().patch(specialisation);
+                specialisationRepository.save(existingSpecialisation.get());
+                changeCounters.changed(ResourceType.SPECIALISATIONS);
+                return true;
+            } else {
+                return false;
+            }
+        });
     }
 
+    @CacheEvict(cacheNames = SPECIALISATIONS, key = "#id")
+    @Transactional
     public Boolean deleteSpecialisation(Long id) {
-        Optional<Specialisation> specialisation = specialisationRepository.findById(id);
-        if (specialisation.isPresent()) {
-            specialisationRepository.deleteById(id);
-            return true;
-        } else {
+        if (specialisationRepository.removeById(id) == 0) {
             return false;
         }
+        changeCounters.changed(ResourceType.SPECIALISATIONS);
+        return true;
     }
 }
@@ -0,0 +1,67 @@
+CREATE TABLE locations (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    city VARCHAR(255) NOT NULL,
+    street VARCHAR(255) NOT NULL,
+    number INT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE departments (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    department_name VARCHAR(255) NOT NULL,
+    location_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_departments_location FOREIGN KEY (location_id) REFERENCES locations (id)
+);
+
+CREATE TABLE specialisations (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    specialisation_name VARCHAR(255) NOT NULL,
+    min_salary INT,
+    max_salary INT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE doctors (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    salary INT,
+    specialization_id BIGINT,
+    department_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_doctors_specialization FOREIGN KEY (specialization_id) REFERENCES specialisations (id),
+    CONSTRAINT fk_doctors_department FOREIGN KEY (department_id) REFERENCES departments (id)
+);
+
+CREATE TABLE patients (
+    patient_id BIGINT NOT NULL AUTO_INCREMENT,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    phone_number VARCHAR(255) NOT NULL,
+    email_address VARCHAR(255),
+    PRIMARY KEY (patient_id)
+);
+
+CREATE TABLE prescriptions (
+    prescription_id BIGINT NOT NULL AUTO_INCREMENT,
+    medicament_name VARCHAR(255) NOT NULL,
+    price INT,
+    amount_to_take INT NOT NULL,
+    PRIMARY KEY (prescription_id)
+);
+
+CREATE TABLE patients_doctors (
+    patient_id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    PRIMARY KEY (patient_id, doctor_id),
+    CONSTRAINT fk_patients_doctors_patient FOREIGN KEY (patient_id) REFERENCES patients (patient_id),
+    CONSTRAINT fk_patients_doctors_doctor FOREIGN KEY (doctor_id) REFERENCES doctors (id)
+);
+
+CREATE TABLE patients_prescriptions (
+    patient_id BIGINT NOT NULL,
+    prescription_id BIGINT NOT NULL,
+    PRIMARY KEY (patient_id, prescription_id),
+    CONSTRAINT fk_patients_prescriptions_patient FOREIGN KEY (patient_id) REFERENCES patients (patient_id),
+    CONSTRAINT fk_patients_prescriptions_prescription FOREIGN KEY (prescription_id) REFERENCES prescriptions (prescription_id)
+);
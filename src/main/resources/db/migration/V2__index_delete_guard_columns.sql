@@ -0,0 +1,5 @@
+-- The delete guards of departments, specialisations and locations look these columns up with EXISTS queries.
+-- InnoDB silently drops the index it created implicitly for a foreign key once an explicit one covers the column.
+CREATE INDEX idx_doctors_department_id ON doctors (department_id);
+CREATE INDEX idx_doctors_specialization_id ON doctors (specialization_id);
+CREATE INDEX idx_departments_location_id ON departments (location_id);
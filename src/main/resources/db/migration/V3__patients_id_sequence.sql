@@ -0,0 +1,7 @@
+-- Patient ids come from a pooled sequence so bulk imports can batch their inserts; IDENTITY ids force Hibernate to
+-- insert rows one at a time. MySQL has no sequences, Hibernate emulates them with a single row table.
+CREATE TABLE patients_seq (
+    next_val BIGINT NOT NULL
+);
+
+INSERT INTO patients_seq (next_val) SELECT COALESCE(MAX(patient_id), 0) + 1 FROM patients;
@@ -0,0 +1,8 @@
+-- Optimistic locking: every write bumps the version of the row and a conditional write only applies to the version
+-- the client last read (If-Match). Existing rows start at version 0.
+ALTER TABLE locations ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE departments ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE specialisations ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE doctors ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE patients ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE prescriptions ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,18 @@
+-- The listings sort by, seek past and filter on these columns; a property is only sortable or filterable once it
+-- is indexed here. InnoDB appends the primary key to every secondary index, so each one also serves the id
+-- tie-breaker of the ordering.
+CREATE INDEX idx_patients_first_name ON patients (first_name);
+CREATE INDEX idx_patients_last_name ON patients (last_name);
+CREATE INDEX idx_patients_phone_number ON patients (phone_number);
+CREATE INDEX idx_patients_email_address ON patients (email_address);
+CREATE INDEX idx_doctors_name ON doctors (name);
+CREATE INDEX idx_doctors_salary ON doctors (salary);
+CREATE INDEX idx_prescriptions_medicament_name ON prescriptions (medicament_name);
+CREATE INDEX idx_prescriptions_price ON prescriptions (price);
+CREATE INDEX idx_prescriptions_amount_to_take ON prescriptions (amount_to_take);
+CREATE INDEX idx_locations_city ON locations (city);
+CREATE INDEX idx_locations_street ON locations (street);
+CREATE INDEX idx_locations_number ON locations (number);
+CREATE INDEX idx_specialisations_name ON specialisations (specialisation_name);
+CREATE INDEX idx_specialisations_min_salary ON specialisations (min_salary);
+CREATE INDEX idx_specialisations_max_salary ON specialisations (max_salary);
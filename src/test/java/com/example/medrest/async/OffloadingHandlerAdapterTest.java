@@ -0,0 +1,111 @@
+package com.example.medrest.async;
+
+import com.example.medrest.configuration.AsyncConfiguration;
+import com.example.medrest.controller.LocationController;
+import com.example.medrest.dto.LocationDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.export.NdjsonWriter;
+import com.example.medrest.response.SerializedResponses;
+import com.example.medrest.service.DepartmentService;
+import com.example.medrest.service.LocationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = LocationController.class)
+@Import({NdjsonWriter.class, ChangeCounters.class, SerializedResponses.class, AsyncConfiguration.class})
+@TestPropertySource(properties = {"medrest.async.enabled=true",
+        "medrest.async.threads=1",
+        "medrest.async.queue-capacity=0"})
+class OffloadingHandlerAdapterTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LocationService locationService;
+    @MockBean
+    private DepartmentService departmentService;
+
+    @Test
+    @DisplayName("The controller method runs on the JDBC pool and its response is written on the async dispatch")
+    void offloadedGet() throws Exception {
+        AtomicReference<String> thread = new AtomicReference<>();
+        when(locationService.getLocationDtoById(1L)).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            return new LocationDto("Bucharest", "Victoriei", 13, 2L);
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/locations/{id}", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(jsonPath("$.city").value("Bucharest"));
+        assertTrue(thread.get().startsWith("jdbc-"));
+    }
+
+    @Test
+    @DisplayName("A conditional GET still answers 304 and an exception still reaches the exception handlers")
+    void offloadedNotModifiedAndNotFound() throws Exception {
+        when(locationService.getLocationDtoById(1L)).thenReturn(new LocationDto("Bucharest", "Victoriei", 13, 2L));
+        when(locationService.getLocationDtoById(2L)).thenThrow(new NotFoundException("Location not found"));
+
+        MvcResult notModified = mockMvc.perform(get("/api/locations/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(notModified))
+                .andExpect(status().isNotModified());
+
+        MvcResult notFound = mockMvc.perform(get("/api/locations/{id}", 2L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(notFound))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("A request finding every thread and queue slot taken is refused with 503 without being started")
+    void busy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(locationService.getLocationDtoById(1L)).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return new LocationDto("Bucharest", "Victoriei", 13, 2L);
+        });
+
+        MvcResult waiting = mockMvc.perform(get("/api/locations/{id}", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(get("/api/locations/{id}", 1L))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        release.countDown();
+        mockMvc.perform(asyncDispatch(waiting))
+                .andExpect(status().isOk());
+        MvcResult next = mockMvc.perform(get("/api/locations/{id}", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(next))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.medrest.async;
+
+import com.example.medrest.MedRestApplication;
+import com.example.medrest.model.Location;
+import com.example.medrest.repository.LocationRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test of the two execution modes against a database which takes {@link #LATENCY_MILLIS} to answer every
+ * statement. The container has far fewer threads than the connection pool has connections: blocking on them, the
+ * synchronous mode can not keep the pool busy, while the offloading mode waits on the database on a thread per
+ * connection and should get close to the pool's throughput. Tagged {@code performance}, so it only runs with
+ * {@code mvn -Pperformance test}.
+ */
+@Tag("performance")
+class OffloadingThroughputTest {
+    private static final long LATENCY_MILLIS = 50;
+    private static final int CONTAINER_THREADS = 2;
+    private static final int CONNECTIONS = 8;
+    private static final int REQUESTS = 64;
+
+    @Test
+    @DisplayName("With a slow database the offloading mode serves more requests per second than the container threads")
+    void offloadingOutrunsTheContainerThreads() {
+        double synchronous = requestsPerSecond(false);
+        double offloaded = requestsPerSecond(true);
+
+        assertTrue(offloaded > 2 * synchronous,
+                "offloaded " + offloaded + " requests/s, synchronous " + synchronous + " requests/s");
+    }
+
+    private static double requestsPerSecond(boolean async) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MedRestApplication.class, SlowDatabase.class)
+                .profiles("test")
+                .properties("server.port=0",
+                        "server.tomcat.threads.max=" + CONTAINER_THREADS,
+                        "server.tomcat.threads.min-spare=" + CONTAINER_THREADS,
+                        "spring.datasource.hikari.maximum-pool-size=" + CONNECTIONS,
+                        "medrest.async.enabled=" + async)
+                .run()) {
+            context.getBean(LocationRepository.class).save(new Location("Bucharest", "Victoriei", 13));
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/api/locations/infos?page=0");
+            HttpClient client = HttpClient.newHttpClient();
+            // one round to warm up the container, the connection pool and the JIT
+            send(client, uri, CONNECTIONS);
+
+            long start = System.nanoTime();
+            List<Integer> statuses = send(client, uri, REQUESTS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            statuses.forEach(status -> assertEquals(200, status));
+            return REQUESTS / seconds;
+        }
+    }
+
+    private static List<Integer> send(HttpClient client, URI uri, int requests) {
+        List<CompletableFuture<Integer>> responses = IntStream.range(0, requests)
+                .mapToObj(i -> client.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding())
+                        .thenApply(HttpResponse::statusCode))
+                .collect(Collectors.toList());
+        return responses.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    @TestConfiguration
+    static class SlowDatabase {
+        @Bean
+        static BeanPostProcessor slowDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? proxy(DataSource.class, bean) : bean;
+                }
+            };
+        }
+
+        // the data source hands out connections whose statements hand out results only after the latency
+        private static Object proxy(Class<?> type, Object target) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                if (method.getName().startsWith("execute")) {
+                    Thread.sleep(LATENCY_MILLIS);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException exception) {
+                    throw exception.getCause();
+                }
+                if (result instanceof Connection && method.getReturnType() == Connection.class) {
+                    return proxy(Connection.class, result);
+                }
+                if (result instanceof PreparedStatement && method.getReturnType() == PreparedStatement.class) {
+                    return proxy(PreparedStatement.class, result);
+                }
+                return result;
+            };
+            return Proxy.newProxyInstance(OffloadingThroughputTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+}
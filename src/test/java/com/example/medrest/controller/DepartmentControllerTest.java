@@ -1,10 +1,14 @@
 package com.example.medrest.controller;
 
 import com.example.medrest.dto.DepartmentDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
 import com.example.medrest.exception.DepartmentNotFoundException;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.mapper.DepartmentMapper;
 import com.example.medrest.model.Department;
 import com.example.medrest.model.Location;
+import com.example.medrest.response.SerializedResponses;
 import com.example.medrest.service.DepartmentService;
 import com.example.medrest.service.DoctorService;
 import com.example.medrest.service.LocationService;
@@ -15,25 +19,39 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = DepartmentController.class)
 @EnableWebMvc
+@Import({ChangeCounters.class, SerializedResponses.class})
 class DepartmentControllerTest {
     @Autowired
     private MockMvc mockMvc;
     @Autowired
     private ObjectMapper objectMapper;
+    @Autowired
+    private ChangeCounters changeCounters;
 
     @MockBean
     private DepartmentService departmentService;
@@ -56,28 +74,69 @@ class DepartmentControllerTest {
 
     @BeforeEach
     public void setupNonStatic() {
+        // a write before every test, so that no response stored by an earlier test is served
+        changeCounters.changed(ResourceType.DEPARTMENTS);
         testDepartment = new Department("Ploiesti");
     }
 
     @Test
     void getAllDepartmentNames() throws Exception {
         String endpoint = "/api/departments/names";
-        when(departmentService.getAllDepartments()).thenReturn(initialDepartmentList);
+        List<DepartmentDto> departmentDtoList = initialDepartmentList.stream().map(DepartmentMapper::departmentToDepartmentDto).collect(Collectors.toList());
+        when(departmentService.getAllDepartmentDtos()).thenReturn(departmentDtoList);
         mockMvc.perform(get(endpoint)).andExpect(status().isOk());
 
-        when(departmentService.getAllDepartments()).thenThrow(new NotFoundException("No departments in the database!"));
+        changeCounters.changed(ResourceType.DEPARTMENTS);
+        when(departmentService.getAllDepartmentDtos()).thenThrow(new NotFoundException("No departments in the database!"));
         mockMvc.perform(get(endpoint)).andExpect(status().isNotFound());
     }
 
+    @Test
+    void getAllDepartmentNamesFromStoredBytes() throws Exception {
+        String endpoint = "/api/departments/names";
+        List<DepartmentDto> departmentDtoList = initialDepartmentList.stream().map(DepartmentMapper::departmentToDepartmentDto).collect(Collectors.toList());
+        when(departmentService.getAllDepartmentDtos()).thenReturn(departmentDtoList);
+        String json = mockMvc.perform(get(endpoint))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        byte[] gzipped = mockMvc.perform(get(endpoint).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(objectMapper.writeValueAsString(departmentDtoList), json);
+        assertEquals(json, new String(new GZIPInputStream(new ByteArrayInputStream(gzipped)).readAllBytes(), StandardCharsets.UTF_8));
+        verify(departmentService, times(1)).getAllDepartmentDtos();
+
+        changeCounters.changed(ResourceType.DEPARTMENTS);
+        mockMvc.perform(get(endpoint)).andExpect(status().isOk());
+        verify(departmentService, times(2)).getAllDepartmentDtos();
+    }
+
+    @Test
+    void getAllDepartmentNamesNotModified() throws Exception {
+        String endpoint = "/api/departments/names";
+        List<DepartmentDto> departmentDtoList = initialDepartmentList.stream().map(DepartmentMapper::departmentToDepartmentDto).collect(Collectors.toList());
+        when(departmentService.getAllDepartmentDtos()).thenReturn(departmentDtoList);
+        String eTag = mockMvc.perform(get(endpoint))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(endpoint).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        verify(departmentService, times(1)).getAllDepartmentDtos();
+    }
+
     @Test
     void getDepartmentById() throws Exception {
         String endpoint = "/api/departments/{id}";
         testDepartment.setId(1L);
 
-        when(departmentService.getDepartment(anyLong())).thenReturn(testDepartment);
+        when(departmentService.getDepartmentDto(anyLong())).thenReturn(DepartmentMapper.departmentToDepartmentDto(testDepartment));
         mockMvc.perform(get(endpoint, 1L)).andExpect(status().isOk());
 
-        when(departmentService.getDepartment(anyLong())).thenThrow(new DepartmentNotFoundException());
+        when(departmentService.getDepartmentDto(anyLong())).thenThrow(new DepartmentNotFoundException());
         mockMvc.perform(get(endpoint, anyLong())).andExpect(status().isNotFound());
     }
 
@@ -103,7 +162,7 @@ class DepartmentControllerTest {
         String endpoint = "/api/departments/{id}";
         testDepartment.setId(1L);
 
-        when(departmentService.updateDepartment(1L, testDepartment)).thenReturn(true);
+        when(departmentService.updateDepartment(1L, testDepartment, null)).thenReturn(true);
         mockMvc.perform(put(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -111,7 +170,7 @@ class DepartmentControllerTest {
                         .content(objectMapper.writeValueAsString(testDepartment)))
                 .andExpect(status().isNoContent());
 
-        when(departmentService.updateDepartment(1L, testDepartment)).thenReturn(false);
+        when(departmentService.updateDepartment(1L, testDepartment, null)).thenReturn(false);
         mockMvc.perform(put(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -125,7 +184,7 @@ class DepartmentControllerTest {
         String endpoint = "/api/departments/{id}";
         testDepartment.setId(1L);
 
-        when(departmentService.patchDepartment(1L, testDepartment)).thenReturn(true);
+        when(departmentService.patchDepartment(1L, testDepartment, null)).thenReturn(true);
         mockMvc.perform(patch(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -155,13 +214,11 @@ class DepartmentControllerTest {
         location.setId(1L);
 
         when(departmentLocationService.getLocationById(1L)).thenReturn(location);
-        when(departmentService.getDepartment(1L)).thenReturn(testDepartment);
-        when(departmentService.patchDepartment(1L, testDepartment)).thenReturn(true);
+        when(departmentService.patchDepartment(eq(1L), any(Department.class), isNull())).thenReturn(true);
         mockMvc.perform(patch(endpoint, 1L, 1L)).andExpect(status().isNoContent());
 
         when(departmentLocationService.getLocationById(1L)).thenReturn(location);
-        when(departmentService.getDepartment(1L)).thenReturn(testDepartment);
-        when(departmentService.patchDepartment(1L, testDepartment)).thenReturn(false);
+        when(departmentService.patchDepartment(eq(1L), any(Department.class), isNull())).thenReturn(false);
         mockMvc.perform(patch(endpoint, 1L, 1L)).andExpect(status().isNotFound());
     }
 }
\ No newline at end of file
@@ -2,10 +2,14 @@ package com.example.medrest.controller;
 
 import com.example.medrest.dto.DepartmentDto;
 import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.etag.ChangeCounters;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.export.NdjsonWriter;
+import com.example.medrest.mapper.DoctorMapper;
 import com.example.medrest.model.Department;
 import com.example.medrest.model.Doctor;
 import com.example.medrest.model.Specialisation;
+import com.example.medrest.pagination.KeysetSlice;
 import com.example.medrest.service.DepartmentService;
 import com.example.medrest.service.DoctorService;
 import com.example.medrest.service.PatientService;
@@ -17,14 +21,20 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -32,6 +42,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(controllers = DoctorController.class)
 @EnableWebMvc
+@Import({NdjsonWriter.class, ChangeCounters.class})
 class DoctorControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -67,10 +78,14 @@ class DoctorControllerTest {
     @Test
     void getDoctors() throws Exception {
         String endpoint = "/api/doctors/infos";
-        when(doctorService.getAllDoctors()).thenReturn(initialDoctorList);
+        List<DoctorDto> doctorDtoList = initialDoctorList.stream().map(DoctorMapper::doctorToDoctorDto).collect(Collectors.toList());
+        when(doctorService.getDoctorsByCursor(null, 50, null)).thenReturn(new KeysetSlice<>(doctorDtoList, null));
         mockMvc.perform(get(endpoint)).andExpect(status().isOk());
 
-        when(doctorService.getAllDoctors()).thenThrow(new NotFoundException("No doctors were found!"));
+        when(doctorService.getDoctorsPage(0, 50, null)).thenReturn(new SliceImpl<>(doctorDtoList));
+        mockMvc.perform(get(endpoint).param("page", "0")).andExpect(status().isOk());
+
+        when(doctorService.getDoctorsByCursor(null, 50, null)).thenThrow(new NotFoundException("No doctors were found!"));
         mockMvc.perform(get(endpoint)).andExpect(status().isNotFound());
     }
 
@@ -79,10 +94,10 @@ class DoctorControllerTest {
         String endpoint = "/api/doctors/{id}";
         testDoctor.setId(1L);
 
-        when(doctorService.getDoctorById(anyLong())).thenReturn(testDoctor);
+        when(doctorService.getDoctorDtoById(anyLong())).thenReturn(DoctorMapper.doctorToDoctorDto(testDoctor));
         mockMvc.perform(get(endpoint, 1L)).andExpect(status().isOk());
 
-        when(doctorService.getDoctorById(anyLong())).thenThrow(new NotFoundException("No doctor with the given id was found!"));
+        when(doctorService.getDoctorDtoById(anyLong())).thenThrow(new NotFoundException("No doctor with the given id was found!"));
         mockMvc.perform(get(endpoint, anyLong())).andExpect(status().isNotFound());
     }
 
@@ -108,7 +123,7 @@ class DoctorControllerTest {
         String endpoint = "/api/doctors/{id}";
         testDoctor.setId(1L);
 
-        when(doctorService.updateDoctor(1L, testDoctor)).thenReturn(true);
+        when(doctorService.updateDoctor(1L, testDoctor, null)).thenReturn(true);
         mockMvc.perform(put(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -116,7 +131,7 @@ class DoctorControllerTest {
                         .content(objectMapper.writeValueAsString(testDoctor)))
                 .andExpect(status().isNoContent());
 
-        when(doctorService.updateDoctor(1L, testDoctor)).thenReturn(false);
+        when(doctorService.updateDoctor(1L, testDoctor, null)).thenReturn(false);
         mockMvc.perform(put(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -125,12 +140,24 @@ class DoctorControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void changeDoctorInvalid() throws Exception {
+        String endpoint = "/api/doctors/{id}";
+        testDoctor.setId(1L);
+        testDoctor.setName(" ");
+
+        mockMvc.perform(put(endpoint, 1L)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(testDoctor)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void patchDoctor() throws Exception {
         String endpoint = "/api/doctors/{id}";
         testDoctor.setId(1L);
 
-        when(doctorService.patchDoctor(1L, testDoctor)).thenReturn(true);
+        when(doctorService.patchDoctor(1L, testDoctor, null)).thenReturn(true);
         mockMvc.perform(patch(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -155,14 +182,12 @@ class DoctorControllerTest {
         Specialisation specialisation = new Specialisation("Dermatology", 1000, 9000);
         specialisation.setId(1L);
 
-        when(doctorService.getDoctorById(1L)).thenReturn(testDoctor);
         when(specialisationService.getSpecialisationById(1L)).thenReturn(specialisation);
-        when(doctorService.patchDoctor(1L, testDoctor)).thenReturn(true);
+        when(doctorService.patchDoctor(eq(1L), any(Doctor.class), isNull())).thenReturn(true);
         mockMvc.perform(patch(endpoint, 1L, 1L)).andExpect(status().isNoContent());
 
-        when(doctorService.getDoctorById(1L)).thenReturn(testDoctor);
         when(specialisationService.getSpecialisationById(1L)).thenReturn(specialisation);
-        when(doctorService.patchDoctor(1L, testDoctor)).thenReturn(false);
+        when(doctorService.patchDoctor(eq(1L), any(Doctor.class), isNull())).thenReturn(false);
         mockMvc.perform(patch(endpoint, 1L, 1L)).andExpect(status().isNotFound());
     }
 
@@ -173,9 +198,8 @@ class DoctorControllerTest {
         Department department = new Department("Dermatology");
         department.setId(1L);
 
-        when(doctorService.getDoctorById(1L)).thenReturn(testDoctor);
         when(departmentService.getDepartment(1L)).thenReturn(department);
-        when(doctorService.patchDoctor(1L, testDoctor)).thenReturn(true);
+        when(doctorService.patchDoctor(eq(1L), any(Doctor.class), isNull())).thenReturn(true);
         mockMvc.perform(patch(endpoint, 1L, 1L)).andExpect(status().isNoContent());
     }
 }
\ No newline at end of file
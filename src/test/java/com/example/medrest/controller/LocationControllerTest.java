@@ -2,8 +2,15 @@ package com.example.medrest.controller;
 
 import com.example.medrest.dto.LocationDto;
 import com.example.medrest.dto.SpecialisationDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.exception.PreconditionFailedException;
+import com.example.medrest.export.NdjsonWriter;
+import com.example.medrest.mapper.LocationMapper;
 import com.example.medrest.model.Location;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.response.SerializedResponses;
 import com.example.medrest.service.DepartmentService;
 import com.example.medrest.service.LocationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -13,25 +20,33 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = LocationController.class)
 @EnableWebMvc
+@Import({NdjsonWriter.class, ChangeCounters.class, SerializedResponses.class})
 public class LocationControllerTest {
     @Autowired
     private MockMvc mockMvc;
     @Autowired
     private ObjectMapper objectMapper;
+    @Autowired
+    private ChangeCounters changeCounters;
 
     @MockBean
     private LocationService locationService;
@@ -53,16 +68,23 @@ public class LocationControllerTest {
 
     @BeforeEach
     public void setupNonStatic() {
+        // a write before every test, so that no response stored by an earlier test is served
+        changeCounters.changed(ResourceType.LOCATIONS);
         testLocation = new Location("Ploiesti", "Republicii", 25);
     }
 
     @Test
     void testGetLocations() throws Exception {
         String endpoint = "/api/locations/infos";
-        when(locationService.getAllLocations()).thenReturn(initialLocationList);
+        List<LocationDto> locationDtoList = initialLocationList.stream().map(LocationMapper::locationToLocationDto).collect(Collectors.toList());
+        when(locationService.getLocationsByCursor(null, 50, null)).thenReturn(new KeysetSlice<>(locationDtoList, null));
         mockMvc.perform(get(endpoint)).andExpect(status().isOk());
 
-        when(locationService.getAllLocations()).thenThrow(new NotFoundException("No locations were found!"));
+        when(locationService.getLocationsPage(0, 50, null)).thenReturn(new SliceImpl<>(locationDtoList));
+        mockMvc.perform(get(endpoint).param("page", "0")).andExpect(status().isOk());
+
+        changeCounters.changed(ResourceType.LOCATIONS);
+        when(locationService.getLocationsByCursor(null, 50, null)).thenThrow(new NotFoundException("No locations were found!"));
         mockMvc.perform(get(endpoint)).andExpect(status().isNotFound());
     }
 
@@ -71,10 +93,10 @@ public class LocationControllerTest {
         String endpoint = "/api/locations/{id}";
         testLocation.setId(1L);
 
-        when(locationService.getLocationById(anyLong())).thenReturn(testLocation);
+        when(locationService.getLocationDtoById(anyLong())).thenReturn(LocationMapper.locationToLocationDto(testLocation));
         mockMvc.perform(get(endpoint, 1L)).andExpect(status().isOk());
 
-        when(locationService.getLocationById(anyLong())).thenThrow(new NotFoundException("No location with the given id was found!"));
+        when(locationService.getLocationDtoById(anyLong())).thenThrow(new NotFoundException("No location with the given id was found!"));
         mockMvc.perform(get(endpoint, anyLong())).andExpect(status().isNotFound());
     }
 
@@ -98,7 +120,7 @@ public class LocationControllerTest {
         String endpoint = "/api/locations/{id}";
         testLocation.setId(1L);
 
-        when(locationService.updateLocation(1L, testLocation)).thenReturn(true);
+        when(locationService.updateLocation(1L, testLocation, null)).thenReturn(true);
         mockMvc.perform(put(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -106,7 +128,7 @@ public class LocationControllerTest {
                         .content(objectMapper.writeValueAsString(testLocation)))
                 .andExpect(status().isNoContent());
 
-        when(locationService.updateLocation(1L, testLocation)).thenReturn(false);
+        when(locationService.updateLocation(1L, testLocation, null)).thenReturn(false);
         mockMvc.perform(put(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -115,12 +137,51 @@ public class LocationControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testChangeLocationIfMatch() throws Exception {
+        String endpoint = "/api/locations/{id}";
+        testLocation.setId(1L);
+
+        when(locationService.updateLocation(1L, testLocation, 3L)).thenReturn(true);
+        mockMvc.perform(put(endpoint, 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(testLocation)))
+                .andExpect(status().isNoContent());
+
+        when(locationService.updateLocation(1L, testLocation, 3L))
+                .thenThrow(new PreconditionFailedException("The location was modified since the version given in If-Match"));
+        mockMvc.perform(put(endpoint, 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(testLocation)))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(put(endpoint, 1L)
+                        .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(testLocation)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testGetLocationETagIsItsVersion() throws Exception {
+        String endpoint = "/api/locations/{id}";
+
+        when(locationService.getLocationDtoById(1L)).thenReturn(new LocationDto("Bucharest", "Victoriei", 13, 2L));
+        mockMvc.perform(get(endpoint, 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+        mockMvc.perform(get(endpoint, 1L).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     void testPatchLocation() throws Exception {
         String endpoint = "/api/locations/{id}";
         testLocation.setId(1L);
 
-        when(locationService.patchLocation(1L, testLocation)).thenReturn(true);
+        when(locationService.patchLocation(1L, testLocation, null)).thenReturn(true);
         mockMvc.perform(patch(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -1,34 +1,73 @@
 package com.example.medrest.controller;
 
+import com.example.medrest.configuration.MessageConverterConfiguration;
+import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.dto.ImportReportDto;
 import com.example.medrest.dto.PatientDto;
+import com.example.medrest.dto.PatientSearchDto;
+import com.example.medrest.dto.PrescriptionDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.exception.BadRequestException;
 import com.example.medrest.exception.NotFoundException;
-import com.example.medrest.model.Doctor;
+import com.example.medrest.export.NdjsonWriter;
+import com.example.medrest.export.RowWriter;
+import com.example.medrest.mapper.PatientMapper;
 import com.example.medrest.model.Patient;
 import com.example.medrest.model.Prescription;
-import com.example.medrest.service.DoctorService;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.protobuf.ProtobufList;
+import com.example.medrest.protobuf.ProtobufLists;
+import com.example.medrest.service.AppointmentService;
+import com.example.medrest.service.PatientImportService;
 import com.example.medrest.service.PatientService;
 import com.example.medrest.service.PrescriptionService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = PatientController.class)
 @EnableWebMvc
+@Import({NdjsonWriter.class, ChangeCounters.class, MessageConverterConfiguration.class})
 class PatientControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -40,7 +79,9 @@ class PatientControllerTest {
     @MockBean
     private PrescriptionService prescriptionService;
     @MockBean
-    private DoctorService doctorService;
+    private AppointmentService appointmentService;
+    @MockBean
+    private PatientImportService patientImportService;
 
     private static List<Patient> initialPatientList;
     private Patient testPatient;
@@ -66,22 +107,192 @@ class PatientControllerTest {
     @Test
     void getPatients() throws Exception {
         String endpoint = "/api/patients/infos";
-        when(patientService.getAllPatients()).thenReturn(initialPatientList);
+        List<PatientDto> patientDtoList = initialPatientList.stream().map(PatientMapper::patientToPatientDto).collect(Collectors.toList());
+        when(patientService.getPatientsByCursor(null, 50, null)).thenReturn(new KeysetSlice<>(patientDtoList, null));
         mockMvc.perform(get(endpoint)).andExpect(status().isOk());
 
-        when(patientService.getAllPatients()).thenThrow(new NotFoundException("No patients found!"));
+        when(patientService.getPatientsPage(0, 50, null)).thenReturn(new SliceImpl<>(patientDtoList));
+        mockMvc.perform(get(endpoint).param("page", "0")).andExpect(status().isOk());
+
+        when(patientService.getPatientsByCursor(null, 50, null)).thenThrow(new NotFoundException("No patients found!"));
         mockMvc.perform(get(endpoint)).andExpect(status().isNotFound());
     }
 
+    @Test
+    void getPatientsNextPageHeaders() throws Exception {
+        String endpoint = "/api/patients/infos";
+        testPatient.setId(7L);
+        List<PatientDto> patients = List.of(PatientMapper.patientToPatientDto(testPatient));
+
+        when(patientService.getPatientsPage(0, 1, "lastName,desc"))
+                .thenReturn(new SliceImpl<>(patients, PageRequest.of(0, 1), true));
+        mockMvc.perform(get(endpoint).param("page", "0").param("size", "1").param("sort", "lastName,desc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Page", "1"));
+
+        when(patientService.getPatientsByCursor("abc", 1, null))
+                .thenReturn(new KeysetSlice<>(patients, "def"));
+        mockMvc.perform(get(endpoint).param("size", "1").param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "def"));
+    }
+
+    @Test
+    void getPatientsWithFields() throws Exception {
+        String endpoint = "/api/patients/infos";
+        when(patientService.getPatientsByCursor(eq(null), eq(50), eq(null), eq(List.of("lastName", "firstName")), any()))
+                .thenReturn(new KeysetSlice<>(List.of(Map.of("lastName", "Andrei")), null));
+        mockMvc.perform(get(endpoint).param("fields", "lastName,firstName"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].lastName").value("Andrei"));
+
+        mockMvc.perform(get(endpoint).param("fields", "lastName,password")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getPatientsWithFilters() throws Exception {
+        when(patientService.getPatientsPage(eq(0), eq(50), eq("-lastName"), eq(PatientMapper.DTO_PROPERTIES),
+                argThat(filters -> List.of("Pop").equals(filters.get("lastName^")))))
+                .thenReturn(new SliceImpl<>(List.of(Map.of("lastName", "Popescu"))));
+        mockMvc.perform(get("/api/patients/infos").param("page", "0").param("sort", "-lastName").param("lastName^", "Pop"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].lastName").value("Popescu"));
+    }
+
+    @Test
+    void getPatientsInBinaryEncodings() throws Exception {
+        String endpoint = "/api/patients/infos";
+        when(patientService.getPatientsByCursor(null, 50, null))
+                .thenReturn(new KeysetSlice<>(List.of(PatientMapper.patientToPatientDto(testPatient)), null));
+
+        JsonNode smile = new ObjectMapper(new SmileFactory()).readTree(binary(endpoint, MediaType.valueOf(MessageConverterConfiguration.APPLICATION_SMILE_VALUE)));
+        assertEquals("Andrei", smile.get(0).get("lastName").asText());
+        JsonNode cbor = new ObjectMapper(new CBORFactory()).readTree(binary(endpoint, MediaType.APPLICATION_CBOR));
+        assertEquals("Andrei", cbor.get(0).get("lastName").asText());
+        ProtobufList<PatientDto> protobuf = ProtobufLists.reader(PatientDto.class)
+                .readValue(binary(endpoint, MediaType.valueOf(ProtobufLists.APPLICATION_PROTOBUF_VALUE)));
+        assertEquals("email@gmail.com", protobuf.getItems().get(0).getEmailAddress());
+    }
+
+    @Test
+    void getPatientsWithFieldsAsProtobuf() throws Exception {
+        when(patientService.getPatientsByCursor(eq(null), eq(50), eq(null), eq(List.of("lastName")), any()))
+                .thenReturn(new KeysetSlice<>(List.of(Map.of("lastName", "Andrei")), null));
+        mockMvc.perform(get("/api/patients/infos").param("fields", "lastName")
+                        .accept(MediaType.valueOf(ProtobufLists.APPLICATION_PROTOBUF_VALUE)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private byte[] binary(String endpoint, MediaType mediaType) throws Exception {
+        return mockMvc.perform(get(endpoint).accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(mediaType))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("-" + mediaType.getSubtype() + "\"")))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+    }
+
+    @Test
+    void getPatientWithFields() throws Exception {
+        when(patientService.getPatientDtoById(1L)).thenReturn(PatientMapper.patientToPatientDto(testPatient));
+        mockMvc.perform(get("/api/patients/1").param("fields", "phoneNumber"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"phoneNumber\":\"0730000000\"}", true));
+    }
+
+    @Test
+    void searchPatients() throws Exception {
+        String endpoint = "/api/patients/search";
+        when(patientService.searchPatients("andr", 50))
+                .thenReturn(List.of(new PatientSearchDto(7L, "Val", "Andrei", "0730000000", "email@gmail.com")));
+        mockMvc.perform(get(endpoint).param("q", "andr"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].lastName").value("Andrei"));
+
+        when(patientService.searchPatients("zz", 50)).thenThrow(new NotFoundException("No patients found!"));
+        mockMvc.perform(get(endpoint).param("q", "zz")).andExpect(status().isNotFound());
+
+        mockMvc.perform(get(endpoint)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchPatientsWithFields() throws Exception {
+        String endpoint = "/api/patients/search";
+        when(patientService.searchPatients("andr", 50))
+                .thenReturn(List.of(new PatientSearchDto(7L, "Val", "Andrei", "0730000000", "email@gmail.com")));
+        mockMvc.perform(get(endpoint).param("q", "andr").param("fields", "id,lastName"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":7,\"lastName\":\"Andrei\"}]", true));
+
+        mockMvc.perform(get(endpoint).param("q", "andr").param("fields", "password")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getPatientsWithInvalidSort() throws Exception {
+        String endpoint = "/api/patients/infos";
+        when(patientService.getPatientsByCursor(null, 50, "password"))
+                .thenThrow(new BadRequestException("Sorting by 'password' is not supported!"));
+        mockMvc.perform(get(endpoint).param("sort", "password")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportPatients() throws Exception {
+        String endpoint = "/api/patients/export";
+        PatientDto first = new PatientDto("Val", "Andrei", "0730000000", "val@gmail.com");
+        PatientDto second = new PatientDto("Ana", "Pop", "0740000000", "ana@gmail.com");
+        doAnswer(invocation -> {
+            RowWriter<PatientDto> rowWriter = invocation.getArgument(0);
+            rowWriter.write(Stream.of(first, second));
+            return null;
+        }).when(patientService).exportPatients(any());
+
+        MvcResult result = mockMvc.perform(get(endpoint)).andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(first) + "\n"
+                        + objectMapper.writeValueAsString(second) + "\n"));
+    }
+
+    @Test
+    void importPatientsFromCsv() throws Exception {
+        String endpoint = "/api/patients/import";
+        List<PatientDto> importedRows = new ArrayList<>();
+        when(patientImportService.importPatients(any())).thenAnswer(invocation -> {
+            Iterator<PatientDto> rows = invocation.getArgument(0);
+            rows.forEachRemaining(importedRows::add);
+            ImportReportDto report = new ImportReportDto();
+            report.addImported(importedRows.size());
+            return report;
+        });
+
+        mockMvc.perform(post(endpoint)
+                        .contentType("text/csv")
+                        .content("firstName,lastName,phoneNumber,emailAddress\n" +
+                                "Val,Andrei,0730000000,val@gmail.com\n" +
+                                "\"Pop, Jr\",Ana,0740000000,ana@gmail.com\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+        assertEquals("Pop, Jr", importedRows.get(1).getFirstName());
+
+        mockMvc.perform(post(endpoint)
+                        .contentType("text/csv")
+                        .content("name,phone\nVal,0730000000\n"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getPatient() throws Exception {
         String endpoint = "/api/patients/{id}";
         testPatient.setId(1L);
 
-        when(patientService.getPatientById(anyLong())).thenReturn(testPatient);
+        when(patientService.getPatientDtoById(anyLong())).thenReturn(PatientMapper.patientToPatientDto(testPatient));
         mockMvc.perform(get(endpoint, 1L)).andExpect(status().isOk());
 
-        when(patientService.getPatientById(anyLong())).thenThrow(new NotFoundException("No patient with the given id was found!"));
+        when(patientService.getPatientDtoById(anyLong())).thenThrow(new NotFoundException("No patient with the given id was found!"));
         mockMvc.perform(get(endpoint, anyLong())).andExpect(status().isNotFound());
     }
 
@@ -113,7 +324,7 @@ class PatientControllerTest {
         String endpoint = "/api/patients/{id}";
         testPatient.setId(1L);
 
-        when(patientService.updatePatient(1L, testPatient)).thenReturn(true);
+        when(patientService.updatePatient(1L, testPatient, null)).thenReturn(true);
         mockMvc.perform(put(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -121,7 +332,7 @@ class PatientControllerTest {
                         .content(objectMapper.writeValueAsString(testPatient)))
                 .andExpect(status().isNoContent());
 
-        when(patientService.updatePatient(1L, testPatient)).thenReturn(false);
+        when(patientService.updatePatient(1L, testPatient, null)).thenReturn(false);
         mockMvc.perform(put(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -130,12 +341,25 @@ class PatientControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void changePatientInvalid() throws Exception {
+        String endpoint = "/api/patients/{id}";
+        testPatient.setId(1L);
+        testPatient.setFirstName(" ");
+
+        // the update is a bulk statement which Bean Validation never sees, so the body is validated here
+        mockMvc.perform(put(endpoint, 1L)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(testPatient)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void patchPatient() throws Exception {
         String endpoint = "/api/patients/{id}";
         testPatient.setId(1L);
 
-        when(patientService.patchPatient(1L, testPatient)).thenReturn(true);
+        when(patientService.patchPatient(1L, testPatient, null)).thenReturn(true);
         mockMvc.perform(patch(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -153,6 +377,24 @@ class PatientControllerTest {
         mockMvc.perform(delete(endpoint, 1L)).andExpect(status().isNoContent());
     }
 
+    @Test
+    void addPrescriptionsToPatient() throws Exception {
+        String endpoint = "/api/patients/{patientId}/prescriptions";
+
+        when(patientService.addPrescriptionsToPatient(Set.of(1L, 2L), 1L)).thenReturn(2);
+        mockMvc.perform(post(endpoint, 1L)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("[1, 2]"))
+                .andExpect(status().isNoContent());
+
+        when(patientService.addPrescriptionsToPatient(Set.of(7L), 1L))
+                .thenThrow(new NotFoundException("The prescriptions with the ids [7] were not found!\n"));
+        mockMvc.perform(post(endpoint, 1L)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("[7]"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void addPrescriptionToPatient() throws Exception {
         String endpoint = "/api/patients/{patientId}/prescriptions/{prescriptionId}";
@@ -164,7 +406,7 @@ class PatientControllerTest {
 
         when(patientService.getPatientById(1L)).thenReturn(testPatient);
         when(prescriptionService.getPrescriptionById(1L)).thenReturn(prescription);
-        when(patientService.updatePatient(1L, testPatient)).thenReturn(true);
+        when(patientService.updatePatient(1L, testPatient, null)).thenReturn(true);
         mockMvc.perform(post(endpoint, 1L, 1L)).andExpect(status().isNoContent());
     }
 
@@ -198,14 +440,12 @@ class PatientControllerTest {
     @Test
     void appointPatientToDoctor() throws Exception{
         String endpoint = "/api/patients/{patientId}/doctors/{doctorId}";
-        testPatient.setId(1L);
-        Doctor doctor = new Doctor("Gelu Andrei", 10000);
-        doctor.setId(1L);
-
-        when(patientService.getPatientById(1L)).thenReturn(testPatient);
-        when(doctorService.getDoctorById(1L)).thenReturn(doctor);
-        when(patientService.patchPatient(1L, testPatient)).thenReturn(true);
         mockMvc.perform(post(endpoint,1L, 1L)).andExpect(status().isNoContent());
+        verify(appointmentService).addAppointment(1L, 1L);
+
+        doThrow(new NotFoundException("The patient or the doctor with the given id was not found!\n"))
+                .when(appointmentService).addAppointment(1L, 2L);
+        mockMvc.perform(post(endpoint, 1L, 2L)).andExpect(status().isNotFound());
     }
 
     @Test
@@ -213,20 +453,36 @@ class PatientControllerTest {
         String endpoint = "/api/patients/{id}/appointments";
         testPatient.setId(1L);
 
-        when(patientService.getPatientById(1L)).thenReturn(testPatient);
+        when(patientService.getPatientDoctorsList(1L)).thenReturn(new ArrayList<>());
         mockMvc.perform(get(endpoint, 1L)).andExpect(status().isNoContent());
+
+        when(patientService.getPatientDoctorsList(1L)).thenReturn(List.of(new DoctorDto("Gelu Andrei", 10000)));
+        mockMvc.perform(get(endpoint, 1L)).andExpect(status().isOk());
+    }
+
+    @Test
+    void getPatientAssociationsWithFields() throws Exception {
+        when(patientService.getPatientDoctorsList(1L)).thenReturn(List.of(new DoctorDto("Gelu Andrei", 10000)));
+        mockMvc.perform(get("/api/patients/{id}/appointments", 1L).param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"name\":\"Gelu Andrei\"}]", true));
+
+        when(patientService.getPatientPrescriptionsList(1L)).thenReturn(List.of(new PrescriptionDto("Augmentin", 35, 1)));
+        mockMvc.perform(get("/api/patients/{id}/prescriptions", 1L).param("fields", "medicamentName"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"medicamentName\":\"Augmentin\"}]", true));
+        mockMvc.perform(get("/api/patients/{id}/prescriptions", 1L).param("fields", "dose"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
     void removePatientAppointment() throws Exception{
         String endpoint = "/api/patients/{patientId}/doctors/{doctorId}";
-        testPatient.setId(1L);
-        Doctor doctor = new Doctor("Gelu Andrei", 10000);
-        doctor.setId(1L);
-
-        when(patientService.getPatientById(1L)).thenReturn(testPatient);
-        when(doctorService.getDoctorById(1L)).thenReturn(doctor);
-        when(patientService.updatePatient(1L, testPatient)).thenReturn(true);
         mockMvc.perform(delete(endpoint, 1L,1L)).andExpect(status().isNoContent());
+        verify(appointmentService).removeAppointment(1L, 1L);
+
+        doThrow(new NotFoundException("The patient has no appointment with the given doctor!\n"))
+                .when(appointmentService).removeAppointment(1L, 2L);
+        mockMvc.perform(delete(endpoint, 1L, 2L)).andExpect(status().isNotFound());
     }
 }
\ No newline at end of file
@@ -3,10 +3,14 @@ package com.example.medrest.controller;
 import com.example.medrest.dto.DoctorDto;
 import com.example.medrest.dto.PrescriptionDto;
 import com.example.medrest.dto.SpecialisationDto;
+import com.example.medrest.etag.ChangeCounters;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.export.NdjsonWriter;
+import com.example.medrest.mapper.PrescriptionMapper;
 import com.example.medrest.model.Doctor;
 import com.example.medrest.model.Prescription;
 import com.example.medrest.model.Specialisation;
+import com.example.medrest.pagination.KeysetSlice;
 import com.example.medrest.service.DoctorService;
 import com.example.medrest.service.PatientService;
 import com.example.medrest.service.PrescriptionService;
@@ -17,12 +21,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
@@ -32,6 +39,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(controllers = PrescriptionController.class)
 @EnableWebMvc
+@Import({NdjsonWriter.class, ChangeCounters.class})
 class PrescriptionControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -67,10 +75,14 @@ class PrescriptionControllerTest {
     @Test
     void getPrescriptions() throws Exception {
         String endpoint = "/api/prescriptions/infos";
-        when(prescriptionService.getAllPrescriptions()).thenReturn(initialPrescriptionList);
+        List<PrescriptionDto> prescriptionDtoList = initialPrescriptionList.stream().map(PrescriptionMapper::prescriptionToPrescriptionDto).collect(Collectors.toList());
+        when(prescriptionService.getPrescriptionsByCursor(null, 50, null)).thenReturn(new KeysetSlice<>(prescriptionDtoList, null));
         mockMvc.perform(get(endpoint)).andExpect(status().isOk());
 
-        when(prescriptionService.getAllPrescriptions()).thenThrow(new NotFoundException("No prescription was found in the database"));
+        when(prescriptionService.getPrescriptionsPage(0, 50, null)).thenReturn(new SliceImpl<>(prescriptionDtoList));
+        mockMvc.perform(get(endpoint).param("page", "0")).andExpect(status().isOk());
+
+        when(prescriptionService.getPrescriptionsByCursor(null, 50, null)).thenThrow(new NotFoundException("No prescription was found in the database"));
         mockMvc.perform(get(endpoint)).andExpect(status().isNotFound());
     }
 
@@ -79,10 +91,10 @@ class PrescriptionControllerTest {
         String endpoint = "/api/prescriptions/{id}";
         testPrescription.setId(1L);
 
-        when(prescriptionService.getPrescriptionById(anyLong())).thenReturn(testPrescription);
+        when(prescriptionService.getPrescriptionDtoById(anyLong())).thenReturn(PrescriptionMapper.prescriptionToPrescriptionDto(testPrescription));
         mockMvc.perform(get(endpoint, 1L)).andExpect(status().isOk());
 
-        when(prescriptionService.getPrescriptionById(anyLong())).thenThrow(new NotFoundException("Prescription not found"));
+        when(prescriptionService.getPrescriptionDtoById(anyLong())).thenThrow(new NotFoundException("Prescription not found"));
         mockMvc.perform(get(endpoint, anyLong())).andExpect(status().isNotFound());
     }
 
@@ -112,7 +124,7 @@ class PrescriptionControllerTest {
         String endpoint = "/api/prescriptions/{id}";
         testPrescription.setId(1L);
 
-        when(prescriptionService.updatePrescription(1L, testPrescription)).thenReturn(true);
+        when(prescriptionService.updatePrescription(1L, testPrescription, null)).thenReturn(true);
         mockMvc.perform(put(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -120,7 +132,7 @@ class PrescriptionControllerTest {
                         .content(objectMapper.writeValueAsString(testPrescription)))
                 .andExpect(status().isNoContent());
 
-        when(prescriptionService.updatePrescription(1L, testPrescription)).thenReturn(false);
+        when(prescriptionService.updatePrescription(1L, testPrescription, null)).thenReturn(false);
         mockMvc.perform(put(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -129,12 +141,24 @@ class PrescriptionControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void changePrescriptionInvalid() throws Exception {
+        String endpoint = "/api/prescriptions/{id}";
+        testPrescription.setId(1L);
+        testPrescription.setMedicamentName(" ");
+
+        mockMvc.perform(put(endpoint, 1L)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(testPrescription)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void patchPrescription() throws Exception {
         String endpoint = "/api/prescriptions/{id}";
         testPrescription.setId(1L);
 
-        when(prescriptionService.patchPrescription(1L, testPrescription)).thenReturn(true);
+        when(prescriptionService.patchPrescription(1L, testPrescription, null)).thenReturn(true);
         mockMvc.perform(patch(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -0,0 +1,31 @@
+package com.example.medrest.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = ProtobufSchemaController.class)
+@EnableWebMvc
+class ProtobufSchemaControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void getProtobufSchema() throws Exception {
+        mockMvc.perform(get("/api/protobuf/prescriptions.proto"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("message PrescriptionDto")))
+                .andExpect(content().string(containsString("repeated PrescriptionDto items = 1;")))
+                .andExpect(content().string(containsString("string medicamentName = 1;")))
+                .andExpect(content().string(containsString("int32 amountToTake = 3;")));
+
+        mockMvc.perform(get("/api/protobuf/doctors.proto")).andExpect(status().isNotFound());
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.medrest.controller;
 
 import com.example.medrest.dto.SpecialisationDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.export.NdjsonWriter;
 import com.example.medrest.mapper.SpecialisationMapper;
 import com.example.medrest.model.Specialisation;
+import com.example.medrest.pagination.KeysetSlice;
+import com.example.medrest.response.SerializedResponses;
 import com.example.medrest.service.DoctorService;
 import com.example.medrest.service.SpecialisationService;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -14,12 +19,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
@@ -28,11 +36,14 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(controllers = SpecialisationController.class)
 @EnableWebMvc
+@Import({NdjsonWriter.class, ChangeCounters.class, SerializedResponses.class})
 class SpecialisationControllerTest {
     @Autowired
     private MockMvc mockMvc;
     @Autowired
     private ObjectMapper objectMapper;
+    @Autowired
+    private ChangeCounters changeCounters;
 
     @MockBean
     private SpecialisationService specialisationService;
@@ -52,6 +63,8 @@ class SpecialisationControllerTest {
 
     @BeforeEach
     public void setupNonStatic() {
+        // a write before every test, so that no response stored by an earlier test is served
+        changeCounters.changed(ResourceType.SPECIALISATIONS);
         testSpecialisation = new Specialisation("Dermatology", 1000, 9000);
     }
 
@@ -59,10 +72,15 @@ class SpecialisationControllerTest {
     @Test
     void getSpecialisations() throws Exception {
         String endpoint = "/api/specialisations/infos";
-        when(specialisationService.getSpecializations()).thenReturn(initialSpecialisationList);
+        List<SpecialisationDto> specialisationDtoList = initialSpecialisationList.stream().map(SpecialisationMapper::specialisationToSpecialisationDto).collect(Collectors.toList());
+        when(specialisationService.getSpecialisationsByCursor(null, 50, null)).thenReturn(new KeysetSlice<>(specialisationDtoList, null));
         mockMvc.perform(get(endpoint)).andExpect(status().isOk());
 
-        when(specialisationService.getSpecializations()).thenThrow(new NotFoundException("No specialization was found in the database!"));
+        when(specialisationService.getSpecialisationsPage(0, 50, null)).thenReturn(new SliceImpl<>(specialisationDtoList));
+        mockMvc.perform(get(endpoint).param("page", "0")).andExpect(status().isOk());
+
+        changeCounters.changed(ResourceType.SPECIALISATIONS);
+        when(specialisationService.getSpecialisationsByCursor(null, 50, null)).thenThrow(new NotFoundException("No specialization was found in the database!"));
         mockMvc.perform(get(endpoint)).andExpect(status().isNotFound());
     }
 
@@ -71,10 +89,10 @@ class SpecialisationControllerTest {
         String endpoint = "/api/specialisations/{id}";
         testSpecialisation.setId(1L);
 
-        when(specialisationService.getSpecialisationById(anyLong())).thenReturn(testSpecialisation);
+        when(specialisationService.getSpecialisationDtoById(anyLong())).thenReturn(SpecialisationMapper.specialisationToSpecialisationDto(testSpecialisation));
         mockMvc.perform(get(endpoint, 1L)).andExpect(status().isOk());
 
-        when(specialisationService.getSpecialisationById(anyLong())).thenThrow(new NotFoundException("Specialisation not found"));
+        when(specialisationService.getSpecialisationDtoById(anyLong())).thenThrow(new NotFoundException("Specialisation not found"));
         mockMvc.perform(get(endpoint, anyLong())).andExpect(status().isNotFound());
     }
 
@@ -100,7 +118,7 @@ class SpecialisationControllerTest {
         String endpoint = "/api/specialisations/{id}";
         testSpecialisation.setId(1L);
 
-        when(specialisationService.updateSpecialisation(1L, testSpecialisation)).thenReturn(true);
+        when(specialisationService.updateSpecialisation(1L, testSpecialisation, null)).thenReturn(true);
         mockMvc.perform(put(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -108,7 +126,7 @@ class SpecialisationControllerTest {
                         .content(objectMapper.writeValueAsString(testSpecialisation)))
                 .andExpect(status().isNoContent());
 
-        when(specialisationService.updateSpecialisation(1L, testSpecialisation)).thenReturn(false);
+        when(specialisationService.updateSpecialisation(1L, testSpecialisation, null)).thenReturn(false);
         mockMvc.perform(put(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -117,12 +135,24 @@ class SpecialisationControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void changeSpecialisationInvalid() throws Exception {
+        String endpoint = "/api/specialisations/{id}";
+        testSpecialisation.setId(1L);
+        testSpecialisation.setName(null);
+
+        mockMvc.perform(put(endpoint, 1L)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(testSpecialisation)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void patchSpecialisation() throws Exception {
         String endpoint = "/api/specialisations/{id}";
         testSpecialisation.setId(1L);
 
-        when(specialisationService.patchSpecialisation(1L, testSpecialisation)).thenReturn(true);
+        when(specialisationService.patchSpecialisation(1L, testSpecialisation, null)).thenReturn(true);
         mockMvc.perform(patch(endpoint, 1L)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON_VALUE)
@@ -0,0 +1,59 @@
+package com.example.medrest.etag;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeCountersTest {
+    private final ChangeCounters changeCounters = new ChangeCounters();
+
+    @AfterEach
+    public void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("The ETag of a resource changes with its counter only")
+    void eTagFollowsTheCounter() {
+        String patients = changeCounters.eTag(ResourceType.PATIENTS);
+        String doctors = changeCounters.eTag(ResourceType.DOCTORS);
+
+        changeCounters.changed(ResourceType.PATIENTS);
+
+        assertNotEquals(patients, changeCounters.eTag(ResourceType.PATIENTS));
+        assertEquals(doctors, changeCounters.eTag(ResourceType.DOCTORS));
+        assertTrue(patients.startsWith("W/\"") && patients.endsWith("\""));
+    }
+
+    @Test
+    @DisplayName("A change made inside a transaction shows only once the transaction committed")
+    void changeWaitsForTheCommit() {
+        String before = changeCounters.eTag(ResourceType.PATIENTS, ResourceType.DOCTORS);
+        TransactionSynchronizationManager.initSynchronization();
+
+        changeCounters.changed(ResourceType.DOCTORS);
+        assertEquals(before, changeCounters.eTag(ResourceType.PATIENTS, ResourceType.DOCTORS));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertNotEquals(before, changeCounters.eTag(ResourceType.PATIENTS, ResourceType.DOCTORS));
+    }
+
+    @Test
+    @DisplayName("A rolled back change leaves the ETag alone")
+    void rolledBackChangeIsIgnored() {
+        String before = changeCounters.eTag(ResourceType.LOCATIONS);
+        TransactionSynchronizationManager.initSynchronization();
+
+        changeCounters.changed(ResourceType.LOCATIONS);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(before, changeCounters.eTag(ResourceType.LOCATIONS));
+    }
+}
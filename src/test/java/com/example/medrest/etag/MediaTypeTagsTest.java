@@ -0,0 +1,42 @@
+package com.example.medrest.etag;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MediaTypeTagsTest {
+    @Test
+    @DisplayName("The tag carries the media type the request negotiates")
+    void tagCarriesTheNegotiatedMediaType() {
+        assertEquals("\"e-1-json\"", MediaTypeTags.eTag("\"e-1\"", request(null)));
+        assertEquals("\"e-1-cbor\"", MediaTypeTags.eTag("\"e-1\"", request("application/cbor")));
+        assertEquals("\"e-1-cbor\"", MediaTypeTags.eTag("\"e-1\"", request("application/json;q=0.5, application/cbor")));
+    }
+
+    @Test
+    @DisplayName("The tag is left alone when no produced media type is accepted")
+    void tagIsLeftAloneWithoutANegotiatedMediaType() {
+        assertEquals("\"e-1\"", MediaTypeTags.eTag("\"e-1\"", request("text/csv")));
+        assertEquals("\"e-1\"", MediaTypeTags.eTag("\"e-1\"", new ServletWebRequest(new MockHttpServletRequest())));
+    }
+
+    private static ServletWebRequest request(String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        // set by the handler mapping from produces, in its order
+        request.setAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE,
+                new LinkedHashSet<>(List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR)));
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        return new ServletWebRequest(request);
+    }
+}
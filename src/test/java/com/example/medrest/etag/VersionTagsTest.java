@@ -0,0 +1,39 @@
+package com.example.medrest.etag;
+
+import com.example.medrest.exception.PreconditionFailedException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionTagsTest {
+    @Test
+    @DisplayName("The ETag handed out for a version is read back as that version")
+    void eTagRoundTrip() {
+        assertEquals("\"7\"", VersionTags.eTag(7L));
+        assertEquals(7L, VersionTags.expectedVersion(VersionTags.eTag(7L)));
+    }
+
+    @Test
+    @DisplayName("No If-Match and the wildcard make the write unconditional")
+    void unconditionalWrites() {
+        assertNull(VersionTags.expectedVersion(null));
+        assertNull(VersionTags.expectedVersion(" "));
+        assertNull(VersionTags.expectedVersion("*"));
+    }
+
+    @Test
+    @DisplayName("Tags which can not be a version of the resource fail the precondition")
+    void foreignTags() {
+        assertThrows(PreconditionFailedException.class, () -> VersionTags.expectedVersion("W/\"7\""));
+        assertThrows(PreconditionFailedException.class, () -> VersionTags.expectedVersion("\"7\", \"8\""));
+        assertThrows(PreconditionFailedException.class, () -> VersionTags.expectedVersion("\"kx3-1-4\""));
+    }
+
+    @Test
+    @DisplayName("A representation read without its version is sent without an ETag")
+    void noVersionNoTag() {
+        assertNull(VersionTags.headers(VersionTags.eTag(null)).getETag());
+        assertEquals("\"7\"", VersionTags.headers(VersionTags.eTag(7L)).getETag());
+    }
+}
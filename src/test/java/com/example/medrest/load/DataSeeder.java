@@ -0,0 +1,51 @@
+package com.example.medrest.load;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Fills the empty schema through JDBC batches: the reference rows, doctors spread over them, prescriptions, and
+ * patients which each have one prescription and one appointment. Every table gets the ids 1..n.
+ */
+final class DataSeeder {
+    private static final int BATCH_SIZE = 1000;
+
+    private DataSeeder() {
+    }
+
+    static void seed(JdbcTemplate jdbcTemplate, LoadSettings settings) {
+        int references = settings.referenceRows;
+        insert(jdbcTemplate, "insert into specialisations (specialisation_name, min_salary, max_salary) values (?, ?, ?)",
+                references, i -> new Object[]{"Specialisation " + i, 1000, 100000});
+        insert(jdbcTemplate, "insert into locations (city, street, number) values (?, ?, ?)",
+                references, i -> new Object[]{"City " + i, "Street " + i, i});
+        insert(jdbcTemplate, "insert into departments (department_name, location_id) values (?, ?)",
+                references, i -> new Object[]{"Department " + i, i});
+        insert(jdbcTemplate, "insert into doctors (name, salary, specialization_id, department_id) values (?, ?, ?, ?)",
+                settings.doctors, i -> new Object[]{"Doctor " + i, 5000 + i % 5000, 1 + i % references, 1 + i % references});
+        insert(jdbcTemplate, "insert into prescriptions (medicament_name, price, amount_to_take) values (?, ?, ?)",
+                settings.prescriptions, i -> new Object[]{"Medicament " + i, 1 + i % 500, 1 + i % 3});
+        insert(jdbcTemplate, "insert into patients (patient_id, first_name, last_name, phone_number, email_address) values (?, ?, ?, ?, ?)",
+                settings.patients, i -> new Object[]{i, "First" + i, "Last" + i, "07" + (10000000 + i), "patient" + i + "@gmail.com"});
+        // the pooled ids Hibernate hands out for new patients continue after the seeded ones
+        jdbcTemplate.update("update patients_seq set next_val = ?", settings.patients + 1);
+        insert(jdbcTemplate, "insert into patients_doctors (patient_id, doctor_id) values (?, ?)",
+                settings.patients, i -> new Object[]{i, 1 + i % settings.doctors});
+        insert(jdbcTemplate, "insert into patients_prescriptions (patient_id, prescription_id) values (?, ?)",
+                settings.patients, i -> new Object[]{i, 1 + i % settings.prescriptions});
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, String sql, int rows, IntFunction<Object[]> row) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= rows; i++) {
+            batch.add(row.apply(i));
+            if (batch.size() == BATCH_SIZE || i == rows) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+    }
+}
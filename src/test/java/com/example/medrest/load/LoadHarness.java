@@ -0,0 +1,88 @@
+package com.example.medrest.load;
+
+import com.example.medrest.MedRestApplication;
+import com.example.medrest.search.PatientSearchIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load run: boots the application on an in-memory H2 database in MySQL mode, migrated by Flyway and
+ * queried with the MySQL dialect like production, seeds it, and lets a fixed number of virtual users send the
+ * {@link MixedScenario} back to back, first for a warm-up which is thrown away and then for the measured run.
+ * Run it with mvn -Pload-test verify; the report is written to target/load-report.json.
+ */
+public final class LoadHarness {
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        LoadReport report = run(settings);
+        report.write(Path.of(args.length > 0 ? args[0] : "target/load-report.json"));
+        report.print(System.out);
+    }
+
+    static LoadReport run(LoadSettings settings) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MedRestApplication.class)
+                .profiles("load")
+                .run()) {
+            DataSeeder.seed(context.getBean(JdbcTemplate.class), settings);
+            // the rows were inserted behind the services' back
+            context.getBean(PatientSearchIndex.class).rebuild();
+            URI base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            MixedScenario scenario = new MixedScenario(base, settings);
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+            drive(client, scenario, settings, settings.warmup, new LoadReport(settings));
+            LoadReport report = new LoadReport(settings);
+            drive(client, scenario, settings, settings.duration, report);
+            return report;
+        }
+    }
+
+    // closed model: each user sends its next request as soon as the previous one is answered
+    private static void drive(HttpClient client,
+                              MixedScenario scenario,
+                              LoadSettings settings,
+                              Duration duration,
+                              LoadReport report) throws InterruptedException {
+        ExecutorService users = Executors.newFixedThreadPool(settings.users);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (int i = 0; i < settings.users; i++) {
+            users.execute(() -> {
+                Random random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    MixedScenario.Operation operation = scenario.next(random);
+                    long sent = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(operation.request(random), HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException exception) {
+                        status = -1;
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    report.record(operation.name, System.nanoTime() - sent, status);
+                }
+            });
+        }
+        users.shutdown();
+        users.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        report.finish((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.medrest.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadHarnessTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("A short run against a small data set records every answered request and writes the report")
+    void shortRun() throws Exception {
+        LoadSettings settings = new LoadSettings(200, 20, 20, 5, 4, Duration.ofSeconds(1), Duration.ofSeconds(2));
+
+        LoadReport report = LoadHarness.run(settings);
+        Path path = directory.resolve("load-report.json");
+        report.write(path);
+
+        long requests = report.endpoints().values().stream().mapToLong(LoadReport.EndpointStats::requests).sum();
+        assertTrue(requests > 0);
+        assertEquals(requests, report.total().requests());
+        assertTrue(report.total().serverErrors() * 100 < requests, report.total().serverErrors() + " server errors");
+        JsonNode json = new ObjectMapper().readTree(path.toFile());
+        assertEquals(requests, json.get("total").get("requests").asLong());
+        assertTrue(json.get("endpoints").has("GET /api/patients/{id}"));
+        assertTrue(json.get("total").get("p99Ms").asDouble() >= json.get("total").get("p50Ms").asDouble());
+    }
+}
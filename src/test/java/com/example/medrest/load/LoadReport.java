@@ -0,0 +1,125 @@
+package com.example.medrest.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Latency histograms and status counts per endpoint of one measured run. Latencies are recorded in microseconds
+ * with three significant digits; the report gives throughput, p50, p99, p99.9 and max per endpoint and for the
+ * whole run, as JSON for comparing runs and as a table for reading.
+ */
+final class LoadReport {
+    private final LoadSettings settings;
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final EndpointStats total = new EndpointStats();
+    private volatile double seconds;
+
+    LoadReport(LoadSettings settings) {
+        this.settings = settings;
+    }
+
+    void record(String endpoint, long nanos, int status) {
+        endpoints.computeIfAbsent(endpoint, name -> new EndpointStats()).record(nanos, status);
+        total.record(nanos, status);
+    }
+
+    void finish(double seconds) {
+        this.seconds = seconds;
+    }
+
+    Map<String, EndpointStats> endpoints() {
+        return endpoints;
+    }
+
+    EndpointStats total() {
+        return total;
+    }
+
+    void write(Path path) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", settings.users);
+        report.put("durationSeconds", seconds);
+        report.put("patients", settings.patients);
+        report.put("doctors", settings.doctors);
+        report.put("prescriptions", settings.prescriptions);
+        report.put("total", total.summary(seconds));
+        report.put("endpoints", sortedNames().stream()
+                .collect(Collectors.toMap(name -> name, name -> endpoints.get(name).summary(seconds),
+                        (first, second) -> first, LinkedHashMap::new)));
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+    }
+
+    void print(PrintStream out) {
+        String format = "%-56s %9s %9s %9s %9s %9s %9s %7s%n";
+        out.printf(format, "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        sortedNames().forEach(name -> print(out, format, name, endpoints.get(name)));
+        print(out, format, "total", total);
+    }
+
+    private void print(PrintStream out, String format, String name, EndpointStats stats) {
+        Map<String, Object> summary = stats.summary(seconds);
+        out.printf(format, name, summary.get("requests"), String.format("%.1f", (double) summary.get("throughput")),
+                summary.get("p50Ms"), summary.get("p99Ms"), summary.get("p999Ms"), summary.get("maxMs"),
+                summary.get("serverErrors"));
+    }
+
+    private List<String> sortedNames() {
+        return endpoints.keySet().stream().sorted().collect(Collectors.toList());
+    }
+
+    static final class EndpointStats {
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+
+        private void record(long nanos, int status) {
+            latencies.recordValue(Math.max(1, nanos / 1000));
+            if (status < 0 || status >= 500) {
+                serverErrors.increment();
+            } else if (status >= 400) {
+                clientErrors.increment();
+            }
+        }
+
+        long requests() {
+            return latencies.getTotalCount();
+        }
+
+        long serverErrors() {
+            return serverErrors.sum();
+        }
+
+        private Map<String, Object> summary(double seconds) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", latencies.getTotalCount());
+            summary.put("throughput", seconds > 0 ? latencies.getTotalCount() / seconds : 0.0);
+            summary.put("p50Ms", millis(latencies.getValueAtPercentile(50)));
+            summary.put("p99Ms", millis(latencies.getValueAtPercentile(99)));
+            summary.put("p999Ms", millis(latencies.getValueAtPercentile(99.9)));
+            summary.put("maxMs", millis(latencies.getMaxValue()));
+            summary.put("clientErrors", clientErrors.sum());
+            summary.put("serverErrors", serverErrors.sum());
+            return summary;
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.medrest.load;
+
+import java.time.Duration;
+
+/**
+ * Size of the seeded data set and shape of a load run, read from medrest.load.* system properties.
+ */
+final class LoadSettings {
+    final int patients;
+    final int doctors;
+    final int prescriptions;
+    final int referenceRows;
+    final int users;
+    final Duration warmup;
+    final Duration duration;
+
+    LoadSettings(int patients, int doctors, int prescriptions, int referenceRows, int users, Duration warmup, Duration duration) {
+        this.patients = patients;
+        this.doctors = doctors;
+        this.prescriptions = prescriptions;
+        this.referenceRows = referenceRows;
+        this.users = users;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    static LoadSettings fromSystemProperties() {
+        return new LoadSettings(Integer.getInteger("medrest.load.patients", 10000),
+                Integer.getInteger("medrest.load.doctors", 1000),
+                Integer.getInteger("medrest.load.prescriptions", 1000),
+                Integer.getInteger("medrest.load.reference-rows", 20),
+                Integer.getInteger("medrest.load.users", 16),
+                Duration.ofSeconds(Integer.getInteger("medrest.load.warmup-seconds", 10)),
+                Duration.ofSeconds(Integer.getInteger("medrest.load.duration-seconds", 60)));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.medrest.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * The mix of requests a virtual user draws from: mostly reads of single entities and pages, some writes, association
+ * changes and exports, covering every controller. Ids are drawn uniformly from the seeded rows, so reads hit the
+ * caches about as often as a production working set of that size would.
+ */
+final class MixedScenario {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final String JSON = "application/json";
+
+    private final URI base;
+    private final LoadSettings settings;
+    private final List<Operation> operations = new ArrayList<>();
+    private int totalWeight;
+
+    MixedScenario(URI base, LoadSettings settings) {
+        this.base = base;
+        this.settings = settings;
+
+        get("GET /api/patients/{id}", 20, random -> "/api/patients/" + patient(random));
+        get("GET /api/patients/infos", 6, random -> "/api/patients/infos?size=50");
+        get("GET /api/patients/search", 3, random -> "/api/patients/search?q="
+                + (random.nextBoolean() ? "last" + (1 + random.nextInt(1000)) : "0710" + random.nextInt(100)));
+        get("GET /api/patients/{id}/prescriptions", 4, random -> "/api/patients/" + patient(random) + "/prescriptions");
+        get("GET /api/patients/{id}/appointments", 4, random -> "/api/patients/" + patient(random) + "/appointments");
+        get("GET /api/doctors/{id}", 10, random -> "/api/doctors/" + doctor(random));
+        get("GET /api/doctors/infos", 4, random -> "/api/doctors/infos?size=50");
+        get("GET /api/prescriptions/{id}", 8, random -> "/api/prescriptions/" + prescription(random));
+        get("GET /api/prescriptions/infos", 4, random -> "/api/prescriptions/infos?page=" + random.nextInt(10) + "&size=50");
+        get("GET /api/locations/{id}", 2, random -> "/api/locations/" + reference(random));
+        get("GET /api/locations/infos", 3, random -> "/api/locations/infos");
+        get("GET /api/specialisations/{id}", 2, random -> "/api/specialisations/" + reference(random));
+        get("GET /api/specialisations/infos", 3, random -> "/api/specialisations/infos");
+        get("GET /api/departments/{id}", 2, random -> "/api/departments/" + reference(random));
+        get("GET /api/departments/names", 3, random -> "/api/departments/names");
+        get("GET /api/doctors/export", 1, random -> "/api/doctors/export");
+
+        write("POST /api/patients", 4, "POST", random -> "/api/patients",
+                random -> "{\"firstName\":\"Load\",\"lastName\":\"Patient\",\"phoneNumber\":\"0700000000\",\"emailAddress\":\"load@gmail.com\"}");
+        write("PATCH /api/patients/{id}", 4, "PATCH", random -> "/api/patients/" + patient(random),
+                random -> "{\"phoneNumber\":\"07" + (10000000 + random.nextInt(90000000)) + "\"}");
+        write("PUT /api/doctors/{id}", 2, "PUT", random -> "/api/doctors/" + doctor(random),
+                random -> "{\"name\":\"Doctor " + random.nextInt(1000) + "\",\"salary\":" + (5000 + random.nextInt(5000)) + "}");
+        write("PATCH /api/prescriptions/{id}", 2, "PATCH", random -> "/api/prescriptions/" + prescription(random),
+                random -> "{\"price\":" + (1 + random.nextInt(500)) + "}");
+        write("PATCH /api/locations/{id}", 1, "PATCH", random -> "/api/locations/" + reference(random),
+                random -> "{\"city\":\"City\",\"street\":\"Street " + random.nextInt(100) + "\",\"specialNumber\":" + (1 + random.nextInt(100)) + "}");
+        write("POST /api/patients/{id}/prescriptions/{prescriptionId}", 2, "POST",
+                random -> "/api/patients/" + patient(random) + "/prescriptions/" + prescription(random), null);
+        write("POST /api/patients/{id}/doctors/{doctorId}", 2, "POST",
+                random -> "/api/patients/" + patient(random) + "/doctors/" + doctor(random), null);
+        write("DELETE /api/patients/{id}/doctors/{doctorId}", 1, "DELETE", random -> {
+            // the seeded appointment of the patient, which an earlier draw may already have removed
+            int patient = patient(random);
+            return "/api/patients/" + patient + "/doctors/" + (1 + patient % settings.doctors);
+        }, null);
+        write("PATCH /api/doctors/{id}/department/{depId}", 1, "PATCH",
+                random -> "/api/doctors/" + doctor(random) + "/department/" + reference(random), null);
+    }
+
+    Operation next(Random random) {
+        int draw = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            draw -= operation.weight;
+            if (draw < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("The weights do not add up");
+    }
+
+    List<Operation> operations() {
+        return operations;
+    }
+
+    private void get(String name, int weight, Function<Random, String> path) {
+        add(new Operation(name, weight, random -> HttpRequest.newBuilder(base.resolve(path.apply(random)))
+                .timeout(TIMEOUT)
+                .GET()
+                .build()));
+    }
+
+    private void write(String name, int weight, String method, Function<Random, String> path, Function<Random, String> body) {
+        add(new Operation(name, weight, random -> {
+            HttpRequest.Builder request = HttpRequest.newBuilder(base.resolve(path.apply(random))).timeout(TIMEOUT);
+            if (body == null) {
+                return request.method(method, HttpRequest.BodyPublishers.noBody()).build();
+            }
+            return request.header("Content-Type", JSON)
+                    .method(method, HttpRequest.BodyPublishers.ofString(body.apply(random)))
+                    .build();
+        }));
+    }
+
+    private void add(Operation operation) {
+        operations.add(operation);
+        totalWeight += operation.weight;
+    }
+
+    private int patient(Random random) {
+        return 1 + random.nextInt(settings.patients);
+    }
+
+    private int doctor(Random random) {
+        return 1 + random.nextInt(settings.doctors);
+    }
+
+    private int prescription(Random random) {
+        return 1 + random.nextInt(settings.prescriptions);
+    }
+
+    private int reference(Random random) {
+        return 1 + random.nextInt(settings.referenceRows);
+    }
+
+    static final class Operation {
+        final String name;
+        final int weight;
+        private final Function<Random, HttpRequest> request;
+
+        private Operation(String name, int weight, Function<Random, HttpRequest> request) {
+            this.name = name;
+            this.weight = weight;
+            this.request = request;
+        }
+
+        HttpRequest request(Random random) {
+            return request.apply(random);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.medrest.metrics;
+
+import com.example.medrest.controller.LocationController;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class OperationTagsContributorTest {
+    private final OperationTagsContributor contributor = new OperationTagsContributor();
+
+    @Test
+    @DisplayName("Requests are tagged with the operationId of the endpoint")
+    void requestsAreTaggedWithTheOperationId() throws NoSuchMethodException {
+        HandlerMethod handler = new HandlerMethod(mock(LocationController.class),
+                LocationController.class.getMethod("getLocation", Long.class, String.class, WebRequest.class));
+
+        Iterable<Tag> tags = contributor.getTags(new MockHttpServletRequest(), new MockHttpServletResponse(), handler, null);
+
+        assertEquals(Tags.of("operation", "getLocation"), Tags.of(tags));
+    }
+
+    @Test
+    @DisplayName("Requests without a handler method are tagged with none")
+    void requestsWithoutAHandlerMethodAreTaggedWithNone() {
+        Iterable<Tag> tags = contributor.getTags(new MockHttpServletRequest(), new MockHttpServletResponse(), null, null);
+
+        assertEquals(Tags.of("operation", "none"), Tags.of(tags));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.medrest.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.Metamodel;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.metamodel.EntityType;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class QueryMetricsTest {
+    private static final String SELECT_IN = "select generatedAlias0 from com.example.medrest.model.Patient as generatedAlias0 " +
+            "where generatedAlias0.id in (:param0, :param1)";
+    private static final String SELECT_DTO = "select new com.example.medrest.dto.PatientDto(p.firstName, p.lastName, " +
+            "p.phoneNumber, p.emailAddress) from Patient p";
+    private static final String UPDATE = "update Patient p set p.firstName = :firstName where p.id = :id";
+    private static final String NATIVE_INSERT = "insert into patients_doctors (patient_id, doctor_id) select :patientId, :doctorId";
+
+    private final Statistics statistics = mock(Statistics.class);
+    private QueryMetrics queryMetrics;
+
+    @BeforeEach
+    public void setup() {
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        Metamodel metamodel = mock(Metamodel.class);
+        EntityType<?> patient = mock(EntityType.class);
+        when(patient.getName()).thenReturn("Patient");
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        when(sessionFactory.getMetamodel()).thenReturn(metamodel);
+        doReturn(Set.of(patient)).when(metamodel).getEntities();
+        queryMetrics = new QueryMetrics(sessionFactory);
+    }
+
+    @Test
+    @DisplayName("Queries are named by their entity and operation")
+    void queriesAreNamedByEntityAndOperation() {
+        assertEquals(List.of("Patient", "select"), queryMetrics.nameOf(SELECT_IN));
+        assertEquals(List.of("Patient", "select"), queryMetrics.nameOf(SELECT_DTO));
+        assertEquals(List.of("Patient", "update"), queryMetrics.nameOf(UPDATE));
+        assertEquals(List.of("Patient", "delete"), queryMetrics.nameOf("delete from Patient p where p.id = :id"));
+        assertEquals(List.of(QueryMetrics.OTHER, "insert"), queryMetrics.nameOf(NATIVE_INSERT));
+    }
+
+    @Test
+    @DisplayName("The statistics of the queries of an entity and operation are summed up under one set of tags")
+    void statisticsAreSummedUpByName() {
+        QueryStatistics selectIn = statistics(3, 30, 20);
+        QueryStatistics selectDto = statistics(2, 10, 5);
+        QueryStatistics update = statistics(1, 4, 4);
+        when(statistics.getQueries()).thenReturn(new String[]{SELECT_IN, SELECT_DTO, UPDATE});
+        when(statistics.getQueryStatistics(SELECT_IN)).thenReturn(selectIn);
+        when(statistics.getQueryStatistics(SELECT_DTO)).thenReturn(selectDto);
+        when(statistics.getQueryStatistics(UPDATE)).thenReturn(update);
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        queryMetrics.bindTo(registry);
+
+        assertEquals(5, registry.get("hibernate.query.execution.total")
+                .tags("entity", "Patient", "operation", "select").functionTimer().count());
+        assertEquals(40, registry.get("hibernate.query.execution.total")
+                .tags("entity", "Patient", "operation", "select").functionTimer().totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(20, registry.get("hibernate.query.execution.max")
+                .tags("entity", "Patient", "operation", "select").timeGauge().value(TimeUnit.MILLISECONDS));
+        assertEquals(1, registry.get("hibernate.query.execution.total")
+                .tags("entity", "Patient", "operation", "update").functionTimer().count());
+        // one timer per entity and operation, however many query texts there are
+        assertEquals(8, registry.get("hibernate.query.execution.total").functionTimers().size());
+        // the meters read so far shared the totals of one pass over the statistics
+        verify(statistics, times(1)).getQueries();
+    }
+
+    @Test
+    @DisplayName("The names of the queries Hibernate no longer keeps statistics of are dropped")
+    void namesArePrunedWithTheStatistics() {
+        QueryStatistics update = statistics(1, 4, 4);
+        queryMetrics.nameOf(SELECT_IN);
+        queryMetrics.nameOf(UPDATE);
+        when(statistics.getQueries()).thenReturn(new String[]{UPDATE});
+        when(statistics.getQueryStatistics(UPDATE)).thenReturn(update);
+
+        queryMetrics.sumUp();
+
+        assertEquals(Set.of(UPDATE), queryMetrics.names.keySet());
+    }
+
+    private static QueryStatistics statistics(long executions, long totalMillis, long maxMillis) {
+        QueryStatistics queryStatistics = mock(QueryStatistics.class);
+        when(queryStatistics.getExecutionCount()).thenReturn(executions);
+        when(queryStatistics.getExecutionTotalTime()).thenReturn(totalMillis);
+        when(queryStatistics.getExecutionMaxTime()).thenReturn(maxMillis);
+        return queryStatistics;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.medrest.metrics;
+
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.export.RowStreams;
+import com.example.medrest.model.Location;
+import com.example.medrest.repository.LocationRepository;
+import com.example.medrest.service.LocationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ServiceTimingPostProcessorTest {
+    private final LocationRepository locationRepository = mock(LocationRepository.class);
+    private MeterRegistry meterRegistry;
+    private LocationService locationService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        ServiceTimingPostProcessor postProcessor = new ServiceTimingPostProcessor(beanFactory.getBeanProvider(MeterRegistry.class));
+        locationService = (LocationService) postProcessor.postProcessAfterInitialization(
+                new LocationService(locationRepository, mock(ChangeCounters.class), mock(RowStreams.class)), "locationService");
+    }
+
+    @Test
+    @DisplayName("Every call of a service method is timed under the service and the method")
+    void serviceCallsAreTimed() {
+        when(locationRepository.findById(anyLong())).thenReturn(Optional.of(new Location()));
+
+        locationService.getLocationById(1L);
+        locationService.getLocationById(2L);
+
+        Timer timer = meterRegistry.find(ServiceTimingPostProcessor.METRIC_NAME)
+                .tags("service", "LocationService", "method", "getLocationById", "exception", "none")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    @DisplayName("A call which throws is timed under the exception it throws")
+    void failedServiceCallsAreTaggedWithTheException() {
+        when(locationRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> locationService.getLocationById(1L));
+
+        Timer timer = meterRegistry.find(ServiceTimingPostProcessor.METRIC_NAME)
+                .tags("method", "getLocationById", "exception", "NotFoundException")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+}
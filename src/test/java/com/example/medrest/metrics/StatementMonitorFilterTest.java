@@ -0,0 +1,77 @@
+package com.example.medrest.metrics;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementMonitorFilterTest {
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setup() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(StatementRecording.wrap(dataSource));
+        jdbcTemplate.execute("create table if not exists doctors (id bigint primary key, name varchar(50))");
+    }
+
+    @Test
+    @DisplayName("The statements sent before the response is written are counted in the response headers")
+    void statementsAreCountedInTheResponseHeaders() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (request, servletResponse) -> {
+            jdbcTemplate.queryForList("select name from doctors where id = ?", 1L);
+            jdbcTemplate.queryForList("select name from doctors where id = ?", 2L);
+            servletResponse.getOutputStream().write('x');
+            jdbcTemplate.queryForList("select name from doctors where id = ?", 3L);
+        };
+
+        new StatementMonitorFilter(10, Duration.ofSeconds(1), true).doFilter(new MockHttpServletRequest(), response, chain);
+
+        assertEquals("2", response.getHeader(StatementMonitorFilter.COUNT_HEADER));
+        assertNotNull(response.getHeader(StatementMonitorFilter.TIME_HEADER));
+    }
+
+    @Test
+    @DisplayName("Statements are only recorded while a request is being served")
+    void statementsOutsideOfARequestAreNotRecorded() throws Exception {
+        StatementLog[] log = new StatementLog[1];
+        FilterChain chain = (request, response) -> {
+            jdbcTemplate.update("insert into doctors (id, name) values (?, ?)", 100L, "Val");
+            log[0] = StatementLog.current();
+        };
+
+        new StatementMonitorFilter(10, Duration.ofSeconds(1), false)
+                .doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), chain);
+        jdbcTemplate.queryForList("select name from doctors");
+
+        assertNull(StatementLog.current());
+        assertEquals(1, log[0].count());
+    }
+
+    @Test
+    @DisplayName("Statements differing only in their literals are grouped under one shape")
+    void repeatedStatementsAreGroupedByShape() {
+        StatementLog log = new StatementLog();
+        log.record("select * from doctors where id = 1", 10);
+        log.record("select * from doctors where id = 2", 10);
+        log.record("select * from patients where id in (?, ?, ?)", 10);
+
+        Map.Entry<String, Integer> repeated = log.mostRepeated();
+
+        assertEquals("select * from doctors where id = ?", repeated.getKey());
+        assertEquals(2, repeated.getValue());
+        assertEquals("select * from patients where id in (...)", StatementLog.shape("select * from patients where id in (1, 2, 3)"));
+        assertEquals(30, log.nanos());
+    }
+}
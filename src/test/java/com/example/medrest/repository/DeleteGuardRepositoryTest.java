@@ -0,0 +1,77 @@
+package com.example.medrest.repository;
+
+import com.example.medrest.configuration.JpaConfiguration;
+import com.example.medrest.model.Department;
+import com.example.medrest.model.Doctor;
+import com.example.medrest.model.Location;
+import com.example.medrest.model.Specialisation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(JpaConfiguration.class)
+@ActiveProfiles("test")
+class DeleteGuardRepositoryTest {
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    private Department usedDepartment;
+    private Department emptyDepartment;
+    private Specialisation usedSpecialisation;
+    private Specialisation unusedSpecialisation;
+    private Location usedLocation;
+    private Location unusedLocation;
+
+    @BeforeEach
+    public void setup() {
+        usedLocation = entityManager.persist(new Location("Ploiesti", "Republicii", 25));
+        unusedLocation = entityManager.persist(new Location("Bucuresti", "Victoriei", 12));
+        usedDepartment = new Department("Cardiology");
+        usedDepartment.setLocation(usedLocation);
+        usedDepartment = entityManager.persist(usedDepartment);
+        emptyDepartment = entityManager.persist(new Department("Dermatology"));
+        usedSpecialisation = entityManager.persist(new Specialisation("Cardiologist", 1000, 9000));
+        unusedSpecialisation = entityManager.persist(new Specialisation("Dermatologist", 1000, 9000));
+
+        Doctor doctor = new Doctor("Gelu Andrei", 10000);
+        doctor.setDepartment(usedDepartment);
+        doctor.setSpecialization(usedSpecialisation);
+        entityManager.persist(doctor);
+        // a doctor without department or specialisation used to break the old in-memory checks
+        entityManager.persist(new Doctor("Bucur Andrei", 10000));
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Departments are guarded only while doctors are assigned to them")
+    void existsByDepartmentId() {
+        assertTrue(doctorRepository.existsByDepartmentId(usedDepartment.getId()));
+        assertFalse(doctorRepository.existsByDepartmentId(emptyDepartment.getId()));
+    }
+
+    @Test
+    @DisplayName("Specialisations are guarded only while doctors have them set")
+    void existsBySpecializationId() {
+        assertTrue(doctorRepository.existsBySpecializationId(usedSpecialisation.getId()));
+        assertFalse(doctorRepository.existsBySpecializationId(unusedSpecialisation.getId()));
+    }
+
+    @Test
+    @DisplayName("Locations are guarded only while departments are set in them")
+    void existsByLocationId() {
+        assertTrue(departmentRepository.existsByLocationId(usedLocation.getId()));
+        assertFalse(departmentRepository.existsByLocationId(unusedLocation.getId()));
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.medrest.repository;
+
+import com.example.medrest.configuration.JpaConfiguration;
+import com.example.medrest.dto.DoctorDto;
+import com.example.medrest.filter.Filters;
+import com.example.medrest.mapper.DoctorMapper;
+import com.example.medrest.model.Department;
+import com.example.medrest.model.Doctor;
+import com.example.medrest.model.Patient;
+import com.example.medrest.model.Specialisation;
+import com.example.medrest.pagination.KeysetRequest;
+import com.example.medrest.pagination.KeysetSlice;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(JpaConfiguration.class)
+@ActiveProfiles("test")
+class DoctorStatementCountTest {
+    private static final int DOCTORS = 10;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private Statistics statistics;
+    private Long patientId;
+
+    @BeforeEach
+    public void setup() {
+        Department department = entityManager.persist(new Department("Cardiology"));
+        Specialisation specialisation = entityManager.persist(new Specialisation("Cardiologist", 1000, 9000));
+        Patient patient = new Patient("Val", "Andrei", "0730000000", "email@gmail.com");
+        for (int i = 0; i < DOCTORS; i++) {
+            Doctor doctor = new Doctor("Doctor " + i, 5000 + i);
+            doctor.setDepartment(department);
+            doctor.setSpecialization(specialisation);
+            patient.addDoctor(entityManager.persist(doctor));
+        }
+        patientId = entityManager.persist(patient).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("A keyset page of doctors is projected with a single statement")
+    void keysetListingIsOneStatement() {
+        KeysetSlice<DoctorDto> doctors = doctorRepository.findKeysetSlice(KeysetRequest.of("name", DOCTORS, null, Set.of("name")),
+                DoctorMapper.DTO_PROPERTIES, DoctorMapper::tupleToDoctorDto);
+
+        assertEquals(DOCTORS, doctors.getContent().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Filters on a number are bound as parameters, two salaries are one and the same query")
+    void numericFiltersAreBound() {
+        assertEquals(5, salaryFrom("5005").getContent().size());
+        assertEquals(4, salaryFrom("5006").getContent().size());
+
+        assertEquals(1, statistics.getQueries().length);
+        assertEquals(2, statistics.getQueryStatistics(statistics.getQueries()[0]).getExecutionCount());
+    }
+
+    @Test
+    @DisplayName("An offset page of doctors is projected with a single statement")
+    void offsetListingIsOneStatement() {
+        Slice<DoctorDto> doctors = doctorRepository.findDtoBy(PageRequest.of(0, DOCTORS, Sort.by("id")));
+
+        assertEquals(DOCTORS, doctors.getContent().size());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("The doctors of a patient are projected with a single statement")
+    void patientDoctorsAreOneStatement() {
+        List<DoctorDto> doctors = patientRepository.findDoctorDtosByPatientId(patientId);
+
+        assertEquals(DOCTORS, doctors.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Replacing a doctor is a single update which leaves the department and specialisation alone")
+    void updateIsOneStatement() {
+        Long doctorId = doctorRepository.findAll().iterator().next().getId();
+        statistics.clear();
+
+        assertEquals(1, doctorRepository.updateById(doctorId, new Doctor("Gelu Andrei", 10000), null));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, doctorRepository.updateById(-1L, new Doctor("Gelu Andrei", 10000), null));
+
+        entityManager.clear();
+        Doctor doctor = entityManager.find(Doctor.class, doctorId);
+        assertEquals("Gelu Andrei", doctor.getName());
+        assertNotNull(doctor.getDepartment());
+        assertNotNull(doctor.getSpecialization());
+    }
+
+    private Slice<DoctorDto> salaryFrom(String salary) {
+        MultiValueMap<String, String> parameters = new LinkedMultiValueMap<>();
+        parameters.add("salary>", salary);
+        Specification<Doctor> filter = Filters.parse(parameters, DoctorMapper.DTO_PROPERTIES, Set.of("salary"));
+        return doctorRepository.findSlice(PageRequest.of(0, DOCTORS, Sort.by("id")), filter,
+                DoctorMapper.DTO_PROPERTIES, DoctorMapper::tupleToDoctorDto);
+    }
+
+    @Test
+    @DisplayName("A patient is deleted together with its appointments and prescriptions in three statements")
+    void patientDeleteIsThreeStatements() {
+        // the bulk delete empties the join tables the patient owns before deleting the patient
+        assertEquals(1, patientRepository.removeById(patientId));
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertFalse(patientRepository.existsById(patientId));
+        assertEquals(0, ((Number) entityManager.getEntityManager()
+                .createNativeQuery("select count(*) from patients_doctors").getSingleResult()).intValue());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.medrest.repository;
+
+import com.example.medrest.configuration.JpaConfiguration;
+import com.example.medrest.exception.BadRequestException;
+import com.example.medrest.filter.Filters;
+import com.example.medrest.mapper.PatientMapper;
+import com.example.medrest.model.Patient;
+import com.example.medrest.pagination.KeysetRequest;
+import com.example.medrest.pagination.KeysetSlice;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Tuple;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(JpaConfiguration.class)
+@ActiveProfiles("test")
+class KeysetRepositoryTest {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @BeforeEach
+    public void setup() {
+        patientRepository.saveAll(List.of(
+                new Patient("Ana", "Popescu", "0730000001", "ana.popescu@gmail.com"),
+                new Patient("Bogdan", "Ionescu", "0730000002", "bogdan@gmail.com"),
+                new Patient("Ana", "Marin", "0730000003", "ana.marin@gmail.com"),
+                new Patient("Ana", "Dobre", "0730000004", "ana.dobre@gmail.com"),
+                new Patient("Cristi", "Popa", "0730000005", "cristi@gmail.com")));
+    }
+
+    @Test
+    @DisplayName("Following the cursors visits every patient once, ordered by the sort value and then by id")
+    void walkAscending() {
+        assertEquals(List.of("Ana Popescu", "Ana Marin", "Ana Dobre", "Bogdan Ionescu", "Cristi Popa"),
+                walk("firstName", 2));
+    }
+
+    @Test
+    @DisplayName("Descending cursors seek backwards on both the sort value and the id")
+    void walkDescending() {
+        assertEquals(List.of("Cristi Popa", "Bogdan Ionescu", "Ana Dobre", "Ana Marin", "Ana Popescu"),
+                walk("firstName,desc", 2));
+        assertEquals(walk("firstName,desc", 2), walk("-firstName", 2));
+    }
+
+    @Test
+    @DisplayName("The pages after the first one are the same query, the cursor values being bound as parameters")
+    void cursorValuesAreBound() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String cursor = patientRepository.findKeysetSlice(KeysetRequest.of("firstName", 1, null, Set.of("firstName"))).getNextCursor();
+        statistics.clear();
+
+        for (int page = 0; page < 3; page++) {
+            cursor = patientRepository.findKeysetSlice(KeysetRequest.of("firstName", 1, cursor, Set.of("firstName"))).getNextCursor();
+        }
+
+        assertEquals(1, statistics.getQueries().length);
+        assertEquals(3, statistics.getQueryStatistics(statistics.getQueries()[0]).getExecutionCount());
+    }
+
+    @Test
+    @DisplayName("No cursor is returned when the page holds the remaining rows")
+    void lastPageHasNoCursor() {
+        KeysetSlice<Patient> slice = patientRepository.findKeysetSlice(KeysetRequest.of(null, 5, null, Set.of()));
+
+        assertEquals(5, slice.getContent().size());
+        assertFalse(slice.hasNext());
+    }
+
+    @Test
+    @DisplayName("A projected slice holds only the chosen properties and tells whether another page exists")
+    void projectedSlice() {
+        Slice<Tuple> slice = patientRepository.findSlice(PageRequest.of(1, 2, Sort.by("lastName")), null, List.of("lastName"), tuple -> tuple);
+
+        assertEquals(List.of("Marin", "Popa"), slice.getContent().stream()
+                .map(tuple -> tuple.get("lastName", String.class))
+                .collect(Collectors.toList()));
+        assertEquals(1, slice.getContent().get(0).getElements().size());
+        assertTrue(slice.hasNext());
+    }
+
+    @Test
+    @DisplayName("Filters narrow a projected page and are bound as parameters, wildcards included")
+    void filteredSlice() {
+        assertEquals(List.of("Popa", "Popescu"), lastNames(filter("lastName^", "Pop")));
+        assertEquals(List.of("Popa"), lastNames(filter("lastName^", "Pop").and(filter("phoneNumber>0730000001", ""))));
+        assertEquals(List.of("Dobre", "Marin"), lastNames(filter("firstName", "Ana").and(filter("phoneNumber>", "0730000003"))));
+        assertEquals(List.of(), lastNames(filter("lastName^", "Pop%")));
+    }
+
+    @Test
+    @DisplayName("The cursors of a filtered listing only visit the matching rows")
+    void filteredWalk() {
+        Specification<Patient> filter = filter("firstName", "Ana");
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetSlice<String> slice = patientRepository.findKeysetSlice(KeysetRequest.of("-lastName", 1, cursor, Set.of("lastName")),
+                    filter, List.of("lastName"), tuple -> tuple.get("lastName", String.class));
+            names.addAll(slice.getContent());
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+        assertEquals(List.of("Popescu", "Marin", "Dobre"), names);
+    }
+
+    @Test
+    @DisplayName("Filtering on a property which is not indexed, or with a value of the wrong type, is a bad request")
+    void invalidFilters() {
+        assertThrows(BadRequestException.class, () -> Filters.parse(parameters("lastName^", "Pop"),
+                PatientMapper.DTO_PROPERTIES, Set.of("firstName")));
+        assertThrows(BadRequestException.class, () -> lastNames(filter("id>", "two")));
+    }
+
+    private List<String> lastNames(Specification<Patient> filter) {
+        return patientRepository.findSlice(PageRequest.of(0, 10, Sort.by("lastName")), filter, List.of("lastName"),
+                        tuple -> tuple.get("lastName", String.class))
+                .getContent();
+    }
+
+    private static Specification<Patient> filter(String name, String value) {
+        return Filters.parse(parameters(name, value), PatientMapper.DTO_PROPERTIES, Set.of("firstName", "lastName", "phoneNumber"));
+    }
+
+    private static MultiValueMap<String, String> parameters(String name, String value) {
+        MultiValueMap<String, String> parameters = new LinkedMultiValueMap<>();
+        parameters.add(name, value);
+        return parameters;
+    }
+
+    private List<String> walk(String sort, int size) {
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetSlice<Patient> slice = patientRepository.findKeysetSlice(
+                    KeysetRequest.of(sort, size, cursor, Set.of("firstName")));
+            assertTrue(slice.getContent().size() <= size);
+            slice.getContent().forEach(patient -> names.add(patient.getFirstName() + " " + patient.getLastName()));
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+        return names;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.medrest.repository;
+
+import com.example.medrest.configuration.JpaConfiguration;
+import com.example.medrest.model.Doctor;
+import com.example.medrest.model.Patient;
+import com.example.medrest.model.Prescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(JpaConfiguration.class)
+@ActiveProfiles("test")
+class OptimisticLockingTest {
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private Long doctorId;
+    private Long patientId;
+
+    @BeforeEach
+    public void setup() {
+        doctorId = entityManager.persist(new Doctor("Gelu Andrei", 10000)).getId();
+        patientId = entityManager.persist(new Patient("Val", "Andrei", "0730000000", "email@gmail.com")).getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("A replace bumps the version and one made against an older version changes nothing")
+    void updateChecksTheVersion() {
+        Long version = entityManager.find(Doctor.class, doctorId).getVersion();
+        entityManager.clear();
+
+        assertEquals(1, doctorRepository.updateById(doctorId, new Doctor("Ion Popa", 9000), version));
+        assertEquals(0, doctorRepository.updateById(doctorId, new Doctor("Dan Dinu", 8000), version));
+
+        entityManager.clear();
+        Doctor doctor = entityManager.find(Doctor.class, doctorId);
+        assertEquals(version + 1, doctor.getVersion());
+        assertEquals("Ion Popa", doctor.getName());
+    }
+
+    @Test
+    @DisplayName("Saving a doctor read before a concurrent write fails instead of overwriting that write")
+    void staleSaveIsRejected() {
+        Doctor doctor = entityManager.find(Doctor.class, doctorId);
+        entityManager.detach(doctor);
+        doctorRepository.updateById(doctorId, new Doctor("Ion Popa", 9000), null);
+        entityManager.clear();
+
+        doctor.setSalary(12000);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> doctorRepository.save(doctor));
+    }
+
+    @Test
+    @DisplayName("Giving a patient a prescription does not change the version of the patient")
+    void prescriptionLinksAreNotVersioned() {
+        Prescription prescription = entityManager.persist(new Prescription("Augmentin", 35, 1));
+        Patient patient = entityManager.find(Patient.class, patientId);
+        Long version = patient.getVersion();
+
+        patient.addPrescription(prescription);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(version, entityManager.find(Patient.class, patientId).getVersion());
+        assertEquals(1, patientRepository.findPrescriptionDtosByPatientId(patientId).size());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.medrest.repository;
+
+import com.example.medrest.configuration.JpaConfiguration;
+import com.example.medrest.model.Doctor;
+import com.example.medrest.model.Patient;
+import com.example.medrest.model.Prescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(JpaConfiguration.class)
+@ActiveProfiles("test")
+class PatientLinkRepositoryTest {
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    private Long patientId;
+    private Long augmentinId;
+    private Long nurofenId;
+    private Long paracetamolId;
+    private Long doctorId;
+
+    @BeforeEach
+    public void setup() {
+        Prescription augmentin = entityManager.persist(new Prescription("Augmentin", 35, 1));
+        Prescription nurofen = entityManager.persist(new Prescription("Nurofen", 20, 2));
+        Prescription paracetamol = entityManager.persist(new Prescription("Paracetamol", 10, 3));
+        doctorId = entityManager.persist(new Doctor("Gelu Andrei", 10000)).getId();
+        Patient patient = new Patient("Val", "Andrei", "0730000000", "email@gmail.com");
+        patient.addPrescription(augmentin);
+        patientId = entityManager.persist(patient).getId();
+        augmentinId = augmentin.getId();
+        nurofenId = nurofen.getId();
+        paracetamolId = paracetamol.getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Only the prescriptions which exist are resolved")
+    void findExistingIds() {
+        List<Long> existingIds = prescriptionRepository.findExistingIds(List.of(augmentinId, nurofenId, -1L));
+
+        assertEquals(2, existingIds.size());
+        assertTrue(existingIds.containsAll(List.of(augmentinId, nurofenId)));
+    }
+
+    @Test
+    @DisplayName("Links which already exist are skipped when several prescriptions are given to a patient")
+    void insertMissingPrescriptionLinks() {
+        int inserted = patientRepository.insertMissingPrescriptionLinks(patientId, List.of(augmentinId, nurofenId, paracetamolId));
+
+        assertEquals(2, inserted);
+        assertEquals(3, patientRepository.findPrescriptionDtosByPatientId(patientId).size());
+        assertEquals(0, patientRepository.insertMissingPrescriptionLinks(patientId, List.of(nurofenId)));
+    }
+
+    @Test
+    @DisplayName("An appointment is inserted once and only between existing rows")
+    void insertDoctorLink() {
+        assertEquals(1, patientRepository.insertDoctorLink(patientId, doctorId));
+        assertEquals(0, patientRepository.insertDoctorLink(patientId, doctorId));
+        assertEquals(0, patientRepository.insertDoctorLink(patientId, -1L));
+        assertTrue(patientRepository.existsDoctorLink(patientId, doctorId));
+        assertFalse(patientRepository.existsDoctorLink(patientId, -1L));
+    }
+
+    @Test
+    @DisplayName("Removing an appointment deletes exactly its row")
+    void deleteDoctorLink() {
+        patientRepository.insertDoctorLink(patientId, doctorId);
+
+        assertEquals(1, patientRepository.deleteDoctorLink(patientId, doctorId));
+        assertEquals(0, patientRepository.deleteDoctorLink(patientId, doctorId));
+        assertFalse(patientRepository.existsDoctorLink(patientId, doctorId));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.medrest.repository;
+
+import com.example.medrest.configuration.JpaConfiguration;
+import com.example.medrest.dto.SpecialisationDto;
+import com.example.medrest.model.Specialisation;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The second-level cache only sees committed transactions, so every step runs and commits in its own transaction
+ * instead of in the rolled back transaction of the test.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(JpaConfiguration.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReferenceCacheTest {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private SpecialisationRepository specialisationRepository;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private Long specialisationId;
+
+    @BeforeEach
+    public void setup() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        specialisationId = transactionTemplate.execute(status ->
+                specialisationRepository.save(new Specialisation("Cardiologist", 1000, 9000)).getId());
+        // the committed insert was put in the cache, the tests start from an entity which was never loaded
+        entityManagerFactory.getCache().evictAll();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        transactionTemplate.executeWithoutResult(status -> specialisationRepository.deleteAll());
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("A specialisation is read from the second-level cache once it was loaded")
+    void entityIsCached() {
+        specialisationRepository.findById(specialisationId);
+        specialisationRepository.findById(specialisationId);
+
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Replacing a specialisation evicts it from the second-level cache")
+    void updateEvictsEntity() {
+        specialisationRepository.findById(specialisationId);
+
+        transactionTemplate.executeWithoutResult(status ->
+                specialisationRepository.updateById(specialisationId, new Specialisation("Neurologist", 2000, 8000), null));
+        statistics.clear();
+        Specialisation specialisation = specialisationRepository.findById(specialisationId).orElseThrow();
+
+        assertEquals("Neurologist", specialisation.getName());
+        assertEquals(0, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("A cached specialisation query is answered from the cache until the table changes")
+    void queryIsCachedUntilUpdate() {
+        specialisationRepository.findDtoById(specialisationId);
+        specialisationRepository.findDtoById(specialisationId);
+
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        transactionTemplate.executeWithoutResult(status ->
+                specialisationRepository.updateById(specialisationId, new Specialisation("Neurologist", 2000, 8000), null));
+        SpecialisationDto specialisation = specialisationRepository.findDtoById(specialisationId).orElseThrow();
+
+        assertEquals("Neurologist", specialisation.getName());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+}
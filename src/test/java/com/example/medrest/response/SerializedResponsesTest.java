@@ -0,0 +1,102 @@
+package com.example.medrest.response;
+
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializedResponsesTest {
+    private final ChangeCounters changeCounters = new ChangeCounters();
+    private final SerializedResponses serializedResponses = new SerializedResponses(changeCounters, new ObjectMapper(), Duration.ofMinutes(1));
+    private final ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+
+    @Test
+    @DisplayName("The loader runs again only after the resource's counter was bumped")
+    void storedUntilTheNextWrite() {
+        AtomicInteger loads = new AtomicInteger();
+        ResponseEntity<byte[]> first = serializedResponses.respond(ResourceType.LOCATIONS, request, () -> {
+            loads.incrementAndGet();
+            return ResponseEntity.ok().header("X-Next-Cursor", "abc").body(List.of("Cluj"));
+        });
+        ResponseEntity<byte[]> second = serializedResponses.respond(ResourceType.LOCATIONS, request, () -> ResponseEntity.ok(List.of("Iasi")));
+
+        assertEquals("[\"Cluj\"]", new String(second.getBody(), StandardCharsets.UTF_8));
+        assertSame(first.getBody(), second.getBody());
+        assertEquals("abc", second.getHeaders().getFirst("X-Next-Cursor"));
+        assertEquals(changeCounters.eTag(ResourceType.LOCATIONS), second.getHeaders().getETag());
+        assertEquals(1, loads.get());
+
+        changeCounters.changed(ResourceType.LOCATIONS);
+        ResponseEntity<byte[]> third = serializedResponses.respond(ResourceType.LOCATIONS, request, () -> ResponseEntity.ok(List.of("Iasi")));
+        assertEquals("[\"Iasi\"]", new String(third.getBody(), StandardCharsets.UTF_8));
+        assertNull(third.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    @DisplayName("The loader runs again once the stored response outlived its time to live, writes or not")
+    void storedUntilTheTimeToLiveRunsOut() {
+        SerializedResponses expiring = new SerializedResponses(changeCounters, new ObjectMapper(), Duration.ZERO);
+        expiring.respond(ResourceType.LOCATIONS, request, () -> ResponseEntity.ok(List.of("Cluj")));
+
+        ResponseEntity<byte[]> reloaded = expiring.respond(ResourceType.LOCATIONS, request, () -> ResponseEntity.ok(List.of("Iasi")));
+
+        assertEquals("[\"Iasi\"]", new String(reloaded.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("The gzipped copy has its own ETag and both copies add Accept-Encoding to the loaded Vary")
+    void gzippedCopyIsARepresentationOfItsOwn() {
+        MockHttpServletRequest gzipRequest = new MockHttpServletRequest();
+        gzipRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        ResponseEntity<byte[]> gzipped = serializedResponses.respond(ResourceType.LOCATIONS, new ServletWebRequest(gzipRequest),
+                () -> ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(List.of("Cluj")));
+        ResponseEntity<byte[]> plain = serializedResponses.respond(ResourceType.LOCATIONS, request, () -> ResponseEntity.ok(List.of("Iasi")));
+
+        String eTag = changeCounters.eTag(ResourceType.LOCATIONS);
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(eTag.substring(0, eTag.length() - 1) + "-gzip\"", gzipped.getHeaders().getETag());
+        assertEquals(eTag, plain.getHeaders().getETag());
+        assertEquals(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING), gzipped.getHeaders().getVary());
+        assertEquals(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING), plain.getHeaders().getVary());
+    }
+
+    @Test
+    @DisplayName("A request repeating the tag of the encoding it accepts is not modified, without loading anything")
+    void notModifiedPerEncoding() {
+        String eTag = changeCounters.eTag(ResourceType.LOCATIONS);
+        MockHttpServletRequest gzipRequest = new MockHttpServletRequest("GET", "/api/locations/infos");
+        gzipRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        gzipRequest.addHeader(HttpHeaders.IF_NONE_MATCH, eTag.substring(0, eTag.length() - 1) + "-gzip\"");
+        MockHttpServletRequest plainRequest = new MockHttpServletRequest("GET", "/api/locations/infos");
+        plainRequest.addHeader(HttpHeaders.IF_NONE_MATCH, eTag.substring(0, eTag.length() - 1) + "-gzip\"");
+
+        assertNull(serializedResponses.respond(ResourceType.LOCATIONS,
+                new ServletWebRequest(gzipRequest, new MockHttpServletResponse()), () -> fail("loaded")));
+        assertNotNull(serializedResponses.respond(ResourceType.LOCATIONS,
+                new ServletWebRequest(plainRequest, new MockHttpServletResponse()), () -> ResponseEntity.ok(List.of("Cluj"))));
+    }
+
+    @Test
+    @DisplayName("gzip is used when the client accepts it, and not when its quality is zero")
+    void acceptEncoding() {
+        assertTrue(SerializedResponses.acceptsGzip("gzip, deflate, br"));
+        assertTrue(SerializedResponses.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(SerializedResponses.acceptsGzip("*"));
+        assertFalse(SerializedResponses.acceptsGzip("gzip;q=0"));
+        assertFalse(SerializedResponses.acceptsGzip("deflate"));
+        assertFalse(SerializedResponses.acceptsGzip(null));
+    }
+}
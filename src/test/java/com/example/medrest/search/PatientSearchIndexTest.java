@@ -0,0 +1,106 @@
+package com.example.medrest.search;
+
+import com.example.medrest.dto.PatientSearchDto;
+import com.example.medrest.export.RowStreams;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PatientSearchIndexTest {
+    @Mock
+    private RowStreams rowStreams;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PatientSearchIndex patientSearchIndex;
+
+    @BeforeEach
+    public void setup() {
+        when(rowStreams.stream(PatientSearchIndex.QUERY, PatientSearchDto.class)).thenReturn(Stream.of(
+                new PatientSearchDto(1L, "Val", "Andrei", "0730 000 000", "val@gmail.com"),
+                new PatientSearchDto(2L, "Ana-Maria", "\u0218tef\u0103nescu", "0740000000", "ana@yahoo.com"),
+                new PatientSearchDto(3L, "Andrei", "Popa", "+40 750 000 000", "andrei.popa@gmail.com")));
+        patientSearchIndex = new PatientSearchIndex(rowStreams, transactionManager);
+        patientSearchIndex.afterSingletonsInstantiated();
+    }
+
+    @Test
+    @DisplayName("The index is loaded from the database")
+    void rebuildLoadsEveryPatient() {
+        assertEquals(3, patientSearchIndex.size());
+    }
+
+    @Test
+    @DisplayName("Name words match by prefix, ignoring case and accents")
+    void namesMatchByPrefix() {
+        assertEquals(List.of(1L, 3L), ids("ANDR"));
+        assertEquals(List.of(2L), ids("maria stef"));
+        assertEquals(List.of(3L), ids("andrei popa"));
+        assertEquals(List.of(), ids("val popa"));
+    }
+
+    @Test
+    @DisplayName("Phone numbers match by the prefix of their digits and emails as a whole")
+    void phoneNumbersAndEmailsMatchByPrefix() {
+        assertEquals(List.of(1L), ids("0730 00"));
+        assertEquals(List.of(3L), ids("+40-750"));
+        assertEquals(List.of(3L), ids("andrei.popa@gm"));
+        assertEquals(List.of(2L), ids("ana@"));
+    }
+
+    @Test
+    @DisplayName("The number of results is limited")
+    void searchIsLimited() {
+        assertEquals(1, patientSearchIndex.search("andr", 1).size());
+    }
+
+    @Test
+    @DisplayName("An indexed change replaces the patient's old terms and a removed patient is no longer found")
+    void changesAreIndexed() {
+        patientSearchIndex.index(new PatientSearchDto(1L, "Val", "Ionescu", "0730000000", "val@gmail.com"));
+        patientSearchIndex.remove(3L);
+
+        assertEquals(List.of(), ids("andr"));
+        assertEquals(List.of(1L), ids("ion"));
+        assertEquals(2, patientSearchIndex.size());
+    }
+
+    @Test
+    @DisplayName("A rebuild is swapped in whole and keeps the changes committed while it read the table")
+    void rebuildKeepsConcurrentChanges() {
+        when(rowStreams.stream(PatientSearchIndex.QUERY, PatientSearchDto.class)).thenReturn(Stream.of(
+                new PatientSearchDto(1L, "Val", "Andrei", "0730000000", "val@gmail.com"),
+                new PatientSearchDto(3L, "Andrei", "Popa", "+40 750 000 000", "andrei.popa@gmail.com"))
+                .peek(patient -> {
+                    if (patient.getId() == 3L) {
+                        // searches still run against the current index
+                        assertEquals(List.of(2L), ids("maria"));
+                        patientSearchIndex.remove(3L);
+                        patientSearchIndex.index(new PatientSearchDto(4L, "Ion", "Popa", "0760000000", "ion@gmail.com"));
+                    }
+                }));
+
+        patientSearchIndex.rebuild();
+
+        assertEquals(List.of(), ids("maria"));
+        assertEquals(List.of(1L), ids("andr"));
+        assertEquals(List.of(4L), ids("popa"));
+        assertEquals(2, patientSearchIndex.size());
+    }
+
+    private List<Long> ids(String query) {
+        return patientSearchIndex.search(query, 50).stream().map(PatientSearchDto::getId).sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.medrest.service;
+
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
+import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.repository.PatientRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentServiceTest {
+    @Mock
+    private PatientRepository patientRepository;
+    @Mock
+    private ChangeCounters changeCounters;
+    @InjectMocks
+    private AppointmentService appointmentService;
+
+    @Test
+    @DisplayName("A new appointment is a single insert into the join table")
+    void addAppointmentInsertedFlow() {
+        when(patientRepository.insertDoctorLink(1L, 2L)).thenReturn(1);
+
+        appointmentService.addAppointment(1L, 2L);
+
+        verify(patientRepository, never()).existsDoctorLink(anyLong(), anyLong());
+        verify(patientRepository, never()).findById(anyLong());
+        verify(changeCounters).changed(ResourceType.PATIENTS);
+    }
+
+    @Test
+    @DisplayName("Adding an appointment which already exists changes nothing")
+    void addAppointmentAlreadyExistsFlow() {
+        when(patientRepository.insertDoctorLink(1L, 2L)).thenReturn(0);
+        when(patientRepository.existsDoctorLink(1L, 2L)).thenReturn(true);
+
+        assertDoesNotThrow(() -> appointmentService.addAppointment(1L, 2L));
+        verifyNoInteractions(changeCounters);
+    }
+
+    @Test
+    @DisplayName("NotFoundException is thrown when the patient or the doctor does not exist")
+    void addAppointmentPatientOrDoctorMissingFlow() {
+        when(patientRepository.insertDoctorLink(1L, 2L)).thenReturn(0);
+        when(patientRepository.existsDoctorLink(1L, 2L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> appointmentService.addAppointment(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("NotFoundException is thrown when removing an appointment which does not exist")
+    void removeAppointmentMissingFlow() {
+        when(patientRepository.deleteDoctorLink(1L, 2L)).thenReturn(0);
+
+        assertThrows(NotFoundException.class, () -> appointmentService.removeAppointment(1L, 2L));
+    }
+}
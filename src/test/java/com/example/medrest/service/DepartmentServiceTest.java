@@ -1,6 +1,6 @@
 package com.example.medrest.service;
 
-import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.etag.ChangeCounters;
 import com.example.medrest.model.Department;
 import com.example.medrest.model.Doctor;
 import com.example.medrest.repository.DepartmentRepository;
@@ -11,51 +11,23 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class DepartmentServiceTest {
     @Mock
     private DepartmentRepository departmentRepository;
+    @Mock
+    private ChangeCounters changeCounters;
     @InjectMocks
     private DepartmentService departmentService;
 
-    @Test
-    @DisplayName("Bad path when we throw exception because we don't have any departments in the database")
-    void getAllDepartmentsEmptyListFlow() {
-        List<Department> departments = new ArrayList<>();
-
-        when(departmentRepository.findAll()).thenReturn(departments);
-        NotFoundException exception = assertThrows(NotFoundException.class,
-                () -> departmentService.getAllDepartments());
-
-        assertNotNull(exception);
-        assertEquals("No departments in the database!", exception.getMessage());
-    }
-
-    @Test
-    @DisplayName("Good path, when we have departments and we return a list with all of them")
-    void getAllDepartmentsListWithItemsFlow() {
-        Department department1 = new Department();
-        Department department2 = new Department();
-        List<Department> departments = new ArrayList<>();
-        departments.add(department1);
-        departments.add(department2);
-
-        when(departmentRepository.findAll()).thenReturn(departments);
-        List<Department> result = departmentService.getAllDepartments();
-
-        assertNotNull(result);
-        assertEquals(departments, result);
-    }
-
     @Test
     @DisplayName("Good path when the department with the given id exists")
     void getDepartmentIsPresentTruePath() {
@@ -109,8 +81,8 @@ public class DepartmentServiceTest {
     void updateDepartmentWhenTheDepartmentWithGivenIdDoesNotExist() {
         Department department = new Department();
 
-        when(departmentRepository.findById(anyLong())).thenReturn(Optional.empty());
-        Boolean result = departmentService.updateDepartment(anyLong(), department);
+        when(departmentRepository.updateById(anyLong(), any(Department.class), isNull())).thenReturn(0);
+        Boolean result = departmentService.updateDepartment(1L, department, null);
 
         assertNotNull(result);
         assertFalse(result);
@@ -124,7 +96,7 @@ public class DepartmentServiceTest {
 
         when(departmentRepository.findById(anyLong())).thenReturn(Optional.of(department));
         when(departmentRepository.save(any(Department.class))).thenReturn(patchedDepartment);
-        Boolean result = departmentService.patchDepartment(anyLong(), patchedDepartment);
+        Boolean result = departmentService.patchDepartment(anyLong(), patchedDepartment, null);
 
         assertNotNull(result);
         assertTrue(result);
@@ -133,7 +105,7 @@ public class DepartmentServiceTest {
     @Test
     @DisplayName("Bad path when we don't have a department with the given id")
     void deleteDepartmentWhenTheIdDoesNotReturnAnyDepartment() {
-        when(departmentRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(departmentRepository.removeById(anyLong())).thenReturn(0);
         Boolean result = departmentService.deleteDepartment(anyLong());
 
         assertNotNull(result);
@@ -142,7 +114,7 @@ public class DepartmentServiceTest {
 
     @Test
     void checkIfAnyDepartmentHasGivenLocation() {
-        when(departmentRepository.findAll()).thenReturn(new ArrayList<>());
+        when(departmentRepository.existsByLocationId(1L)).thenReturn(false);
         Boolean result = departmentService.checkIfAnyDepartmentHasGivenLocation(1L);
 
         assertNotNull(result);
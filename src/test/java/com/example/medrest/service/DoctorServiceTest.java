@@ -1,5 +1,6 @@
 package com.example.medrest.service;
 
+import com.example.medrest.etag.ChangeCounters;
 import com.example.medrest.model.Doctor;
 import com.example.medrest.repository.DoctorRepository;
 import org.junit.jupiter.api.DisplayName;
@@ -9,13 +10,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,25 +28,11 @@ public class DoctorServiceTest {
     private SpecialisationService specialisationService;
     @Mock
     private DepartmentService departmentService;
+    @Mock
+    private ChangeCounters changeCounters;
     @InjectMocks
     private DoctorService doctorService;
 
-    @Test
-    @DisplayName("Good path when we have data in the database about doctors")
-    void getAllDoctorsIsPresentTrueFlow() {
-        Doctor doctor1 = new Doctor();
-        Doctor doctor2 = new Doctor();
-        List<Doctor> doctorsList = new ArrayList<>();
-        doctorsList.add(doctor1);
-        doctorsList.add(doctor2);
-
-        when(doctorRepository.findAll()).thenReturn(doctorsList);
-        List<Doctor> result = doctorService.getAllDoctors();
-
-        assertNotNull(result);
-        assertEquals(doctorsList, result);
-    }
-
     @Test
     @DisplayName("Good path when the database contains a doctor with the given id")
     void getDoctorByIdIsPresentTrue() {
@@ -80,8 +66,8 @@ public class DoctorServiceTest {
     void updateDoctorIsPresentTrueFlow() {
         Doctor doctor = new Doctor();
 
-        when(doctorRepository.findById(anyLong())).thenReturn(Optional.of(doctor));
-        Boolean result = doctorService.updateDoctor(anyLong(), doctor);
+        when(doctorRepository.updateById(anyLong(), any(Doctor.class), isNull())).thenReturn(1);
+        Boolean result = doctorService.updateDoctor(1L, doctor, null);
 
         assertNotNull(result);
         assertTrue(result);
@@ -91,7 +77,7 @@ public class DoctorServiceTest {
     @DisplayName("Bad path when the doctor data which we want to change doesnt exist in the database")
     void patchDoctorIsPresentFalseFlow() {
         when(doctorRepository.findById(anyLong())).thenReturn(Optional.empty());
-        Boolean result = doctorService.patchDoctor(anyLong(), null);
+        Boolean result = doctorService.patchDoctor(anyLong(), null, null);
 
         assertNotNull(result);
         assertFalse(result);
@@ -100,7 +86,7 @@ public class DoctorServiceTest {
     @Test
     @DisplayName("Bad path when we don't have data about the doctor with the given id")
     void deleteDoctorButIdDoesNotReturnAnyData() {
-        when(doctorRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(doctorRepository.removeById(anyLong())).thenReturn(0);
         Boolean result = doctorService.deleteDoctor(anyLong());
 
         assertNotNull(result);
@@ -109,16 +95,25 @@ public class DoctorServiceTest {
 
     @Test
     void testCheckIfAnyDoctorIsAssignedToGivenDepartmentGoodPath() {
-        when(doctorRepository.findAll()).thenReturn(new ArrayList<Doctor>());
+        when(doctorRepository.existsByDepartmentId(1L)).thenReturn(false);
         Boolean result = doctorService.checkIfAnyDoctorIsAssignedToGivenDepartment(1L);
 
         assertNotNull(result);
         assertTrue(result);
     }
 
+    @Test
+    void testCheckIfAnyDoctorIsAssignedToGivenDepartmentBadPath() {
+        when(doctorRepository.existsByDepartmentId(1L)).thenReturn(true);
+        Boolean result = doctorService.checkIfAnyDoctorIsAssignedToGivenDepartment(1L);
+
+        assertNotNull(result);
+        assertFalse(result);
+    }
+
     @Test
     void checkIfAnyDoctorHasSetGivenSpecialisation() {
-        when(doctorRepository.findAll()).thenReturn(new ArrayList<Doctor>());
+        when(doctorRepository.existsBySpecializationId(1L)).thenReturn(false);
         Boolean result = doctorService.checkIfAnyDoctorHasSetGivenSpecialisation(1L);
 
         assertNotNull(result);
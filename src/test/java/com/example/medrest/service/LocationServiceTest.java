@@ -1,5 +1,8 @@
 package com.example.medrest.service;
 
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
+import com.example.medrest.exception.PreconditionFailedException;
 import com.example.medrest.model.Location;
 import com.example.medrest.repository.LocationRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,20 +11,21 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
 
 public class LocationServiceTest {
     @Mock
     private LocationRepository locationRepository;
+    @Mock
+    private ChangeCounters changeCounters;
     @InjectMocks
     private LocationService locationService;
 
@@ -30,20 +34,6 @@ public class LocationServiceTest {
         MockitoAnnotations.initMocks(this);
     }
 
-    @Test
-    @DisplayName("Good path when we have departments stored in the database")
-    void getAllLocationsNotNullFlow() {
-        Location location = new Location();
-        List<Location> locations = new ArrayList<>();
-        locations.add(location);
-
-        when(locationRepository.findAll()).thenReturn(locations);
-        List<Location> result = locationService.getAllLocations();
-
-        assertNotNull(result);
-        assertEquals(locations, result);
-    }
-
     @Test
     @DisplayName("Good path when the department with the given id exists")
     void getLocationByIdNotNullFlow() {
@@ -87,9 +77,8 @@ public class LocationServiceTest {
     void updateLocationNotNullFlow() {
         Location location = new Location();
 
-        when(locationRepository.findById(anyLong())).thenReturn(Optional.of(location));
-        when(locationRepository.save(any(Location.class))).thenReturn(location);
-        Boolean result = locationService.updateLocation(anyLong(), location);
+        when(locationRepository.updateById(anyLong(), any(Location.class), isNull())).thenReturn(1);
+        Boolean result = locationService.updateLocation(1L, location, null);
 
         assertNotNull(result);
         assertTrue(result);
@@ -100,8 +89,8 @@ public class LocationServiceTest {
     void updateLocationNullFlow() {
         Location location = new Location();
 
-        when(locationRepository.findById(anyLong())).thenReturn(Optional.empty());
-        Boolean result = locationService.updateLocation(anyLong(), location);
+        when(locationRepository.updateById(anyLong(), any(Location.class), isNull())).thenReturn(0);
+        Boolean result = locationService.updateLocation(1L, location, null);
 
         assertNotNull(result);
         assertFalse(result);
@@ -114,19 +103,83 @@ public class LocationServiceTest {
 
         when(locationRepository.findById(anyLong())).thenReturn(Optional.of(location));
         when(locationRepository.save(location)).thenReturn(location);
-        Boolean result = locationService.patchLocation(anyLong(), location);
+        Boolean result = locationService.patchLocation(anyLong(), location, null);
 
         assertNotNull(result);
         assertTrue(result);
     }
 
     @Test
-    @DisplayName("Good path when the id is not null and the location actually exists")
-    void deleteLocationWhenIdIsValidAndLocationExists() {
+    @DisplayName("A replace against a version the location no longer has fails its precondition")
+    void updateLocationWithStaleVersion() {
         Location location = new Location();
 
-        when(locationRepository.findById(anyLong())).thenReturn(Optional.of(location));
-        doNothing().when(locationRepository).deleteById(anyLong());
+        when(locationRepository.updateById(1L, location, 3L)).thenReturn(0);
+        when(locationRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> locationService.updateLocation(1L, location, 3L));
+        verify(changeCounters, never()).changed(any());
+    }
+
+    @Test
+    @DisplayName("A patch against a version the location no longer has fails before anything is written")
+    void patchLocationWithStaleVersion() {
+        Location location = new Location();
+        location.setVersion(4L);
+
+        when(locationRepository.findById(1L)).thenReturn(Optional.of(location));
+
+        assertThrows(PreconditionFailedException.class, () -> locationService.patchLocation(1L, new Location(), 3L));
+        verify(locationRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("An unconditional patch which loses a race is applied again to a fresh read")
+    void patchLocationRetriedAfterConcurrentWrite() {
+        Location location = new Location();
+
+        when(locationRepository.findById(1L)).thenReturn(Optional.of(location));
+        when(locationRepository.save(location))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Location.class, 1L))
+                .thenReturn(location);
+        Boolean result = locationService.patchLocation(1L, new Location("Ploiesti", "Republicii", 5), null);
+
+        assertTrue(result);
+        assertEquals("Ploiesti", location.getCity());
+        verify(locationRepository, times(2)).findById(1L);
+        verify(changeCounters, times(1)).changed(ResourceType.LOCATIONS);
+    }
+
+    @Test
+    @DisplayName("An unconditional patch gives up after a bounded number of lost races")
+    void patchLocationGivesUpAfterMaxAttempts() {
+        Location location = new Location();
+
+        when(locationRepository.findById(1L)).thenReturn(Optional.of(location));
+        when(locationRepository.save(location)).thenThrow(new ObjectOptimisticLockingFailureException(Location.class, 1L));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> locationService.patchLocation(1L, new Location(), null));
+        verify(locationRepository, times(OptimisticRetry.MAX_ATTEMPTS)).save(location);
+    }
+
+    @Test
+    @DisplayName("A conditional patch which loses a race fails its precondition instead of being retried")
+    void patchLocationWithVersionNotRetried() {
+        Location location = new Location();
+        location.setVersion(3L);
+
+        when(locationRepository.findById(1L)).thenReturn(Optional.of(location));
+        when(locationRepository.save(location)).thenThrow(new ObjectOptimisticLockingFailureException(Location.class, 1L));
+
+        assertThrows(PreconditionFailedException.class, () -> locationService.patchLocation(1L, new Location(), 3L));
+        verify(locationRepository, times(1)).save(location);
+    }
+
+    @Test
+    @DisplayName("Good path when the id is not null and the location actually exists")
+    void deleteLocationWhenIdIsValidAndLocationExists() {
+        when(locationRepository.removeById(anyLong())).thenReturn(1);
         Boolean result = locationService.deleteLocation(anyLong());
 
         assertNotNull(result);
@@ -0,0 +1,124 @@
+package com.example.medrest.service;
+
+import com.example.medrest.dto.ImportReportDto;
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.etag.ResourceType;
+import com.example.medrest.exception.BadRequestException;
+import com.example.medrest.model.Patient;
+import com.example.medrest.search.PatientSearchIndex;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.validation.Validation;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientImportServiceTest {
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private Session session;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ChangeCounters changeCounters;
+    @Mock
+    private PatientSearchIndex patientSearchIndex;
+
+    private PatientImportService patientImportService;
+
+    @BeforeEach
+    public void setup() {
+        patientImportService = new PatientImportService(entityManager,
+                transactionManager,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                changeCounters,
+                patientSearchIndex,
+                2);
+    }
+
+    @Test
+    @DisplayName("Valid rows are written in batches and invalid rows are reported")
+    void importPatientsInBatches() {
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        Iterator<PatientDto> rows = List.of(
+                new PatientDto("Val", "Andrei", "0730000000", "val@gmail.com"),
+                new PatientDto("", "Pop", "0740000000", "ana@gmail.com"),
+                new PatientDto("Ion", "Popa", "0750000000", "ion@gmail.com"),
+                new PatientDto("Dan", "Dinu", "0760000000", "dan@gmail.com")).iterator();
+
+        ImportReportDto report = patientImportService.importPatients(rows);
+
+        assertEquals(3, report.getImported());
+        assertEquals(1, report.getFailures().size());
+        assertEquals(2, report.getFailures().get(0).getRow());
+        assertTrue(report.getFailures().get(0).getMessage().startsWith("firstName "));
+        verify(entityManager, times(3)).persist(any(Patient.class));
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+        verify(session, times(2)).setJdbcBatchSize(2);
+        verify(changeCounters, times(2)).changed(ResourceType.PATIENTS);
+    }
+
+    @Test
+    @DisplayName("A batch rejected by the database is retried row by row and only the rejected rows are reported")
+    void importPatientsBatchRejected() {
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        // the batch, then the retry of its first row, are rejected; the retry of the second row goes through
+        doThrow(new PersistenceException("duplicate"))
+                .doThrow(new PersistenceException("duplicate"))
+                .doNothing()
+                .when(entityManager).flush();
+        Iterator<PatientDto> rows = List.of(
+                new PatientDto("Val", "Andrei", "0730000000", "val@gmail.com"),
+                new PatientDto("Ion", "Popa", "0750000000", "ion@gmail.com")).iterator();
+
+        ImportReportDto report = patientImportService.importPatients(rows);
+
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getFailures().size());
+        assertEquals(1, report.getFailures().get(0).getRow());
+        verify(entityManager, times(4)).persist(any(Patient.class));
+        verify(transactionManager, times(2)).rollback(any());
+        verify(changeCounters).changed(ResourceType.PATIENTS);
+    }
+
+    @Test
+    @DisplayName("A row which can not be read is reported and the import goes on")
+    void importPatientsUnreadableRow() {
+        Iterator<PatientDto> rows = new Iterator<>() {
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                return row < 1;
+            }
+
+            @Override
+            public PatientDto next() {
+                row++;
+                throw new BadRequestException("Expected 4 values but found 2");
+            }
+        };
+
+        ImportReportDto report = patientImportService.importPatients(rows);
+
+        assertEquals(0, report.getImported());
+        assertEquals("Expected 4 values but found 2", report.getFailures().get(0).getMessage());
+        verifyNoInteractions(entityManager);
+    }
+}
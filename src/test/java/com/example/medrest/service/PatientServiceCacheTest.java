@@ -0,0 +1,97 @@
+package com.example.medrest.service;
+
+import com.example.medrest.configuration.CacheConfiguration;
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.export.RowStreams;
+import com.example.medrest.model.Patient;
+import com.example.medrest.repository.PatientRepository;
+import com.example.medrest.repository.PrescriptionRepository;
+import com.example.medrest.search.PatientSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+
+import static com.example.medrest.configuration.CacheConfiguration.PATIENTS;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig(classes = {CacheConfiguration.class, PatientService.class})
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.cache.type=caffeine",
+        "spring.cache.cache-names=" + PATIENTS
+})
+class PatientServiceCacheTest {
+    @MockBean
+    private PatientRepository patientRepository;
+    @MockBean
+    private PrescriptionRepository prescriptionRepository;
+    @MockBean
+    private ChangeCounters changeCounters;
+    @MockBean
+    private PatientSearchIndex patientSearchIndex;
+    @MockBean
+    private RowStreams rowStreams;
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final PatientDto testPatient = new PatientDto("Val", "Andrei", "0730000000", "email@gmail.com");
+
+    @BeforeEach
+    public void setup() {
+        cacheManager.getCache(PATIENTS).clear();
+    }
+
+    @Test
+    @DisplayName("A patient is read from the database only once")
+    void getPatientDtoByIdIsCached() {
+        when(patientRepository.findDtoById(1L)).thenReturn(Optional.of(testPatient));
+
+        assertSame(testPatient, patientService.getPatientDtoById(1L));
+        assertSame(testPatient, patientService.getPatientDtoById(1L));
+        verify(patientRepository, times(1)).findDtoById(1L);
+    }
+
+    @Test
+    @DisplayName("A patient which does not exist is not cached")
+    void missingPatientIsNotCached() {
+        when(patientRepository.findDtoById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> patientService.getPatientDtoById(1L));
+        assertThrows(NotFoundException.class, () -> patientService.getPatientDtoById(1L));
+        verify(patientRepository, times(2)).findDtoById(1L);
+    }
+
+    @Test
+    @DisplayName("Replacing or deleting a patient evicts only that patient")
+    void writesEvictThePatient() {
+        when(patientRepository.findDtoById(anyLong())).thenReturn(Optional.of(testPatient));
+        when(patientRepository.updateById(eq(1L), any(Patient.class), isNull())).thenReturn(1);
+        when(patientRepository.removeById(1L)).thenReturn(1);
+        patientService.getPatientDtoById(1L);
+        patientService.getPatientDtoById(2L);
+
+        patientService.updatePatient(1L, new Patient(), null);
+        assertNull(cacheManager.getCache(PATIENTS).get(1L));
+        patientService.getPatientDtoById(1L);
+        patientService.deletePatient(1L);
+
+        assertNull(cacheManager.getCache(PATIENTS).get(1L));
+        assertNotNull(cacheManager.getCache(PATIENTS).get(2L));
+        verify(patientRepository, times(2)).findDtoById(1L);
+    }
+}
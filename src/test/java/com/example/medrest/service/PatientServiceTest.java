@@ -1,24 +1,41 @@
 package com.example.medrest.service;
 
+import com.example.medrest.dto.PatientDto;
+import com.example.medrest.dto.PatientSearchDto;
+import com.example.medrest.etag.ChangeCounters;
+import com.example.medrest.exception.BadRequestException;
 import com.example.medrest.exception.NotFoundException;
+import com.example.medrest.mapper.PatientMapper;
 import com.example.medrest.model.Doctor;
 import com.example.medrest.model.Patient;
 import com.example.medrest.model.Prescription;
+import com.example.medrest.pagination.Cursor;
+import com.example.medrest.pagination.KeysetRequest;
+import com.example.medrest.pagination.KeysetSlice;
 import com.example.medrest.repository.PatientRepository;
 import com.example.medrest.repository.PrescriptionRepository;
+import com.example.medrest.search.PatientSearchIndex;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -28,23 +45,88 @@ class PatientServiceTest {
     private PatientRepository patientRepository;
     @Mock
     private PrescriptionRepository prescriptionRepository;
+    @Mock
+    private ChangeCounters changeCounters;
+    @Mock
+    private PatientSearchIndex patientSearchIndex;
     @InjectMocks
     private PatientService patientService;
 
     @Test
-    @DisplayName("Good path when we have data in the database about patients")
-    void getAllPatientsIsPresentFlow() {
-        Patient patient1 = new Patient();
-        Patient patient2 = new Patient();
-        List<Patient> patientsList = new ArrayList<>();
-        patientsList.add(patient1);
-        patientsList.add(patient2);
+    @DisplayName("Good path when the requested page of patients contains data")
+    void getPatientsPageIsPresentFlow() {
+        Slice<PatientDto> patientSlice = new SliceImpl<>(List.of(new PatientDto()));
 
-        when(patientRepository.findAll()).thenReturn(patientsList);
-        List<Patient> result = patientService.getAllPatients();
+        when(patientRepository.findDtoBy(any(Pageable.class))).thenReturn(patientSlice);
+        Slice<PatientDto> result = patientService.getPatientsPage(2, 10, "lastName,desc");
 
-        assertNotNull(result);
-        assertEquals(patientsList, result);
+        assertEquals(patientSlice, result);
+        verify(patientRepository).findDtoBy(PageRequest.of(2, 10,
+                Sort.by(Sort.Direction.DESC, "lastName").and(Sort.by(Sort.Direction.DESC, "id"))));
+    }
+
+    @Test
+    @DisplayName("NotFoundException is thrown when the requested page of patients is empty")
+    void getPatientsPageIsEmptyFlow() {
+        when(patientRepository.findDtoBy(any(Pageable.class))).thenReturn(new SliceImpl<>(new ArrayList<>()));
+
+        assertThrows(NotFoundException.class, () -> patientService.getPatientsPage(0, 10, null));
+    }
+
+    @Test
+    @DisplayName("BadRequestException is thrown when sorting by a property which is not allowed")
+    void getPatientsPageWithUnknownSortProperty() {
+        assertThrows(BadRequestException.class, () -> patientService.getPatientsPage(0, 10, "doctors"));
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    @DisplayName("Good path when reading the first keyset page of patients")
+    void getPatientsByCursorIsPresentFlow() {
+        KeysetSlice<PatientDto> patientSlice = new KeysetSlice<>(List.of(new PatientDto()), "next");
+
+        when(patientRepository.<PatientDto>findKeysetSlice(any(KeysetRequest.class), anyCollection(), any()))
+                .thenReturn(patientSlice);
+        KeysetSlice<PatientDto> result = patientService.getPatientsByCursor(null, 20, "lastName,desc");
+
+        assertEquals(patientSlice, result);
+        ArgumentCaptor<KeysetRequest> request = ArgumentCaptor.forClass(KeysetRequest.class);
+        verify(patientRepository).findKeysetSlice(request.capture(), eq(PatientMapper.DTO_PROPERTIES), any());
+        assertEquals("lastName", request.getValue().getSortProperty());
+        assertEquals(Sort.Direction.DESC, request.getValue().getDirection());
+        assertEquals(20, request.getValue().getSize());
+        assertNull(request.getValue().getCursor());
+    }
+
+    @Test
+    @DisplayName("The ordering stored in the cursor is used for the following keyset pages")
+    void getPatientsByCursorContinuesFromCursor() {
+        String cursor = new Cursor(Sort.Direction.ASC, "firstName", "12", "Val").encode();
+
+        when(patientRepository.<PatientDto>findKeysetSlice(any(KeysetRequest.class), anyCollection(), any()))
+                .thenReturn(new KeysetSlice<>(List.of(new PatientDto()), null));
+        patientService.getPatientsByCursor(cursor, 20, "lastName,desc");
+
+        ArgumentCaptor<KeysetRequest> request = ArgumentCaptor.forClass(KeysetRequest.class);
+        verify(patientRepository).findKeysetSlice(request.capture(), eq(PatientMapper.DTO_PROPERTIES), any());
+        assertEquals("firstName", request.getValue().getSortProperty());
+        assertEquals(Sort.Direction.ASC, request.getValue().getDirection());
+        assertEquals("12", request.getValue().getCursor().getId());
+        assertEquals("Val", request.getValue().getCursor().getValue());
+    }
+
+    @Test
+    @DisplayName("BadRequestException is thrown when the cursor can not be decoded")
+    void getPatientsByCursorWithInvalidCursor() {
+        assertThrows(BadRequestException.class, () -> patientService.getPatientsByCursor("not a cursor", 20, null));
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    @DisplayName("BadRequestException is thrown when the page size is over the limit")
+    void getPatientsByCursorWithOversizedPage() {
+        assertThrows(BadRequestException.class, () -> patientService.getPatientsByCursor(null, 10000, null));
+        verifyNoInteractions(patientRepository);
     }
 
     @Test
@@ -59,6 +141,32 @@ class PatientServiceTest {
         assertEquals(patient, result);
     }
 
+    @Test
+    @DisplayName("NotFoundException is thrown when no patient projection exists for the given id")
+    void getPatientDtoByIdIsPresentFalse() {
+        when(patientRepository.findDtoById(anyLong())).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> patientService.getPatientDtoById(1L));
+    }
+
+    @Test
+    @DisplayName("An existing patient without appointments gets an empty doctor list")
+    void getPatientDoctorsListPatientWithoutDoctors() {
+        when(patientRepository.findDoctorDtosByPatientId(1L)).thenReturn(new ArrayList<>());
+        when(patientRepository.existsById(1L)).thenReturn(true);
+
+        assertTrue(patientService.getPatientDoctorsList(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("NotFoundException is thrown when listing the doctors of a missing patient")
+    void getPatientDoctorsListPatientDoesNotExist() {
+        when(patientRepository.findDoctorDtosByPatientId(1L)).thenReturn(new ArrayList<>());
+        when(patientRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> patientService.getPatientDoctorsList(1L));
+    }
+
     @Test
     @DisplayName("Good path when the given patient data is not null")
     void addPatientGoodFlow() {
@@ -85,8 +193,8 @@ class PatientServiceTest {
     void updatePatientIsPresentTrueFlow() {
         Patient patient = new Patient();
 
-        when(patientRepository.findById(anyLong())).thenReturn(Optional.of(patient));
-        Boolean result = patientService.updatePatient(anyLong(), patient);
+        when(patientRepository.updateById(anyLong(), any(Patient.class), isNull())).thenReturn(1);
+        Boolean result = patientService.updatePatient(1L, patient, null);
 
         assertNotNull(result);
         assertTrue(result);
@@ -96,7 +204,7 @@ class PatientServiceTest {
     @DisplayName("Bad path when the patient data which we want to change doesnt exist in the database")
     void patchPatientIsPresentFalseFlow() {
         when(patientRepository.findById(anyLong())).thenReturn(Optional.empty());
-        Boolean result = patientService.patchPatient(anyLong(), null);
+        Boolean result = patientService.patchPatient(anyLong(), null, null);
 
         assertNotNull(result);
         assertFalse(result);
@@ -105,13 +213,59 @@ class PatientServiceTest {
     @Test
     @DisplayName("Bad path when we don't have data about the patient with the given id")
     void deletePatientButIdDoesNotReturnAnyData() {
-        when(patientRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(patientRepository.removeById(anyLong())).thenReturn(0);
         Boolean result = patientService.deletePatient(anyLong());
 
         assertNotNull(result);
         assertFalse(result);
     }
 
+    @Test
+    @DisplayName("A patient is deleted without being loaded first")
+    void deletePatientWithoutLoadingIt() {
+        when(patientRepository.removeById(1L)).thenReturn(1);
+        Boolean result = patientService.deletePatient(1L);
+
+        assertTrue(result);
+        verify(patientRepository).removeById(1L);
+        verify(patientRepository, never()).findById(anyLong());
+        verify(patientSearchIndex).remove(1L);
+    }
+
+    @Test
+    @DisplayName("An updated patient is indexed for search under its id")
+    void updatePatientIndexesThePatient() {
+        Patient patient = new Patient("Val", "Andrei", "0730000000", "email@gmail.com");
+        when(patientRepository.updateById(1L, patient, null)).thenReturn(1);
+
+        patientService.updatePatient(1L, patient, null);
+
+        ArgumentCaptor<PatientSearchDto> indexed = ArgumentCaptor.forClass(PatientSearchDto.class);
+        verify(patientSearchIndex).index(indexed.capture());
+        assertEquals(1L, indexed.getValue().getId());
+        assertEquals("Andrei", indexed.getValue().getLastName());
+    }
+
+    @Test
+    @DisplayName("A search is answered from the index")
+    void searchPatientsFlow() {
+        List<PatientSearchDto> patients = List.of(new PatientSearchDto(1L, "Val", "Andrei", "0730000000", "email@gmail.com"));
+        when(patientSearchIndex.search("andr", 50)).thenReturn(patients);
+
+        assertEquals(patients, patientService.searchPatients("andr", 50));
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    @DisplayName("Bad path when the search query is empty or nothing matches it")
+    void searchPatientsBadFlow() {
+        when(patientSearchIndex.search("zz", 50)).thenReturn(List.of());
+
+        assertThrows(BadRequestException.class, () -> patientService.searchPatients(" ", 50));
+        assertThrows(BadRequestException.class, () -> patientService.searchPatients("zz", 0));
+        assertThrows(NotFoundException.class, () -> patientService.searchPatients("zz", 50));
+    }
+
     @Test
     @DisplayName("When both entities have exist(have valid ids) add prescription to the patient.")
     void addPrescriptionToPatientBothEntitiesExistFlow() {
@@ -148,6 +302,33 @@ class PatientServiceTest {
                 exception.getMessage());
     }
 
+    @Test
+    @DisplayName("Only the missing links are inserted when several prescriptions are given to a patient")
+    void addPrescriptionsToPatientAllExistFlow() {
+        Set<Long> prescriptionIds = Set.of(1L, 2L, 3L);
+        when(patientRepository.existsById(1L)).thenReturn(true);
+        when(prescriptionRepository.findExistingIds(prescriptionIds)).thenReturn(List.of(1L, 2L, 3L));
+        when(patientRepository.insertMissingPrescriptionLinks(1L, prescriptionIds)).thenReturn(2);
+
+        assertEquals(2, patientService.addPrescriptionsToPatient(prescriptionIds, 1L));
+        verify(patientRepository, never()).findById(anyLong());
+        verify(patientRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("NotFoundException naming the unknown ids is thrown and nothing is inserted")
+    void addPrescriptionsToPatientButSomePrescriptionsDoNotExistFlow() {
+        Set<Long> prescriptionIds = Set.of(1L, 2L, 3L);
+        when(patientRepository.existsById(1L)).thenReturn(true);
+        when(prescriptionRepository.findExistingIds(prescriptionIds)).thenReturn(List.of(2L));
+
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> patientService.addPrescriptionsToPatient(prescriptionIds, 1L));
+
+        assertEquals("The prescriptions with the ids [1, 3] were not found!\n", exception.getMessage());
+        verify(patientRepository, never()).insertMissingPrescriptionLinks(anyLong(), anyCollection());
+    }
+
     @Test
     @DisplayName("NotFoundException is thrown when the patient does not exist.")
     void addPatientPrescriptionsListButPatientDoesNotExistFlow() {
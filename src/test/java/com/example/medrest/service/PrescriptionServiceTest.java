@@ -1,5 +1,6 @@
 package com.example.medrest.service;
 
+import com.example.medrest.etag.ChangeCounters;
 import com.example.medrest.model.Prescription;
 import com.example.medrest.repository.PrescriptionRepository;
 import org.junit.jupiter.api.Test;
@@ -9,19 +10,19 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
 class PrescriptionServiceTest {
     @Mock
     private PrescriptionRepository prescriptionRepository;
+    @Mock
+    private ChangeCounters changeCounters;
     @InjectMocks
     private PrescriptionService prescriptionService;
 
@@ -30,20 +31,6 @@ class PrescriptionServiceTest {
         MockitoAnnotations.initMocks(this);
     }
 
-    @Test
-    @DisplayName("Good path when we have prescriptions stored in the database")
-    void getAllPrescriptionsNotNullFlow() {
-        Prescription prescription = new Prescription();
-        List<Prescription> prescriptions = new ArrayList<>();
-        prescriptions.add(prescription);
-
-        when(prescriptionRepository.findAll()).thenReturn(prescriptions);
-        List<Prescription> result = prescriptionService.getAllPrescriptions();
-
-        assertNotNull(result);
-        assertEquals(prescriptions, result);
-    }
-
     @Test
     @DisplayName("Good path when the prescription with the given id exists")
     void getPrescriptionByIdNotNullFlow() {
@@ -78,9 +65,8 @@ class PrescriptionServiceTest {
     void updatePrescriptionNotNullFlow() {
         Prescription prescription = new Prescription();
 
-        when(prescriptionRepository.findById(anyLong())).thenReturn(Optional.of(prescription));
-        when(prescriptionRepository.save(any(Prescription.class))).thenReturn(prescription);
-        Boolean result = prescriptionService.updatePrescription(anyLong(), prescription);
+        when(prescriptionRepository.updateById(anyLong(), any(Prescription.class), isNull())).thenReturn(1);
+        Boolean result = prescriptionService.updatePrescription(1L, prescription, null);
 
         assertNotNull(result);
         assertTrue(result);
@@ -93,7 +79,7 @@ class PrescriptionServiceTest {
 
         when(prescriptionRepository.findById(anyLong())).thenReturn(Optional.of(prescription));
         when(prescriptionRepository.save(any(Prescription.class))).thenReturn(prescription);
-        Boolean result = prescriptionService.patchPrescription(anyLong(), prescription);
+        Boolean result = prescriptionService.patchPrescription(anyLong(), prescription, null);
 
         assertNotNull(result);
         assertTrue(result);
@@ -102,10 +88,7 @@ class PrescriptionServiceTest {
     @Test
     @DisplayName("Good path when the id is not null and the prescription actually exists")
     void deletePrescriptionWhenPrescriptionExists() {
-        Prescription prescription = new Prescription();
-
-        when(prescriptionRepository.findById(anyLong())).thenReturn(Optional.of(prescription));
-        doNothing().when(prescriptionRepository).deleteById(anyLong());
+        when(prescriptionRepository.removeById(anyLong())).thenReturn(1);
         Boolean result = prescriptionService.deletePrescription(anyLong());
 
         assertNotNull(result);
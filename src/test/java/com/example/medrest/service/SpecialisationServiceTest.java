@@ -1,5 +1,6 @@
 package com.example.medrest.service;
 
+import com.example.medrest.etag.ChangeCounters;
 import com.example.medrest.model.Location;
 import com.example.medrest.model.Specialisation;
 import com.example.medrest.repository.SpecialisationRepository;
@@ -11,18 +12,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 
 public class SpecialisationServiceTest {
     @Mock
     private SpecialisationRepository specialisationRepository;
+    @Mock
+    private ChangeCounters changeCounters;
     @InjectMocks
     private SpecialisationService specialisationService;
 
@@ -31,23 +31,6 @@ public class SpecialisationServiceTest {
         MockitoAnnotations.initMocks(this);
     }
 
-    @Test
-    @DisplayName("Good path when we have specialisations stored in the database")
-    void getSpecializationsNotNullFlow() {
-        Specialisation specialisation = new Specialisation();
-        List<Specialisation> specialisations = new ArrayList<>();
-        specialisations.add(specialisation);
-        List<Specialisation> testSpecialisations = new ArrayList<>();
-        testSpecialisations.add(specialisation);
-
-        when(specialisationRepository.findAll()).thenReturn(specialisations);
-
-        List<Specialisation> result = specialisationService.getSpecializations();
-
-        assertNotNull(result);
-        assertEquals(testSpecialisations, result);
-    }
-
     @Test
     @DisplayName("Good path when the department with the given id exists")
     void getSpecialisationByIdNotNullFlow() {
@@ -89,10 +72,10 @@ public class SpecialisationServiceTest {
     @Test
     @DisplayName("Bad path, ie. when the given specialisation isn't in the database")
     void updateSpecialisationNullFlow() {
-        when(specialisationRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(specialisationRepository.updateById(anyLong(), any(Specialisation.class), isNull())).thenReturn(0);
 
-        Boolean result = specialisationService.updateSpecialisation(anyLong(),
-                new Specialisation());
+        Boolean result = specialisationService.updateSpecialisation(1L,
+                new Specialisation(), null);
 
         assertNotNull(result);
         assertFalse(result);
@@ -105,7 +88,7 @@ public class SpecialisationServiceTest {
         when(specialisationRepository.findById(anyLong())).thenReturn(Optional.of(specialisation));
         when(specialisationRepository.save(specialisation)).thenReturn(specialisation);
 
-        Boolean result = specialisationService.patchSpecialisation(anyLong(), specialisation);
+        Boolean result = specialisationService.patchSpecialisation(anyLong(), specialisation, null);
 
         assertNotNull(result);
         assertTrue(result);
@@ -114,10 +97,7 @@ public class SpecialisationServiceTest {
     @Test
     @DisplayName("Good path when the specialisation actually exists")
     void deleteSpecialisationWhenSpecialisationExists() {
-        Specialisation specialisation = new Specialisation();
-
-        when(specialisationRepository.findById(anyLong())).thenReturn(Optional.of(specialisation));
-        doNothing().when(specialisationRepository).deleteById(anyLong());
+        when(specialisationRepository.removeById(anyLong())).thenReturn(1);
         Boolean result = specialisationService.deleteSpecialisation(anyLong());
 
         assertNotNull(result);